@@ -1,11 +1,15 @@
 package account;
 
 import data.DataManager;
+import data.market.MarketSnapshot;
+import data.market.Price;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -14,12 +18,19 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class Account implements ReadOnlyAccount, Serializable {
 
+    private static final long serialVersionUID = -1810426436397779864L;
+
     private final Map<String, Portfolio> portfolios = new HashMap<String, Portfolio>();
+    // guards the portfolios and the account's cash. Trades only take their portfolio's lock, and anything needing
+    // both takes this one first, so the two are always taken in the same order.
     private final ReadWriteLock accountLock = new ReentrantReadWriteLock();
 
     private BigDecimal addedCash;
     private BigDecimal cash;
 
+    // while tracked, marks every position as prices change so values are read without repricing
+    private transient Valuation valuation;
+
     /**
      * Creates a new, empty investment account simulator.
      *
@@ -44,6 +55,10 @@ public class Account implements ReadOnlyAccount, Serializable {
 
     @Override
     public ReadOnlyPortfolio getPortfolio(String name) {
+        return this.portfolio(name);
+    }
+
+    private Portfolio portfolio(String name) {
         Lock readLock = accountLock.readLock();
         readLock.lock();
 
@@ -59,6 +74,122 @@ public class Account implements ReadOnlyAccount, Serializable {
         return this.cash;
     }
 
+    @Override
+    public BigDecimal value(DataManager data) {
+        Lock readLock = accountLock.readLock();
+        readLock.lock();
+
+        try {
+            long market = this.valuation == null ? Price.NONE : this.valuation.total().get();
+            BigDecimal total = this.cash;
+            for (Portfolio portfolio : this.portfolios.values()) {
+                if (market != Price.NONE) {
+                    total = total.add(portfolio.cash());
+                    continue;
+                }
+                BigDecimal value = portfolio.value(data);
+                if (value == null) {
+                    return null;
+                }
+                total = total.add(value);
+            }
+            return market == Price.NONE ? total : total.add(Price.toBigDecimal(market));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Starts keeping the market value of every portfolio up to date as the data manager's prices change and as
+     * securities are traded, so values are read without pricing each position. Tracking is not saved with the
+     * account, so a loaded account must be tracked again.
+     *
+     * @param data DataManager for current market data.
+     */
+    public void track(DataManager data) {
+        List<Portfolio> portfolios;
+        Lock readLock = accountLock.readLock();
+        readLock.lock();
+
+        try {
+            if (this.valuation != null) {
+                return;
+            }
+            portfolios = new ArrayList<Portfolio>(this.portfolios.values());
+        } finally {
+            readLock.unlock();
+        }
+
+        // priced before any lock is taken, since a price missing from the snapshot is fetched from the provider.
+        // Positions opened meanwhile, or left without a price, are marked by their security's next tick.
+        MarketSnapshot snapshot = data.snapshot();
+        Map<Integer, Long> prices = new HashMap<Integer, Long>();
+        for (Portfolio portfolio : portfolios) {
+            portfolio.quote(data, snapshot, prices);
+        }
+
+        Lock writeLock = accountLock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.valuation != null) {
+                return;
+            }
+            this.valuation = new Valuation();
+            data.addTickListener(this.valuation);
+            for (Portfolio portfolio : this.portfolios.values()) {
+                portfolio.track(this.valuation, prices);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stops keeping the market values up to date.
+     *
+     * @param data The DataManager the account was tracked with.
+     */
+    public void untrack(DataManager data) {
+        Lock writeLock = accountLock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.valuation == null) {
+                return;
+            }
+            data.removeTickListener(this.valuation);
+            for (Portfolio portfolio : this.portfolios.values()) {
+                portfolio.untrack();
+            }
+            this.valuation = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the total quantity held of each security across all portfolios in the account.
+     *
+     * @return a map from ticker to the quantity held
+     */
+    public Map<String, Integer> heldQuantities() {
+        Lock readLock = accountLock.readLock();
+        readLock.lock();
+
+        try {
+            Map<String, Integer> held = new HashMap<String, Integer>();
+            for (Portfolio portfolio : this.portfolios.values()) {
+                for (ReadOnlyPosition position : portfolio.positions()) {
+                    held.merge(position.security(), position.quantity(), Integer::sum);
+                }
+            }
+            return held;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     /**
      * Adds cash to the simulated investment account.
      *
@@ -93,7 +224,10 @@ public class Account implements ReadOnlyAccount, Serializable {
             if (portfolio != null) {
                 return false;
             }
-            Portfolio newPortfolio = new Portfolio(name, BigDecimal.ZERO, accountLock);
+            Portfolio newPortfolio = new Portfolio(name, BigDecimal.ZERO);
+            if (this.valuation != null) {
+                newPortfolio.track(this.valuation, null);
+            }
             portfolios.put(name, newPortfolio);
             return true;
         } finally {
@@ -150,15 +284,14 @@ public class Account implements ReadOnlyAccount, Serializable {
                 return false;
             }
 
-            // make sure the portfolio has enough money
-            if (portfolio.cash().compareTo(amount) >= 0) {
+            // make sure the portfolio has enough money, checked under its lock since it may be trading
+            try {
                 portfolio.removeCash(amount);
-                this.cash = this.cash.add(amount);
-                return true;
-            }
-            else {
+            } catch (IllegalArgumentException e) {
                 return false;
             }
+            this.cash = this.cash.add(amount);
+            return true;
 
         } finally {
             writeLock.unlock();
@@ -175,20 +308,37 @@ public class Account implements ReadOnlyAccount, Serializable {
      * no portfolio exists with the specified name.
      */
     public boolean liquidatePortfolio (DataManager data, String portfolioName) {
-        Lock writeLock = accountLock.writeLock();
-        writeLock.lock();
+        Portfolio confirmedPortfolio = this.portfolio(portfolioName);
+        if (confirmedPortfolio == null) {
+            return false;
+        }
 
-        try {
-            Portfolio confirmedPortfolio = this.portfolios.get(portfolioName);
-            if (confirmedPortfolio == null) {
+        while (true) {
+            // every position is sold at the prices of one snapshot, read before any lock is taken
+            int version = confirmedPortfolio.version();
+            Map<Integer, Long> prices = confirmedPortfolio.prices(data);
+            if (prices == null) {
                 return false;
             }
-            BigDecimal value = confirmedPortfolio.value(data);
-            this.cash = this.cash.add(value);
-            portfolios.remove(confirmedPortfolio.name());
-            return true;
-        } finally {
-            writeLock.unlock();
+
+            Lock writeLock = accountLock.writeLock();
+            writeLock.lock();
+
+            try {
+                if (this.portfolios.get(portfolioName) != confirmedPortfolio) {
+                    return false;
+                }
+                BigDecimal value = confirmedPortfolio.close(version, prices);
+                if (value == null) {
+                    // traded while it was being priced, so price it again
+                    continue;
+                }
+                this.cash = this.cash.add(value);
+                portfolios.remove(portfolioName);
+                return true;
+            } finally {
+                writeLock.unlock();
+            }
         }
     }
 
@@ -204,18 +354,12 @@ public class Account implements ReadOnlyAccount, Serializable {
      * cash to make the purchase.
      */
     public boolean buySecurity (DataManager data, String portfolioName, String ticker, int quantity) {
-        Lock writeLock = accountLock.writeLock();
-        writeLock.lock();
-
-        try {
-            Portfolio confirmedPortfolio = this.portfolios.get(portfolioName);
-            if (confirmedPortfolio == null) {
-                return false;
-            }
-            return confirmedPortfolio.tradeSecurity(data, ticker, quantity);
-        } finally {
-            writeLock.unlock();
+        // only the portfolio's own lock is held for the trade
+        Portfolio confirmedPortfolio = this.portfolio(portfolioName);
+        if (confirmedPortfolio == null) {
+            return false;
         }
+        return confirmedPortfolio.tradeSecurity(data, ticker, quantity);
     }
 
     /**
@@ -230,18 +374,11 @@ public class Account implements ReadOnlyAccount, Serializable {
      * there was not enough of the security owned to sell the specified amount.
      */
     public boolean sellSecurity (DataManager data, String portfolioName, String ticker, int quantity) {
-        Lock writeLock = accountLock.writeLock();
-        writeLock.lock();
-
-        try {
-            Portfolio confirmedPortfolio = this.portfolios.get(portfolioName);
-            if (confirmedPortfolio == null) {
-                return false;
-            }
-
-            return confirmedPortfolio.tradeSecurity(data, ticker, quantity * (-1));
-        } finally {
-            writeLock.unlock();
+        Portfolio confirmedPortfolio = this.portfolio(portfolioName);
+        if (confirmedPortfolio == null) {
+            return false;
         }
+
+        return confirmedPortfolio.tradeSecurity(data, ticker, quantity * (-1));
     }
 }
@@ -0,0 +1,89 @@
+package account;
+
+import data.market.Price;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The running market value of a set of positions, kept up to date by the change in value of each price change and
+ * trade rather than by repricing every position. A portfolio's market value passes every change on to its
+ * account's, so both totals are read in constant time. Changes come from the market's tick thread as well as from
+ * trades, so the total is atomic rather than guarded by the account lock.
+ */
+class MarketValue {
+
+    private final MarketValue parent;
+    private final AtomicLong micros = new AtomicLong();
+    // positions that have not had a price yet
+    private final AtomicInteger unmarked = new AtomicInteger();
+    // set if the total ever stops fitting in fixed-point, after which it is never used
+    private volatile boolean overflowed = false;
+
+    /**
+     * Creates a market value.
+     *
+     * @param parent the market value every change is also applied to, or null
+     */
+    MarketValue(MarketValue parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Gets the total.
+     *
+     * @return the total in micros, or Price.NONE if a position has no price or the total overflowed
+     */
+    long get() {
+        if (this.overflowed || this.unmarked.get() > 0) {
+            return Price.NONE;
+        }
+        return this.micros.get();
+    }
+
+    /**
+     * Adds the change in value of a position.
+     *
+     * @param delta the change in micros
+     */
+    void add(long delta) {
+        while (true) {
+            long current = this.micros.get();
+            long next;
+            try {
+                next = Price.add(current, delta);
+            } catch (ArithmeticException e) {
+                this.overflow();
+                return;
+            }
+            if (this.micros.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        if (this.parent != null) {
+            this.parent.add(delta);
+        }
+    }
+
+    /**
+     * Records that a position's value no longer fits in fixed-point.
+     */
+    void overflow() {
+        this.overflowed = true;
+        if (this.parent != null) {
+            this.parent.overflow();
+        }
+    }
+
+    /**
+     * Records a position joining or leaving the set before it has a price, or getting its first price.
+     *
+     * @param change 1 for a position without a price joining, -1 for one getting a price or leaving without one
+     */
+    void changeUnmarked(int change) {
+        this.unmarked.addAndGet(change);
+        if (this.parent != null) {
+            this.parent.changeUnmarked(change);
+        }
+    }
+}
@@ -1,42 +1,73 @@
 package account;
 
 import data.DataManager;
+import data.market.MarketSnapshot;
+import data.market.Price;
+import data.market.Symbols;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Represents a portfolio of investments in the simulation.
+ * Represents a portfolio of investments in the simulation. Each portfolio has its own lock, so trades in different
+ * portfolios never wait on each other. Prices are fetched before the lock is taken.
  */
 public class Portfolio implements ReadOnlyPortfolio, Serializable {
 
-    private final String name;
-    private final Map<String, Position> positions = new HashMap<String, Position>();
-    private final ReadWriteLock accountLock;
+    // trades are executed at prices no older than this, in milliseconds
+    static final long TRADE_PRICE_MAX_AGE = 10000;
+
+    private static final long serialVersionUID = -3883554345621254693L;
+
+    // positions are saved keyed by the ticker's text, since symbol ids are only valid within one run
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("positions", Map.class),
+            new ObjectStreamField("cash", BigDecimal.class),
+    };
+
+    private String name;
+    private transient PositionTable positions = new PositionTable();
+    private transient ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private BigDecimal cash;
 
+    // changes with every trade, so prices read outside the lock can be checked against the positions they were read for
+    private transient int version;
+    // set once the portfolio is liquidated, after which it takes no more trades
+    private transient boolean closed;
+
+    // while the account is tracked, the running value of the positions, kept current by price changes and trades
+    private transient Valuation valuation;
+    private transient MarketValue marketValue;
+
     /**
      * Creates a portfolio of investments.
      *
      * @param name The name of the portfolio.
      * @param initialCash The initial amount of cash in the portfolio.
      */
-    protected Portfolio(String name, BigDecimal initialCash, ReadWriteLock accountLock) {
+    protected Portfolio(String name, BigDecimal initialCash) {
         this.name = name;
         this.cash = initialCash;
-        this.accountLock = accountLock;
     }
 
 
     @Override
     public String name() {
-        Lock readLock = accountLock.readLock();
+        Lock readLock = this.lock.readLock();
         readLock.lock();
 
         try {
@@ -48,32 +79,153 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
 
     @Override
     public BigDecimal value(DataManager data) {
-        Lock readLock = accountLock.readLock();
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+
+        try {
+            long market = this.marketValue == null ? Price.NONE : this.marketValue.get();
+            if (market != Price.NONE) {
+                return Price.toBigDecimal(market).add(this.cash);
+            }
+        } finally {
+            readLock.unlock();
+        }
+        // not tracked, or a position has no price yet, so value every position
+        return this.value(data, data.snapshot());
+    }
+
+    /**
+     * Starts keeping a running market value of the portfolio's positions. The caller must hold the account's write
+     * lock, so the account's valuation is not changed meanwhile.
+     *
+     * @param valuation The account's valuation, which marks positions as prices change.
+     * @param prices The positions' current prices in micros by symbol id, read beforehand by quote, or null if there
+     *               are no positions. A position without a price is marked by the next tick of its security.
+     */
+    void track(Valuation valuation, Map<Integer, Long> prices) {
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            this.valuation = valuation;
+            this.marketValue = new MarketValue(valuation.total());
+            for (Position position : this.positions.values()) {
+                valuation.add(position);
+                Long price = prices == null ? null : prices.get(position.symbol());
+                position.track(this.marketValue, price == null ? Price.NONE : price);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Prices every position not already in the specified prices, holding the portfolio's lock only to list the
+     * positions, so no lock is held while a missing price is fetched.
+     *
+     * @param data The data manager prices missing from the snapshot come from.
+     * @param snapshot The market snapshot prices are read from first.
+     * @param prices The prices in micros by symbol id, which those found are added to.
+     */
+    void quote(DataManager data, MarketSnapshot snapshot, Map<Integer, Long> prices) {
+        List<Position> positions;
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+
+        try {
+            positions = new ArrayList<Position>(this.positions.values());
+        } finally {
+            readLock.unlock();
+        }
+
+        for (Position position : positions) {
+            if (!prices.containsKey(position.symbol())) {
+                long price = position.priceMicros(data, snapshot);
+                if (price != Price.NONE) {
+                    prices.put(position.symbol(), price);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops keeping a running market value, taking the portfolio's positions out of the account's. The caller must
+     * hold the account's write lock.
+     */
+    void untrack() {
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.valuation == null) {
+                return;
+            }
+            for (Position position : this.positions.values()) {
+                this.valuation.remove(position);
+                position.untrack();
+            }
+            this.valuation = null;
+            this.marketValue = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Values the portfolio with every price read from one market snapshot, so the total never mixes prices from
+     * different refresh cycles.
+     *
+     * @param data The data manager prices missing from the snapshot come from.
+     * @param snapshot The snapshot prices are read from.
+     * @return The value of the portfolio, or null if a price cannot be found.
+     */
+    BigDecimal value(DataManager data, MarketSnapshot snapshot) {
+        Lock readLock = this.lock.readLock();
         readLock.lock();
 
         try {
-            BigDecimal sum = BigDecimal.ZERO;
-            for (ReadOnlyPosition position : this.positions.values()) {
-                BigDecimal positionVal = position.value(data);
-                if (positionVal == null) {
+            // sum in fixed-point, and only fall back to BigDecimal if that overflows
+            long sum = 0;
+            for (Position position : this.positions.values()) {
+                long positionVal = position.valueMicros(data, snapshot);
+                if (positionVal == Price.NONE) {
                     return null;
                 }
-                sum = sum.add(positionVal);
+                sum = Price.add(sum, positionVal);
             }
-            sum = sum.add(this.cash);
-            return sum;
+            return Price.toBigDecimal(sum).add(this.cash);
+        } catch (ArithmeticException e) {
+            return this.exactValue(data, snapshot);
         } finally {
             readLock.unlock();
         }
     }
 
+    /**
+     * Values the portfolio with BigDecimal, for values too large for fixed-point. The caller must hold the portfolio's
+     * lock.
+     */
+    private BigDecimal exactValue(DataManager data, MarketSnapshot snapshot) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Position position : this.positions.values()) {
+            BigDecimal positionVal = position.exactValue(data, snapshot);
+            if (positionVal == null) {
+                return null;
+            }
+            sum = sum.add(positionVal);
+        }
+        sum = sum.add(this.cash);
+        return sum;
+    }
+
     @Override
     public Collection<? extends ReadOnlyPosition> positions() {
-        Lock readLock = accountLock.readLock();
+        Lock readLock = this.lock.readLock();
         readLock.lock();
 
         try {
-            return this.positions.values();
+            // copied, since trades in the portfolio are not kept out while the caller reads it
+            return new ArrayList<Position>(this.positions.values());
         } finally {
             readLock.unlock();
         }
@@ -81,11 +233,11 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
 
     @Override
     public ReadOnlyPosition position(String ticker) {
-        Lock readLock = accountLock.readLock();
+        Lock readLock = this.lock.readLock();
         readLock.lock();
 
         try {
-            return this.positions.get(ticker);
+            return this.positions.get(Symbols.id(ticker));
         } finally {
             readLock.unlock();
         }
@@ -93,7 +245,14 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
 
     @Override
     public BigDecimal cash() {
-        return this.cash;
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+
+        try {
+            return this.cash;
+        } finally {
+            readLock.unlock();
+        }
     }
 
 
@@ -103,7 +262,14 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
      * @param amount The amount of cash being added to the portfolio.
      */
     protected void addCash(BigDecimal amount) {
-        this.cash = this.cash.add(amount);
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            this.cash = this.cash.add(amount);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -114,10 +280,100 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
      * cash in the account.
      */
     protected void removeCash(BigDecimal amount) throws IllegalArgumentException {
-        if (this.cash.compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Not enough cash in the portfolio.");
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.cash.compareTo(amount) < 0) {
+                throw new IllegalArgumentException("Not enough cash in the portfolio.");
+            }
+            this.cash = this.cash.subtract(amount);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the portfolio's version, which changes with every trade.
+     *
+     * @return The version.
+     */
+    int version() {
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+
+        try {
+            return this.version;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Prices every position from one market snapshot, holding the portfolio's lock only to list the positions, so
+     * no lock is held while a missing price is fetched.
+     *
+     * @param data The data manager prices missing from the snapshot come from.
+     * @return The prices in micros by symbol id, or null if a price cannot be found.
+     */
+    Map<Integer, Long> prices(DataManager data) {
+        List<Position> positions;
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+
+        try {
+            positions = new ArrayList<Position>(this.positions.values());
+        } finally {
+            readLock.unlock();
+        }
+
+        MarketSnapshot snapshot = data.snapshot();
+        Map<Integer, Long> prices = new HashMap<Integer, Long>();
+        for (Position position : positions) {
+            long price = position.priceMicros(data, snapshot);
+            if (price == Price.NONE) {
+                return null;
+            }
+            prices.put(position.symbol(), price);
+        }
+        return prices;
+    }
+
+    /**
+     * Sells every position and closes the portfolio to further trades. The caller must hold the account's write lock.
+     *
+     * @param version The portfolio's version when the prices were read.
+     * @param prices The price of every position, in micros by symbol id.
+     * @return The portfolio's cash plus the proceeds, or null if the portfolio has traded since the prices were read.
+     */
+    BigDecimal close(int version, Map<Integer, Long> prices) {
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.version != version) {
+                return null;
+            }
+            BigDecimal proceeds;
+            try {
+                long sum = 0;
+                for (Position position : this.positions.values()) {
+                    sum = Price.add(sum, Price.multiply(prices.get(position.symbol()), position.quantity()));
+                }
+                proceeds = Price.toBigDecimal(sum);
+            } catch (ArithmeticException e) {
+                proceeds = BigDecimal.ZERO;
+                for (Position position : this.positions.values()) {
+                    proceeds = proceeds.add(Price.toBigDecimal(prices.get(position.symbol()))
+                            .multiply(BigDecimal.valueOf(position.quantity())));
+                }
+            }
+            this.untrack();
+            this.closed = true;
+            return proceeds.add(this.cash);
+        } finally {
+            writeLock.unlock();
         }
-        this.cash = this.cash.subtract(amount);
     }
 
     /**
@@ -128,38 +384,82 @@ public class Portfolio implements ReadOnlyPortfolio, Serializable {
      * @return true if the trade is executed successfully, false otherwise
      */
     protected boolean tradeSecurity(DataManager data, String ticker, int quantityChange) {
-        // Make sure we can find this security
-        BigDecimal price = data.getPrice(ticker);
-        if (price == null) {
+        // Make sure we can find this security, before taking the lock, since this may fetch it
+        long price = data.getPriceMicros(ticker, TRADE_PRICE_MAX_AGE);
+        if (price == Price.NONE) {
             return false;
         }
 
-        BigDecimal tradeValue = price.multiply(BigDecimal.valueOf(quantityChange));
-
-        // Make sure the user has enough cash if this is a buy
-        if (quantityChange > 0 && this.cash.compareTo(tradeValue) < 0) {
+        BigDecimal tradeValue;
+        try {
+            tradeValue = Price.toBigDecimal(Price.multiply(price, quantityChange));
+        } catch (ArithmeticException e) {
             return false;
         }
+        int symbol = Symbols.intern(ticker);
 
-        // Find the position if there is one in our portfolio
-        Position position = this.positions.get(ticker);
-        boolean newPosition = false;
-        if (position == null) {
-            position = new Position(ticker, accountLock);
-            newPosition = true;
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+
+        try {
+            if (this.closed) {
+                return false;
+            }
+
+            // Make sure the user has enough cash if this is a buy
+            if (quantityChange > 0 && this.cash.compareTo(tradeValue) < 0) {
+                return false;
+            }
+
+            // Find the position if there is one in our portfolio, or put a new one in it
+            Position position = this.positions.get(symbol);
+            if (position == null) {
+                position = new Position(symbol);
+                this.positions.put(position);
+                this.version++;
+                if (this.valuation != null) {
+                    this.valuation.add(position);
+                    position.track(this.marketValue, price);
+                }
+            }
+
+            // the position is marked at the trade price
+            boolean success = position.newTransaction(quantityChange, price);
+            if (success) {
+                this.cash = this.cash.subtract(tradeValue);
+                this.version++;
+                return true;
+            }
+            return false;
+        } finally {
+            writeLock.unlock();
         }
+    }
 
-        // Put the position in our portfolio
-        if (newPosition) {
-            this.positions.put(ticker, new Position(ticker, accountLock));
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Map<String, Position> positions = new HashMap<String, Position>();
+        for (Position position : this.positions.values()) {
+            positions.put(position.security(), position);
         }
 
-        boolean success = position.newTransaction(quantityChange);
-        if (success) {
-            this.cash = this.cash.subtract(tradeValue);
-            this.positions.put(ticker, position);
-            return true;
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", this.name);
+        fields.put("positions", positions);
+        fields.put("cash", this.cash);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.name = (String) fields.get("name", null);
+        this.lock = new ReentrantReadWriteLock();
+        this.cash = (BigDecimal) fields.get("cash", null);
+
+        this.positions = new PositionTable();
+        Map<String, Position> positions = (Map<String, Position>) fields.get("positions", null);
+        for (Position position : positions.values()) {
+            this.positions.put(position);
         }
-        return false;
     }
 }
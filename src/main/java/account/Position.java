@@ -1,100 +1,238 @@
 package account;
 
 import data.DataManager;
-
+import data.market.MarketSnapshot;
+import data.market.Price;
+import data.market.Symbols;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Represents a position in a portfolio.
  */
 public class Position implements ReadOnlyPosition, Serializable {
 
-    private String ticker;
+    private static final long serialVersionUID = -4922625026083339719L;
+
+    // saved with the ticker's text, since symbol ids are only valid within one run
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("ticker", String.class),
+            new ObjectStreamField("quantity", int.class),
+            new ObjectStreamField("transactions", ArrayList.class),
+    };
+
+    private transient int symbol;
     private int quantity;
     private ArrayList<Transaction> transactions = new ArrayList<Transaction>();
 
-    private final ReadWriteLock accountLock;
+    // the portfolio market value this position is counted in, and the price it is counted at, while tracked
+    private transient MarketValue marketValue;
+    private transient long mark = Price.NONE;
 
     /**
      * Creates a new position for the given security.
      *
-     * @param ticker The ticker of this position's security.
+     * @param symbol The symbol id of this position's security.
      */
-    protected Position(String ticker, ReadWriteLock accountLock) {
-        this.ticker = ticker;
+    protected Position(int symbol) {
+        this.symbol = symbol;
         this.quantity = 0;
-        this.accountLock = accountLock;
     }
 
     @Override
     public String security() {
-        Lock readLock = accountLock.readLock();
-        readLock.lock();
+        return Symbols.ticker(this.symbol);
+    }
 
-        try {
-            return this.ticker;
-        } finally {
-            readLock.unlock();
-        }
+    /**
+     * Gets the symbol id of this position's security.
+     *
+     * @return The symbol id.
+     */
+    int symbol() {
+        return this.symbol;
     }
 
     @Override
-    public int quantity() {
-        Lock readLock = accountLock.readLock();
-        readLock.lock();
+    public synchronized int quantity() {
+        return this.quantity;
+    }
 
+    @Override
+    public BigDecimal value(DataManager data) {
+        // priced before the quantity is read, so nothing is locked while a price is fetched
+        long price = this.priceMicros(data, data.snapshot());
+        if (price == Price.NONE) {
+            return null;
+        }
+        int quantity = this.quantity();
         try {
-            return this.quantity;
-        } finally {
-            readLock.unlock();
+            return Price.toBigDecimal(Price.multiply(price, quantity));
+        } catch (ArithmeticException e) {
+            return Price.toBigDecimal(price).multiply(BigDecimal.valueOf(quantity));
         }
     }
 
-    @Override
-    public BigDecimal value(DataManager data) {
-        Lock readLock = accountLock.readLock();
-        readLock.lock();
+    /**
+     * Gets the price of this position's security from a market snapshot, fetching it only if the security was not in
+     * the market when the snapshot was taken.
+     *
+     * @param data The data manager missing prices come from.
+     * @param snapshot The snapshot prices are read from.
+     * @return The price in micros, or Price.NONE if the price cannot be found.
+     */
+    long priceMicros(DataManager data, MarketSnapshot snapshot) {
+        long price = snapshot.getPriceMicros(this.symbol);
+        if (price == Price.NONE) {
+            price = data.getPriceMicros(this.symbol, Long.MAX_VALUE);
+        }
+        return price;
+    }
 
-        try {
-            BigDecimal securityValue = data.getPrice(this.ticker);
-            return securityValue.multiply(BigDecimal.valueOf(this.quantity));
-        } finally {
-            readLock.unlock();
+    /**
+     * Gets the value of this position in fixed-point micros. The caller must hold the portfolio's lock.
+     *
+     * @param data The data manager missing prices come from.
+     * @param snapshot The snapshot prices are read from.
+     * @return The value in micros, or Price.NONE if the price cannot be found.
+     * @throws ArithmeticException if the value is too large for fixed-point.
+     */
+    long valueMicros(DataManager data, MarketSnapshot snapshot) {
+        long price = this.priceMicros(data, snapshot);
+        if (price == Price.NONE) {
+            return Price.NONE;
         }
+        return Price.multiply(price, this.quantity);
+    }
+
+    /**
+     * Gets the value of this position with BigDecimal, for values too large for fixed-point. The caller must hold the
+     * portfolio's lock.
+     *
+     * @param data The data manager missing prices come from.
+     * @param snapshot The snapshot prices are read from.
+     * @return The value, or null if the price cannot be found.
+     */
+    BigDecimal exactValue(DataManager data, MarketSnapshot snapshot) {
+        long price = this.priceMicros(data, snapshot);
+        if (price == Price.NONE) {
+            return null;
+        }
+        return Price.toBigDecimal(price).multiply(BigDecimal.valueOf(this.quantity));
     }
 
     @Override
     public BigDecimal price(DataManager data) {
-        Lock readLock = accountLock.readLock();
-        readLock.lock();
-
-        try {
-            return data.getPrice(this.ticker);
-        } finally {
-            readLock.unlock();
-        }
+        return data.getPrice(this.security());
     }
 
     /**
      * Creates a new transaction and updates the position to reflect it.
      *
      * @param quantityChange The change in the quantity of the security held in this position.
+     * @param price The price the transaction was made at, in micros.
      * @return True if successful, false otherwise.
      */
-    protected boolean newTransaction(int quantityChange) {
+    protected synchronized boolean newTransaction(int quantityChange, long price) {
         // Make sure we can execute this transaction.
         if (this.quantity + quantityChange < 0) {
             return false;
         }
 
         // Execute the transaction.
-        Transaction newTransaction = new Transaction(this.ticker, quantity);
-        this.quantity += quantityChange;
+        Transaction newTransaction = new Transaction(this.symbol, quantity);
+        this.remark(this.quantity + quantityChange, price);
         this.transactions.add(newTransaction);
         return true;
     }
+
+    /**
+     * Starts counting this position in a portfolio's market value.
+     *
+     * @param marketValue The portfolio's market value.
+     * @param price The security's current price in micros, or Price.NONE if it is not known yet.
+     */
+    synchronized void track(MarketValue marketValue, long price) {
+        this.marketValue = marketValue;
+        this.mark = Price.NONE;
+        marketValue.changeUnmarked(1);
+        this.remark(this.quantity, price);
+    }
+
+    /**
+     * Stops counting this position in its portfolio's market value, taking its value back out.
+     */
+    synchronized void untrack() {
+        if (this.marketValue == null) {
+            return;
+        }
+        if (this.mark == Price.NONE) {
+            this.marketValue.changeUnmarked(-1);
+        }
+        else {
+            try {
+                this.marketValue.add(Price.subtract(0, Price.multiply(this.mark, this.quantity)));
+            } catch (ArithmeticException e) {
+                this.marketValue.overflow();
+            }
+        }
+        this.marketValue = null;
+        this.mark = Price.NONE;
+    }
+
+    /**
+     * Marks this position at a new price of its security, passing the change in its value on to its portfolio.
+     *
+     * @param price The new price in micros.
+     */
+    synchronized void mark(long price) {
+        if (this.marketValue != null) {
+            this.remark(this.quantity, price);
+        }
+    }
+
+    /**
+     * Sets the quantity and the price the position is marked at, adding the change in value to the portfolio's
+     * market value. A position whose price is not known is not marked until it is.
+     */
+    private void remark(int quantity, long price) {
+        if (price == Price.NONE) {
+            price = this.mark;
+        }
+        if (this.marketValue != null && price != Price.NONE) {
+            try {
+                long before = this.mark == Price.NONE ? 0 : Price.multiply(this.mark, this.quantity);
+                this.marketValue.add(Price.subtract(Price.multiply(price, quantity), before));
+            } catch (ArithmeticException e) {
+                this.marketValue.overflow();
+            }
+            if (this.mark == Price.NONE) {
+                this.marketValue.changeUnmarked(-1);
+            }
+            this.mark = price;
+        }
+        this.quantity = quantity;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("ticker", this.security());
+        fields.put("quantity", this.quantity);
+        fields.put("transactions", this.transactions);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.symbol = Symbols.intern((String) fields.get("ticker", null));
+        this.quantity = fields.get("quantity", 0);
+        this.transactions = (ArrayList<Transaction>) fields.get("transactions", null);
+    }
 }
@@ -0,0 +1,76 @@
+package account;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The positions of a portfolio, keyed by symbol id. Positions are kept in a list in the order they were opened, and
+ * an open addressed table of ints maps each symbol id to its place in the list, so finding a position neither
+ * hashes a ticker nor boxes its id. Positions are never removed. Not thread safe; portfolios guard it with the
+ * account lock.
+ */
+class PositionTable {
+
+    private final List<Position> positions = new ArrayList<Position>();
+
+    // each slot holds a position's index in the list plus one, or 0 if empty
+    private int[] slots = new int[16];
+
+    private int slot(int symbol, int[] slots) {
+        int mask = slots.length - 1;
+        int hash = symbol * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (slots[slot] != 0 && this.positions.get(slots[slot] - 1).symbol() != symbol) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the position in the security with the specified symbol id.
+     *
+     * @param symbol the symbol id
+     * @return the position, or null if there is none
+     */
+    Position get(int symbol) {
+        if (symbol < 0) {
+            return null;
+        }
+        int index = this.slots[this.slot(symbol, this.slots)];
+        return index == 0 ? null : this.positions.get(index - 1);
+    }
+
+    /**
+     * Stores a position, replacing any position in the same security.
+     *
+     * @param position the position
+     */
+    void put(Position position) {
+        int slot = this.slot(position.symbol(), this.slots);
+        if (this.slots[slot] != 0) {
+            this.positions.set(this.slots[slot] - 1, position);
+            return;
+        }
+
+        this.positions.add(position);
+        this.slots[slot] = this.positions.size();
+        if (this.positions.size() * 2 > this.slots.length) {
+            int[] grown = new int[this.slots.length * 2];
+            for (int i = 0; i < this.positions.size(); i++) {
+                grown[this.slot(this.positions.get(i).symbol(), grown)] = i + 1;
+            }
+            this.slots = grown;
+        }
+    }
+
+    /**
+     * Gets the positions, in the order they were opened.
+     *
+     * @return a read-only view of the positions
+     */
+    Collection<Position> values() {
+        return Collections.unmodifiableList(this.positions);
+    }
+}
@@ -1,5 +1,7 @@
 package account;
 
+import data.DataManager;
+
 import java.math.BigDecimal;
 import java.util.Collection;
 
@@ -13,4 +15,7 @@ public interface ReadOnlyAccount {
 
     /** Returns the amount of cash in the account. */
     BigDecimal getCash();
+
+    /** Returns the value of the account, its cash and every portfolio, or null if the value cannot be found. */
+    BigDecimal value(DataManager data);
 }
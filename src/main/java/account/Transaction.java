@@ -1,5 +1,11 @@
 package account;
 
+import data.market.Symbols;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDate;
 
@@ -8,7 +14,16 @@ import java.time.LocalDate;
  */
 public class Transaction implements Serializable {
 
-    private String ticker;
+    private static final long serialVersionUID = -1621245050759401417L;
+
+    // saved with the ticker's text, since symbol ids are only valid within one run
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("ticker", String.class),
+            new ObjectStreamField("quantityChange", int.class),
+            new ObjectStreamField("timestamp", LocalDate.class),
+    };
+
+    private transient int symbol;
     // positive indicates a buy, negative a sell
     private int quantityChange;
     private LocalDate timestamp;
@@ -16,13 +31,27 @@ public class Transaction implements Serializable {
     /**
      * Creates a new transaction based on the given parameters.
      *
-     * @param ticker The ticker of this security's transaction.
+     * @param symbol The symbol id of this security's transaction.
      * @param quantityChange The quantity being traded (positive for a buy, negative for a sell).
      */
-    protected Transaction(String ticker, int quantityChange) {
-        this.ticker = ticker;
+    protected Transaction(int symbol, int quantityChange) {
+        this.symbol = symbol;
         this.quantityChange = quantityChange;
         this.timestamp = LocalDate.now();
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("ticker", Symbols.ticker(this.symbol));
+        fields.put("quantityChange", this.quantityChange);
+        fields.put("timestamp", this.timestamp);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.symbol = Symbols.intern((String) fields.get("ticker", null));
+        this.quantityChange = fields.get("quantityChange", 0);
+        this.timestamp = (LocalDate) fields.get("timestamp", null);
+    }
 }
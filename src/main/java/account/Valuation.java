@@ -0,0 +1,80 @@
+package account;
+
+import data.market.TickListener;
+
+import java.util.Arrays;
+
+/**
+ * Keeps an account's market values current from the market's ticks. Every tracked position is indexed by its
+ * security's symbol id, so a tick only touches the positions in that security, in whichever portfolios hold it.
+ */
+class Valuation implements TickListener {
+
+    private final MarketValue total = new MarketValue(null);
+
+    // tracked positions by symbol id, copied whenever a position is added or removed
+    private volatile Position[][] positions = new Position[0][];
+
+    /**
+     * Gets the account-wide market value.
+     *
+     * @return the market value of every tracked position
+     */
+    MarketValue total() {
+        return this.total;
+    }
+
+    @Override
+    public void tick(int symbol, long timestamp, long micros) {
+        Position[][] positions = this.positions;
+        if (symbol >= positions.length || positions[symbol] == null) {
+            return;
+        }
+        for (Position position : positions[symbol]) {
+            position.mark(micros);
+        }
+    }
+
+    /**
+     * Starts marking a position on each tick of its security.
+     *
+     * @param position the position
+     */
+    synchronized void add(Position position) {
+        int symbol = position.symbol();
+        Position[][] positions = Arrays.copyOf(this.positions, Math.max(symbol + 1, this.positions.length));
+        Position[] bySymbol = positions[symbol];
+        if (bySymbol == null) {
+            positions[symbol] = new Position[] { position };
+        }
+        else {
+            bySymbol = Arrays.copyOf(bySymbol, bySymbol.length + 1);
+            bySymbol[bySymbol.length - 1] = position;
+            positions[symbol] = bySymbol;
+        }
+        this.positions = positions;
+    }
+
+    /**
+     * Stops marking a position.
+     *
+     * @param position the position
+     */
+    synchronized void remove(Position position) {
+        int symbol = position.symbol();
+        if (symbol >= this.positions.length || this.positions[symbol] == null) {
+            return;
+        }
+        Position[] bySymbol = this.positions[symbol];
+        Position[] remaining = new Position[bySymbol.length];
+        int count = 0;
+        for (Position tracked : bySymbol) {
+            if (tracked != position) {
+                remaining[count++] = tracked;
+            }
+        }
+        Position[][] positions = Arrays.copyOf(this.positions, this.positions.length);
+        positions[symbol] = count == 0 ? null : Arrays.copyOf(remaining, count);
+        this.positions = positions;
+    }
+}
@@ -7,9 +7,15 @@ import controller.ControllerFactory;
 import data.grabber.DataGrabber;
 import data.grabber.DataGrabberFactory;
 import data.grabber.DataGrabberType;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionGreeks;
 
 import java.awt.*;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.StringTokenizer;
@@ -19,6 +25,7 @@ public class Console {
     private final int PRICE_BLOCK = 12;
     private final int QUANTITY_BLOCK = 6;
     private final int VALUE_BLOCK = 12;
+    private final int ALPHA_VANTAGE_REQUESTS_PER_MINUTE = 5;
 
 
     private Controller controller = null;
@@ -87,7 +94,62 @@ public class Console {
             printer.printMsg("There is no security with that name.");
         }
         else {
-            printer.printMsg(ticker + ": " + price.toString());
+            List<String> lines = new ArrayList<String>();
+            lines.add(ticker + ": " + price.toString());
+            for (IndicatorValue indicator : controller.getIndicators(ticker)) {
+                lines.add(indicator.toString());
+            }
+            OptionGreeks greeks = controller.getGreeks(ticker);
+            if (greeks != null) {
+                lines.add(greeks.toString());
+            }
+            printer.printMsg(lines.toArray(new String[0]));
+        }
+    }
+
+    /** Starts keeping an indicator for a security. */
+    private void addIndicator(StringTokenizer tokenizer) {
+        String ticker = nextArg(tokenizer, "You must specify a ticker.");
+        if (ticker == null) return;
+        String typeString = nextArg(tokenizer, "You must specify an indicator.");
+        if (typeString == null) return;
+        String periodString = nextArg(tokenizer, "You must specify a period.");
+        if (periodString == null) return;
+
+        IndicatorType type = null;
+        for (IndicatorType candidate : IndicatorType.values()) {
+            if (candidate.toString().equalsIgnoreCase(typeString)) {
+                type = candidate;
+            }
+        }
+        if (type == null) {
+            printer.printMsg(typeString + " is not a valid indicator.");
+            return;
+        }
+
+        try {
+            boolean success = controller.addIndicator(ticker, type, Integer.parseInt(periodString));
+            printer.result(success, "Now keeping " + typeString + " for " + ticker + ".",
+                    "That indicator is already being kept.");
+        } catch (IllegalArgumentException e) {
+            printer.printMsg("The period must be a positive whole number.");
+        }
+    }
+
+    /** Searches for securities by ticker or company name. */
+    private void searchTicker(StringTokenizer tokenizer) {
+        String search = nextArg(tokenizer, "You must specify a ticker or company name.");
+        if (search == null) return;
+        while (tokenizer.hasMoreTokens()) {
+            search += " " + tokenizer.nextToken();
+        }
+
+        String[] tickers = controller.searchTicker(search);
+        if (tickers == null || tickers.length == 0) {
+            printer.printMsg("No securities match " + search + ".");
+        }
+        else {
+            printer.printMsg(tickers);
         }
     }
 
@@ -145,6 +207,7 @@ public class Console {
         printer.println();
         printer.println("Account Information");
         printer.println("Cash: " + this.controller.getAccount().getCash().toString());
+        printer.println("Value: " + valueString(this.controller.getAccountValue()));
         printer.println();
 
         for (ReadOnlyPortfolio portfolio : this.controller.getPortfolios()) {
@@ -357,6 +420,12 @@ public class Console {
             case "detail":
                 this.securityDetail(tokenizer);
                 break;
+            case "search":
+                this.searchTicker(tokenizer);
+                break;
+            case "indicator":
+                this.addIndicator(tokenizer);
+                break;
             case "exit":
                 return false;
 
@@ -379,19 +448,121 @@ public class Console {
      * @return true if successful, false otherwise
      */
     private boolean alphaVantageSetUp() {
-        printer.printPrompt("Please enter your api key:");
+        printer.printPrompt("Please enter your api key, or several separated by spaces:");
         printer.print("> ");
 
-        String apiKey = scanner.nextLine();
-        DataGrabber grabber = DataGrabberFactory.newAlphaVantageGrabber(apiKey);
+        StringTokenizer apiKeys = new StringTokenizer(scanner.nextLine(), " ");
+        if (!apiKeys.hasMoreTokens()) {
+            return false;
+        }
+
+        printer.printPrompt("Please enter the number of requests per minute your api key allows (blank for "
+                + ALPHA_VANTAGE_REQUESTS_PER_MINUTE + "):");
+        printer.print("> ");
+
+        String rateString = scanner.nextLine().trim();
+        int requestsPerMinute;
+        try {
+            requestsPerMinute = rateString.isEmpty() ? ALPHA_VANTAGE_REQUESTS_PER_MINUTE : Integer.parseInt(rateString);
+        } catch (NumberFormatException n) {
+            return false;
+        }
+        if (requestsPerMinute <= 0) {
+            return false;
+        }
+
+        // each key has its own limit, and several keys are used together as separate providers
+        List<DataGrabber> providers = new ArrayList<DataGrabber>();
+        while (apiKeys.hasMoreTokens()) {
+            DataGrabber provider = DataGrabberFactory.newAlphaVantageGrabber(apiKeys.nextToken());
+            providers.add(DataGrabberFactory.newRateLimitedGrabber(provider, requestsPerMinute, requestsPerMinute));
+        }
+        DataGrabber grabber = providers.size() == 1 ? providers.get(0)
+                : DataGrabberFactory.newCompositeGrabber(providers);
         boolean success = grabber.testSetup();
         if (success) {
-            this.controller = ControllerFactory.getController(grabber);
+            // only real market data is worth warm starting from
+            this.controller = ControllerFactory.getController(this.withSymbolIndex(grabber),
+                    DataGrabberType.AlphaVantage);
             return true;
         }
         return false;
     }
 
+    /**
+     * Sets up a controller with a data grabber replaying a tick file.
+     *
+     * @return true if successful, false otherwise
+     */
+    private boolean replaySetUp() {
+        printer.printPrompt("Please enter the tick file to replay:");
+        printer.print("> ");
+        String fileName = scanner.nextLine();
+
+        printer.printPrompt("Please enter the replay speed (blank for real time):");
+        printer.print("> ");
+        String speedString = scanner.nextLine().trim();
+
+        try {
+            double speed = speedString.isEmpty() ? 1 : Double.parseDouble(speedString);
+            DataGrabber grabber = DataGrabberFactory.newReplayGrabber(fileName, speed);
+            if (grabber.testSetup()) {
+                this.controller = ControllerFactory.getController(this.withSymbolIndex(grabber));
+                return true;
+            }
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Sets up a controller with a data grabber generating a synthetic market.
+     *
+     * @return true if successful, false otherwise
+     */
+    private boolean syntheticSetUp() {
+        printer.printPrompt("Please enter the number of tickers, the seed and the ticks per second:");
+        printer.print("> ");
+        StringTokenizer tokenizer = new StringTokenizer(scanner.nextLine(), " ");
+
+        try {
+            int universeSize = Integer.parseInt(tokenizer.nextToken());
+            long seed = Long.parseLong(tokenizer.nextToken());
+            double tickRate = Double.parseDouble(tokenizer.nextToken());
+            DataGrabber grabber = DataGrabberFactory.newSyntheticGrabber(universeSize, seed, tickRate);
+            if (grabber.testSetup()) {
+                this.controller = ControllerFactory.getController(this.withSymbolIndex(grabber));
+                return true;
+            }
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Optionally wraps a data grabber so that ticker searches are answered from a local listing file.
+     *
+     * @param grabber the grabber
+     * @return the grabber to use
+     */
+    private DataGrabber withSymbolIndex(DataGrabber grabber) {
+        printer.printPrompt("Please enter a listing file for offline ticker search (blank to skip):");
+        printer.print("> ");
+        String listingFile = scanner.nextLine().trim();
+        if (listingFile.isEmpty()) {
+            return grabber;
+        }
+
+        try {
+            return DataGrabberFactory.newIndexedGrabber(grabber, listingFile);
+        } catch (IOException e) {
+            printer.printMsg("Unable to load listing file, searches will use the API.");
+            return grabber;
+        }
+    }
+
     /**
      * Sets up the data grabber for this type.
      *
@@ -402,6 +573,10 @@ public class Console {
         switch (type) {
             case AlphaVantage:
                 return alphaVantageSetUp();
+            case Replay:
+                return replaySetUp();
+            case Synthetic:
+                return syntheticSetUp();
             default:
                 return false;
         }
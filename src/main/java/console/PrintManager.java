@@ -107,7 +107,11 @@ public class PrintManager {
         println("new <cash>: create a new account with the specified amount of cash.");
         println("load: load a new account from an account_file");
         println("save <account_file>: save the current account to the account_file");
-        println("detail <security_ticker>: provides information on the specified security");
+        println("detail <security_ticker>: provides information on the specified security, with the model " +
+                "price and greeks of options given as OCC symbols such as AAPL240119C00150000");
+        println("search <query>: lists securities matching a ticker or company name");
+        println("indicator <security_ticker> <sma|ema|vwap|rsi|bollinger|volatility> <period>: keeps the " +
+                "indicator over the last period ticks, shown by detail");
         println("exit: close the program");
     }
 
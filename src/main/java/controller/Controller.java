@@ -4,10 +4,15 @@ import account.*;
 import data.DataManager;
 import data.StockDataManager;
 import data.grabber.DataGrabber;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionGreeks;
 
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 
 public class Controller {
 
@@ -17,11 +22,25 @@ public class Controller {
     private DataManager dataManager;
 
     /**
-     * Creates a new controller.
+     * Creates a new controller that keeps no market data between runs.
      */
     public Controller(DataGrabber grabber) {
-        this.dataManager = new StockDataManager(grabber);
+        this(grabber, null);
+    }
+
+    /**
+     * Creates a new controller.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param dataDirectory the directory market data is kept in between runs, or null to keep none
+     */
+    public Controller(DataGrabber grabber, Path dataDirectory) {
+        this.dataManager = dataDirectory == null ? new StockDataManager(grabber)
+                : new StockDataManager(grabber, dataDirectory);
         this.newAccount(this.DEFAULT_STARTING_CASH);
+
+        // keep whichever account is loaded's holdings fresh
+        this.dataManager.setHoldings(() -> this.account.heldQuantities());
     }
 
     /**
@@ -36,7 +55,18 @@ public class Controller {
      * @param cash initial cash
      */
     public void newAccount(BigDecimal cash) {
-        this.account = new Account(cash);
+        this.setAccount(new Account(cash));
+    }
+
+    /**
+     * Makes an account the current one, keeping its values up to date in place of the last one's.
+     */
+    private void setAccount(Account account) {
+        if (this.account != null) {
+            this.account.untrack(this.dataManager);
+        }
+        this.account = account;
+        account.track(this.dataManager);
     }
 
     /**
@@ -58,7 +88,7 @@ public class Controller {
         }
 
         if (newAccount != null) {
-            this.account = newAccount;
+            this.setAccount(newAccount);
         }
     }
 
@@ -89,6 +119,15 @@ public class Controller {
         return this.account;
     }
 
+    /**
+     * Gets the value of the current account, its cash and every portfolio.
+     *
+     * @return the account's value, or null if the value cannot be found
+     */
+    public BigDecimal getAccountValue() {
+        return this.account.value(this.dataManager);
+    }
+
     /**
      * Returns a collection of the portfolios in the account.
      *
@@ -219,4 +258,47 @@ public class Controller {
     public BigDecimal getSecurityPrice (String ticker) {
         return this.dataManager.getPrice(ticker);
     }
+
+    /**
+     * Starts keeping an indicator for the specified security.
+     *
+     * @param ticker The ticker of the security.
+     * @param type The indicator's type.
+     * @param period The indicator's period, in ticks.
+     * @return true if the indicator was added, false if it was already being kept.
+     * @throws IllegalArgumentException if the period is less than 1.
+     */
+    public boolean addIndicator (String ticker, IndicatorType type, int period) {
+        return this.dataManager.addIndicator(ticker, type, period);
+    }
+
+    /**
+     * Provides the current values of the indicators kept for the specified security.
+     *
+     * @param ticker The ticker of the security.
+     * @return The indicator values, or an empty list if none are kept.
+     */
+    public List<IndicatorValue> getIndicators (String ticker) {
+        return this.dataManager.getIndicators(ticker);
+    }
+
+    /**
+     * Provides the model price and greeks of the specified option.
+     *
+     * @param ticker The option's symbol, such as AAPL240119C00150000.
+     * @return The greeks, or null if the ticker is not an option whose underlying has a price.
+     */
+    public OptionGreeks getGreeks (String ticker) {
+        return this.dataManager.getGreeks(ticker);
+    }
+
+    /**
+     * Searches for securities by ticker or company name.
+     *
+     * @param search The ticker or company name to search for.
+     * @return The tickers of matching securities, best match first.
+     */
+    public String[] searchTicker (String search) {
+        return this.dataManager.searchTicker(search);
+    }
 }
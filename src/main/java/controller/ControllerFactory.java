@@ -1,6 +1,8 @@
 package controller;
 
+import data.StockDataManager;
 import data.grabber.DataGrabber;
+import data.grabber.DataGrabberType;
 
 public class ControllerFactory {
 
@@ -15,4 +17,15 @@ public class ControllerFactory {
     public static Controller getController(DataGrabber grabber) {
         return new Controller(grabber);
     }
+
+    /**
+     * Gets a new console controller that keeps market data between runs, apart from that of other kinds of grabber.
+     *
+     * @param grabber the grabber
+     * @param type the kind of grabber
+     * @return a controller
+     */
+    public static Controller getController(DataGrabber grabber, DataGrabberType type) {
+        return new Controller(grabber, StockDataManager.dataDirectory(type));
+    }
 }
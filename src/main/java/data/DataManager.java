@@ -1,6 +1,16 @@
 package data;
 
+import data.market.MarketSnapshot;
+import data.market.PriceListener;
+import data.market.TickListener;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionGreeks;
+import data.store.TickVisitor;
+
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface DataManager {
 
@@ -10,7 +20,7 @@ public interface DataManager {
     void start();
 
     /**
-     * Stops the data manager.
+     * Stops the data manager for good, along with the threads of its market.
      */
     void stop();
 
@@ -22,9 +32,142 @@ public interface DataManager {
      */
     BigDecimal getPrice(String ticker);
 
+    /**
+     * Gets the price of the security with the specified ticker, as long as it was fetched no more than maxAge
+     * milliseconds ago. Older cached prices are refreshed before returning.
+     *
+     * @param ticker The security's ticker.
+     * @param maxAge The maximum age of the price, in milliseconds.
+     * @return the price of the security, or null if the security cannot be found or a fresh enough price cannot
+     * be fetched
+     */
+    BigDecimal getPrice(String ticker, long maxAge);
+
+    /**
+     * Gets the fixed-point price of the security with the specified ticker, as long as it was fetched no more than
+     * maxAge milliseconds ago. This is the allocation free form of getPrice, for valuing many positions at once.
+     *
+     * @param ticker The security's ticker.
+     * @param maxAge The maximum age of the price, in milliseconds.
+     * @return the price of the security in micros, or Price.NONE if the security cannot be found or a fresh enough
+     * price cannot be fetched
+     */
+    long getPriceMicros(String ticker, long maxAge);
+
+    /**
+     * Gets the fixed-point price of the security with the specified symbol id, as long as it was fetched no more than
+     * maxAge milliseconds ago. Securities already in the market are found without hashing their ticker.
+     *
+     * @param symbol The id of the security's ticker in the symbol table.
+     * @param maxAge The maximum age of the price, in milliseconds.
+     * @return the price of the security in micros, or Price.NONE if the security cannot be found or a fresh enough
+     * price cannot be fetched
+     */
+    long getPriceMicros(int symbol, long maxAge);
+
+    /**
+     * Gets a consistent snapshot of the prices in the market, as of the end of the last refresh cycle. Reading it
+     * never locks, and never fetches prices that are missing.
+     *
+     * @return the snapshot
+     */
+    MarketSnapshot snapshot();
+
+    /**
+     * Starts keeping an indicator for the specified security.
+     *
+     * @param ticker the security's ticker
+     * @param type the indicator's type
+     * @param period the indicator's period, in ticks
+     * @return true if the indicator was added, false if it was already being kept
+     * @throws IllegalArgumentException if the period is less than 1
+     */
+    boolean addIndicator(String ticker, IndicatorType type, int period);
+
+    /**
+     * Gets the current values of the indicators kept for the specified security.
+     *
+     * @param ticker the security's ticker
+     * @return the values, in the order the indicators were added, or an empty list if there are none
+     */
+    List<IndicatorValue> getIndicators(String ticker);
+
+    /**
+     * Gets the model price and greeks of an option held in the market.
+     *
+     * @param ticker the option's symbol
+     * @return the greeks, or null if the ticker is not an option in the market or its underlying has no price
+     */
+    OptionGreeks getGreeks(String ticker);
+
+    /**
+     * Searches for tickers matching a ticker or company name.
+     *
+     * @param search the string used as the search parameter
+     * @return matching tickers, sorted from best match to worst
+     */
+    String[] searchTicker(String search);
+
+    /**
+     * Reads back every price observed for the specified security within a range of time.
+     *
+     * @param ticker the security's ticker
+     * @param from the earliest time, inclusive, in milliseconds since the epoch
+     * @param to the latest time, exclusive, in milliseconds since the epoch
+     * @param visitor receives each tick, oldest first
+     * @return the number of ticks visited, or 0 if ticks are not being stored
+     * @throws IOException if the stored ticks cannot be read
+     */
+    int queryTicks(String ticker, long from, long to, TickVisitor visitor) throws IOException;
+
+    /**
+     * Sets where the quantities of held securities come from. Held securities are refreshed ahead of others and are
+     * never evicted from the market.
+     *
+     * @param holdings the source of held quantities
+     */
+    void setHoldings(HoldingsSource holdings);
+
+    /**
+     * Adds a listener that is told about every price the market accepts.
+     *
+     * @param listener the listener
+     */
+    void addTickListener(TickListener listener);
+
+    /**
+     * Removes a tick listener.
+     *
+     * @param listener the listener
+     */
+    void removeTickListener(TickListener listener);
+
     /**
      * Clears the market of stocks tracked by this data manager.
      */
     void clear();
 
+    /**
+     * Subscribes a listener to changes in the price of the specified security. Listeners are called on a separate
+     * dispatcher thread, and only when the price actually changes.
+     *
+     * @param ticker the security's ticker
+     * @param listener the listener
+     */
+    void subscribe(String ticker, PriceListener listener);
+
+    /**
+     * Subscribes a listener to changes in the price of every security.
+     *
+     * @param listener the listener
+     */
+    void subscribeAll(PriceListener listener);
+
+    /**
+     * Removes every subscription of the specified listener.
+     *
+     * @param listener the listener
+     */
+    void unsubscribe(PriceListener listener);
+
 }
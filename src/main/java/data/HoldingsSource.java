@@ -0,0 +1,16 @@
+package data;
+
+import java.util.Map;
+
+/**
+ * Provides the quantities of each security currently held, so that held securities can be kept up to date first.
+ */
+public interface HoldingsSource {
+
+    /**
+     * Gets the total quantity held of each security.
+     *
+     * @return a map from ticker to the quantity held
+     */
+    Map<String, Integer> heldQuantities();
+}
@@ -0,0 +1,92 @@
+package data;
+
+import data.market.Market;
+import data.market.Price;
+import data.market.securities.Quote;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves the prices in a market to disk so the next launch can serve them straight away while the Updater catches
+ * up. Each security is stored as its ticker, type, fixed-point price and the time the price was fetched.
+ */
+public class MarketSnapshotFile {
+
+    static final int MAGIC = 0x4D4B5453;
+    static final int VERSION = 2;
+
+    private MarketSnapshotFile() {}
+
+    /**
+     * Writes every security in the market to the specified file, replacing it.
+     *
+     * @param market the market
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Market market, Path path) throws IOException {
+        List<Security> securities = new ArrayList<Security>(market.getSecurities());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        // write next to the snapshot and swap it in, so a crash never leaves half a snapshot
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(securities.size());
+            for (Security security : securities) {
+                Quote quote = security.getQuote();
+
+                out.writeUTF(security.getTicker());
+                out.writeByte(security.getType().ordinal());
+                out.writeLong(quote.getPriceMicros());
+                out.writeLong(quote.getTimestamp());
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Adds every security in the specified file to the market, with the price and fetch time it was saved with.
+     *
+     * @param market the market
+     * @param path the file
+     * @return the number of securities loaded
+     * @throws IOException if the file cannot be read or is not a market snapshot
+     */
+    public static int load(Market market, Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a market snapshot.");
+            }
+
+            int count = in.readInt();
+            SecurityType[] types = SecurityType.values();
+            for (int i = 0; i < count; i++) {
+                String ticker = in.readUTF();
+                int type = in.readUnsignedByte();
+                long micros = in.readLong();
+                long timestamp = in.readLong();
+
+                if (type >= types.length) {
+                    throw new IOException("Unknown security type in market snapshot.");
+                }
+                market.addSecurity(ticker, types[type], Price.toBigDecimal(micros), timestamp);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package data;
+
+import data.market.Market;
+import data.market.PriceListener;
+import data.market.options.OptionContract;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides which securities the Updater refreshes each cycle. Every security is given a value based on how much of it
+ * is held, how often it has been looked up recently and how volatile its price has been. The securities that have
+ * gone longest without a refresh relative to their value are refreshed first. Securities that are not held and have
+ * not been looked up for a while are evicted from the market. Options are never refreshed, since they are priced
+ * from their underlyings, but holding an option counts as holding its underlying.
+ */
+public class RefreshScheduler implements PriceListener {
+
+    static final long DEFAULT_EVICT_AFTER = 600000;
+    static final double ACCESS_HALF_LIFE = 300000;
+    static final double VOLATILITY_SMOOTHING = 0.1;
+
+    static final double HELD_WEIGHT = 1;
+    static final double ACCESS_WEIGHT = 1;
+    static final double VOLATILITY_WEIGHT = 100;
+
+    /**
+     * What the scheduler knows about a single ticker.
+     */
+    private static class TickerStats {
+
+        private double accessScore = 0;
+        private long lastAccess;
+        private double volatility = 0;
+
+        TickerStats(long now) {
+            this.lastAccess = now;
+        }
+
+        synchronized void recordAccess(long now) {
+            this.accessScore = this.accessScore(now) + 1;
+            this.lastAccess = now;
+        }
+
+        synchronized void recordChange(double logReturn) {
+            this.volatility += VOLATILITY_SMOOTHING * (Math.abs(logReturn) - this.volatility);
+        }
+
+        synchronized double accessScore(long now) {
+            return this.accessScore * Math.pow(0.5, (now - this.lastAccess) / ACCESS_HALF_LIFE);
+        }
+
+        synchronized long lastAccess() {
+            return this.lastAccess;
+        }
+
+        synchronized double volatility() {
+            return this.volatility;
+        }
+    }
+
+    private final ConcurrentMap<String, TickerStats> stats = new ConcurrentHashMap<String, TickerStats>();
+    private final long evictAfter;
+    private volatile HoldingsSource holdings = Collections::emptyMap;
+
+    /**
+     * Creates a scheduler that evicts securities after the default idle time.
+     */
+    public RefreshScheduler() {
+        this(DEFAULT_EVICT_AFTER);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param evictAfter how long a security that is not held can go without being looked up before it is evicted,
+     *                   in milliseconds
+     */
+    public RefreshScheduler(long evictAfter) {
+        this.evictAfter = evictAfter;
+    }
+
+    private TickerStats stats(String ticker) {
+        return this.stats.computeIfAbsent(ticker, t -> new TickerStats(System.currentTimeMillis()));
+    }
+
+    /**
+     * Sets where the quantities of held securities come from.
+     *
+     * @param holdings the source of held quantities
+     */
+    public void setHoldings(HoldingsSource holdings) {
+        this.holdings = holdings;
+    }
+
+    /**
+     * Gets the held quantities, counting each option's quantity towards its underlying as well.
+     */
+    private Map<String, Integer> held() {
+        Map<String, Integer> held = this.holdings.heldQuantities();
+        Map<String, Integer> withUnderlyings = null;
+        for (Map.Entry<String, Integer> entry : held.entrySet()) {
+            OptionContract contract = OptionContract.parse(entry.getKey());
+            if (contract == null) {
+                continue;
+            }
+            if (withUnderlyings == null) {
+                withUnderlyings = new HashMap<String, Integer>(held);
+            }
+            withUnderlyings.merge(contract.getUnderlying(), Math.abs(entry.getValue()), Integer::sum);
+        }
+        return withUnderlyings == null ? held : withUnderlyings;
+    }
+
+    /**
+     * Records that the price of the specified security was looked up.
+     *
+     * @param ticker the security's ticker
+     */
+    public void recordAccess(String ticker) {
+        this.stats(ticker).recordAccess(System.currentTimeMillis());
+    }
+
+    @Override
+    public void priceChanged(String ticker, BigDecimal oldPrice, BigDecimal newPrice) {
+        if (oldPrice == null || oldPrice.signum() <= 0 || newPrice.signum() <= 0) {
+            return;
+        }
+        this.stats(ticker).recordChange(Math.log(newPrice.doubleValue() / oldPrice.doubleValue()));
+    }
+
+    /**
+     * Chooses the securities to refresh this cycle.
+     *
+     * @param securities the securities in the market
+     * @param maxSecurities the most securities that can be refreshed this cycle
+     * @return the securities to refresh, most urgent first
+     */
+    public List<Security> select(Collection<Security> securities, int maxSecurities) {
+        long now = System.currentTimeMillis();
+        Map<String, Integer> held = this.held();
+
+        List<Security> candidates = new ArrayList<Security>(securities);
+        candidates.removeIf(security -> security.getType() == SecurityType.Option);
+        Map<Security, Double> urgency = new HashMap<Security, Double>();
+        for (Security security : candidates) {
+            String ticker = security.getTicker();
+            TickerStats tickerStats = this.stats(ticker);
+            Integer quantity = held.get(ticker);
+
+            double value = 1
+                    + HELD_WEIGHT * Math.log1p(quantity == null ? 0 : Math.abs(quantity))
+                    + ACCESS_WEIGHT * tickerStats.accessScore(now)
+                    + VOLATILITY_WEIGHT * tickerStats.volatility();
+            double age = Math.max(1, now - security.getLastUpdated());
+            urgency.put(security, value * age);
+        }
+
+        candidates.sort((a, b) -> Double.compare(urgency.get(b), urgency.get(a)));
+        if (candidates.size() <= maxSecurities) {
+            return candidates;
+        }
+        return new ArrayList<Security>(candidates.subList(0, maxSecurities));
+    }
+
+    /**
+     * Removes securities that are not held and have not been looked up recently from the market.
+     *
+     * @param market the market
+     */
+    public void evictCold(Market market) {
+        long now = System.currentTimeMillis();
+        Map<String, Integer> held = this.held();
+
+        for (Security security : new ArrayList<Security>(market.getSecurities())) {
+            String ticker = security.getTicker();
+            Integer quantity = held.get(ticker);
+            if (quantity != null && quantity != 0) {
+                continue;
+            }
+            if (now - this.stats(ticker).lastAccess() > this.evictAfter) {
+                market.removeSecurity(ticker);
+                this.stats.remove(ticker);
+            }
+        }
+
+        // forget lookups of tickers that never made it into the market
+        this.stats.entrySet().removeIf(entry -> market.getSecurity(entry.getKey()) == null
+                && now - entry.getValue().lastAccess() > this.evictAfter);
+    }
+}
@@ -0,0 +1,115 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.DataGrabber;
+import data.grabber.SecurityDetail;
+import data.grabber.UnknownTickerException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads securities that are not yet in the market. Concurrent requests for the same ticker share a single fetch, and
+ * tickers the grabber says do not exist are remembered for a while so they do not hit the api on every lookup. Other
+ * failures, such as a network error or a rate limit, are not remembered, so the next lookup tries again.
+ */
+public class SecurityLoader {
+
+    static final long DEFAULT_NEGATIVE_TTL = 60000;
+
+    private final DataGrabber grabber;
+    private final long negativeTtl;
+
+    private final ConcurrentMap<String, CompletableFuture<SecurityDetail>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<SecurityDetail>>();
+    private final ConcurrentMap<String, Long> unknownUntil = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Creates a loader that remembers unknown tickers for the default amount of time.
+     *
+     * @param grabber the grabber used to fetch securities
+     */
+    public SecurityLoader(DataGrabber grabber) {
+        this(grabber, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * Creates a loader.
+     *
+     * @param grabber the grabber used to fetch securities
+     * @param negativeTtl how long a ticker the grabber says does not exist is remembered as unknown, in milliseconds
+     */
+    public SecurityLoader(DataGrabber grabber, long negativeTtl) {
+        this.grabber = grabber;
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Fetches the security with the specified ticker. If another thread is already fetching it, waits for that
+     * fetch instead of starting a new one.
+     *
+     * @param ticker the ticker
+     * @return information about the security
+     * @throws UnknownTickerException if the ticker does not exist, or was found not to exist recently
+     * @throws APICallException if the security could not be fetched
+     */
+    public SecurityDetail load(String ticker) throws APICallException {
+        Long until = this.unknownUntil.get(ticker);
+        if (until != null) {
+            if (System.currentTimeMillis() < until) {
+                throw new UnknownTickerException("No security has that ticker.");
+            }
+            this.unknownUntil.remove(ticker, until);
+        }
+
+        CompletableFuture<SecurityDetail> fetch = new CompletableFuture<SecurityDetail>();
+        CompletableFuture<SecurityDetail> existing = this.inFlight.putIfAbsent(ticker, fetch);
+
+        // someone else is already fetching this ticker
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            SecurityDetail detail = this.grabber.getDetail(ticker);
+            fetch.complete(detail);
+            return detail;
+        } catch (APICallException | RuntimeException e) {
+            if (e instanceof UnknownTickerException) {
+                this.unknownUntil.put(ticker, System.currentTimeMillis() + this.negativeTtl);
+            }
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(ticker, fetch);
+        }
+    }
+
+    /**
+     * Forgets that the specified ticker could not be found, so the next load goes to the grabber.
+     *
+     * @param ticker the ticker
+     */
+    public void forget(String ticker) {
+        this.unknownUntil.remove(ticker);
+    }
+
+    /**
+     * Waits for a fetch started by another thread.
+     */
+    private static SecurityDetail await(CompletableFuture<SecurityDetail> fetch) throws APICallException {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APICallException("Interrupted while waiting for stock detail.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APICallException) {
+                throw (APICallException) e.getCause();
+            }
+            throw new APICallException("Unable to get stock detail.");
+        }
+    }
+}
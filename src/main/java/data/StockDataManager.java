@@ -2,23 +2,153 @@ package data;
 
 import data.grabber.APICallException;
 import data.grabber.DataGrabber;
+import data.grabber.DataGrabberFactory;
+import data.grabber.DataGrabberType;
 import data.grabber.SecurityDetail;
 import data.market.Market;
+import data.market.MarketSnapshot;
+import data.market.Price;
+import data.market.PriceListener;
 import data.market.StockMarket;
+import data.market.Symbols;
+import data.market.TickListener;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionContract;
+import data.market.options.OptionGreeks;
 import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import data.store.TickStore;
+import data.store.TickVisitor;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class StockDataManager implements DataManager {
 
+    static final Path DATA_DIRECTORY = Paths.get(System.getProperty("user.home"), ".stocks");
+    static final String SNAPSHOT_FILE = "market.snapshot";
+    static final String TICK_DIRECTORY = "ticks";
+
     private Market market;
     private DataGrabber grabber;
     private Updater updater;
+    private SecurityLoader loader;
+    private RefreshScheduler scheduler;
+    private Path snapshot;
+    private TickStore ticks;
 
+    /**
+     * Creates a data manager that starts with an empty market and saves nothing when stopped.
+     *
+     * @param grabber the grabber used to fetch market data
+     */
     public StockDataManager(DataGrabber grabber) {
+        this(grabber, 0);
+    }
+
+    /**
+     * Creates a data manager that warm starts from, and saves to, the snapshot kept in the specified directory, and
+     * stores every price it observes in a tick store there.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param directory the directory, which should only ever be used with one kind of grabber
+     */
+    public StockDataManager(DataGrabber grabber, Path directory) {
+        this(grabber, 0, 0, directory.resolve(SNAPSHOT_FILE), directory.resolve(TICK_DIRECTORY));
+    }
+
+    /**
+     * Gets the directory a provider's market data is kept in, so a session never warm starts from another
+     * provider's securities.
+     *
+     * @param type the kind of grabber the data comes from
+     * @return the directory
+     */
+    public static Path dataDirectory(DataGrabberType type) {
+        return DATA_DIRECTORY.resolve(DataGrabberFactory.grabberTypeName(type));
+    }
+
+    /**
+     * Creates a data manager whose background refreshes run asynchronously.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param maxInFlight the maximum number of refresh requests in flight at once, or 0 to refresh in sequential
+     *                    batches
+     */
+    public StockDataManager(DataGrabber grabber, int maxInFlight) {
+        this(grabber, maxInFlight, 0);
+    }
+
+    /**
+     * Creates a data manager that spends a limited number of requests on each refresh cycle.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param maxInFlight the maximum number of refresh requests in flight at once, or 0 to refresh in sequential
+     *                    batches
+     * @param requestsPerCycle the number of requests each refresh cycle may make, or 0 to refresh every security
+     *                         each cycle
+     */
+    public StockDataManager(DataGrabber grabber, int maxInFlight, int requestsPerCycle) {
+        this(grabber, maxInFlight, requestsPerCycle, null);
+    }
+
+    /**
+     * Creates a data manager that warm starts from a market snapshot. The snapshot's prices are served straight
+     * away, keeping the time they were fetched, and the snapshot is rewritten when the data manager is stopped.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param maxInFlight the maximum number of refresh requests in flight at once, or 0 to refresh in sequential
+     *                    batches
+     * @param requestsPerCycle the number of requests each refresh cycle may make, or 0 to refresh every security
+     *                         each cycle
+     * @param snapshot the snapshot file, or null to start with an empty market
+     */
+    public StockDataManager(DataGrabber grabber, int maxInFlight, int requestsPerCycle, Path snapshot) {
+        this(grabber, maxInFlight, requestsPerCycle, snapshot, null);
+    }
+
+    /**
+     * Creates a data manager that stores every price it observes.
+     *
+     * @param grabber the grabber used to fetch market data
+     * @param maxInFlight the maximum number of refresh requests in flight at once, or 0 to refresh in sequential
+     *                    batches
+     * @param requestsPerCycle the number of requests each refresh cycle may make, or 0 to refresh every security
+     *                         each cycle
+     * @param snapshot the snapshot file, or null to start with an empty market
+     * @param ticks the tick store's directory, or null to not store ticks
+     */
+    public StockDataManager(DataGrabber grabber, int maxInFlight, int requestsPerCycle, Path snapshot, Path ticks) {
         this.market = new StockMarket();
         this.grabber = grabber;
-        this.updater = new Updater(grabber.getUpdateInterval(), grabber, this.market);
+        this.snapshot = snapshot;
+        if (snapshot != null) {
+            try {
+                MarketSnapshotFile.load(this.market, snapshot);
+            } catch (IOException ignored) {
+                // no usable snapshot, so start cold
+            }
+        }
+        if (ticks != null) {
+            try {
+                // added after the snapshot loads, since its prices were stored when first seen
+                TickStore store = new TickStore(ticks);
+                this.market.addTickListener((symbol, timestamp, micros) ->
+                        store.append(Symbols.ticker(symbol), timestamp, micros));
+                this.ticks = store;
+            } catch (IOException ignored) {
+                // carry on without storing ticks, including when another process has the store open
+            }
+        }
+        this.loader = new SecurityLoader(grabber);
+        this.scheduler = new RefreshScheduler();
+        this.market.subscribeAll(this.scheduler);
+        this.updater = new Updater(grabber.getUpdateInterval(), grabber.background(), this.market, maxInFlight,
+                this.scheduler, requestsPerCycle);
         this.updater.start();
     }
 
@@ -30,32 +160,148 @@ public class StockDataManager implements DataManager {
     @Override
     public void stop() {
         this.updater.cancel();
+        // the market's consumers catch up first, so every tick accepted reaches the tick store
+        this.market.close();
+        if (this.snapshot != null) {
+            try {
+                MarketSnapshotFile.save(this.market, this.snapshot);
+            } catch (IOException ignored) {
+            }
+        }
+        if (this.ticks != null) {
+            try {
+                this.ticks.close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 
     @Override
     public BigDecimal getPrice(String ticker) {
+        return this.getPrice(ticker, Long.MAX_VALUE);
+    }
+
+    @Override
+    public BigDecimal getPrice(String ticker, long maxAge) {
+        return Price.toBigDecimal(this.getPriceMicros(ticker, maxAge));
+    }
+
+    @Override
+    public long getPriceMicros(String ticker, long maxAge) {
+        this.scheduler.recordAccess(ticker);
+        OptionContract contract = OptionContract.parse(ticker);
+        if (contract != null) {
+            return this.getOptionPriceMicros(contract, maxAge);
+        }
         Security security = this.market.getSecurity(ticker);
 
-        // if it's not in our market, add it
-        if (security == null) {
+        // if it's not in our market, or our price is too old, fetch it
+        if (security == null || System.currentTimeMillis() - security.getLastUpdated() > maxAge) {
             try {
-                SecurityDetail detail = this.grabber.getDetail(ticker);
+                SecurityDetail detail = this.loader.load(ticker);
                 this.market.addSecurity(detail.getTicker(), detail.getType(), detail.getPrice());
             } catch (APICallException e) {
-                return null;
+                return Price.NONE;
             }
         }
         security = this.market.getSecurity(ticker);
 
-        assert security != null;
-        if (security.getPrice() == null) {
-            System.out.println("Darn");
+        if (security == null) {
+            return Price.NONE;
+        }
+        return security.getPriceMicros();
+    }
+
+    /**
+     * Gets an option's price, refreshing its underlying instead of fetching the option itself.
+     */
+    private long getOptionPriceMicros(OptionContract contract, long maxAge) {
+        if (this.getPriceMicros(contract.getUnderlying(), maxAge) == Price.NONE) {
+            return Price.NONE;
+        }
+        Security option = this.market.getSecurity(contract.getTicker());
+        if (option == null) {
+            this.market.addSecurity(contract.getTicker(), SecurityType.Option, null);
+            option = this.market.getSecurity(contract.getTicker());
         }
-        return security.getPrice();
+        return option == null ? Price.NONE : option.getPriceMicros();
+    }
+
+    @Override
+    public long getPriceMicros(int symbol, long maxAge) {
+        Security security = this.market.getSecurity(symbol);
+        if (security == null || System.currentTimeMillis() - security.getLastUpdated() > maxAge) {
+            return this.getPriceMicros(Symbols.ticker(symbol), maxAge);
+        }
+        this.scheduler.recordAccess(security.getTicker());
+        return security.getPriceMicros();
+    }
+
+    @Override
+    public MarketSnapshot snapshot() {
+        return this.market.snapshot();
+    }
+
+    @Override
+    public boolean addIndicator(String ticker, IndicatorType type, int period) {
+        return this.market.addIndicator(ticker, type, period);
+    }
+
+    @Override
+    public List<IndicatorValue> getIndicators(String ticker) {
+        return this.market.getIndicators(ticker);
+    }
+
+    @Override
+    public OptionGreeks getGreeks(String ticker) {
+        return this.market.getGreeks(ticker);
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        return this.grabber.searchTicker(search);
+    }
+
+    @Override
+    public int queryTicks(String ticker, long from, long to, TickVisitor visitor) throws IOException {
+        if (this.ticks == null) {
+            return 0;
+        }
+        return this.ticks.query(ticker, from, to, visitor);
+    }
+
+    @Override
+    public void setHoldings(HoldingsSource holdings) {
+        this.scheduler.setHoldings(holdings);
+    }
+
+    @Override
+    public void addTickListener(TickListener listener) {
+        this.market.addTickListener(listener);
+    }
+
+    @Override
+    public void removeTickListener(TickListener listener) {
+        this.market.removeTickListener(listener);
     }
 
     @Override
     public void clear() {
         this.market.clear();
     }
+
+    @Override
+    public void subscribe(String ticker, PriceListener listener) {
+        this.market.subscribe(ticker, listener);
+    }
+
+    @Override
+    public void subscribeAll(PriceListener listener) {
+        this.market.subscribeAll(listener);
+    }
+
+    @Override
+    public void unsubscribe(PriceListener listener) {
+        this.market.unsubscribe(listener);
+    }
 }
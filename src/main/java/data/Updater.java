@@ -4,9 +4,18 @@ import data.grabber.APICallException;
 import data.grabber.DataGrabber;
 import data.grabber.SecurityDetail;
 import data.market.Market;
+import data.market.Price;
 import data.market.securities.Security;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 public class Updater extends Thread {
 
@@ -14,6 +23,12 @@ public class Updater extends Thread {
     private final int updateInterval;
     private final DataGrabber grabber;
     private final Market market;
+    private final RefreshScheduler scheduler;
+    private final int requestsPerCycle;
+
+    // async refresh settings, only used when maxInFlight is positive
+    private final int maxInFlight;
+    private final ExecutorService executor;
 
     /**
      * Creates a new DataManager with the specified parameters.
@@ -23,10 +38,49 @@ public class Updater extends Thread {
      * @param market The market to be updated.
      */
     public Updater(int updateInterval, DataGrabber grabber, Market market) {
+        this(updateInterval, grabber, market, 0);
+    }
+
+    /**
+     * Creates a new DataManager with the specified parameters.
+     *
+     * @param updateInterval time between updates, in milliseconds
+     * @param grabber The DataGrabber used to fetch updated data.
+     * @param market The market to be updated.
+     * @param maxInFlight The maximum number of asynchronous requests in flight at once. If this is positive,
+     *                    securities are refreshed concurrently and each cycle takes as long as its slowest
+     *                    request. Otherwise securities are refreshed in sequential batches.
+     */
+    public Updater(int updateInterval, DataGrabber grabber, Market market, int maxInFlight) {
+        this(updateInterval, grabber, market, maxInFlight, new RefreshScheduler(), 0);
+    }
+
+    /**
+     * Creates a new DataManager with the specified parameters.
+     *
+     * @param updateInterval time between updates, in milliseconds
+     * @param grabber The DataGrabber used to fetch updated data.
+     * @param market The market to be updated.
+     * @param maxInFlight The maximum number of asynchronous requests in flight at once, or 0 to refresh in
+     *                    sequential batches.
+     * @param scheduler The scheduler that picks which securities to refresh each cycle.
+     * @param requestsPerCycle The number of requests that can be spent each cycle, or 0 to refresh every security
+     *                         each cycle.
+     */
+    public Updater(int updateInterval, DataGrabber grabber, Market market, int maxInFlight,
+                   RefreshScheduler scheduler, int requestsPerCycle) {
         super();
         this.updateInterval = updateInterval;
         this.grabber = grabber;
         this.market = market;
+        this.scheduler = scheduler;
+        this.requestsPerCycle = requestsPerCycle;
+        this.maxInFlight = maxInFlight;
+        this.executor = maxInFlight > 0 ? Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "updater-fetch");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     /**
@@ -35,12 +89,16 @@ public class Updater extends Thread {
     @Override
     public void run() {
         while (running) {
-            Collection<Security> securities = market.getSecurities();
-
-            // Update the securities
-            for (Security security : securities) {
-                this.updateSecurity(security);
+            List<Security> due = this.scheduler.select(market.getSecurities(), this.securitiesPerCycle());
+            if (this.maxInFlight > 0) {
+                this.updateSecuritiesAsync(due);
             }
+            else {
+                this.updateSecurities(due);
+            }
+            this.scheduler.evictCold(market);
+            // valuations read this cycle's prices together
+            this.market.publish();
 
             // Wait
             try {
@@ -51,23 +109,119 @@ public class Updater extends Thread {
         }
     }
 
+    /**
+     * Gets the number of securities that fit in this cycle's request budget.
+     *
+     * @return the number of securities
+     */
+    private int securitiesPerCycle() {
+        if (this.requestsPerCycle <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        // async requests fetch one security each
+        long perRequest = this.maxInFlight > 0 ? 1 : Math.max(1, grabber.getMaxBatchSize());
+        return (int) Math.min(Integer.MAX_VALUE, perRequest * this.requestsPerCycle);
+    }
+
     /**
      * Stops the data manager from running.
      */
     public void cancel() {
         this.running = false;
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Updates the specified securities, fetching them in batches as large as the grabber allows.
+     *
+     * @param securities the securities
+     */
+    protected void updateSecurities(Collection<Security> securities) {
+        int batchSize = Math.max(1, grabber.getMaxBatchSize());
+        Map<String, Security> batch = new HashMap<String, Security>();
+
+        for (Security security : securities) {
+            batch.put(security.getTicker(), security);
+            if (batch.size() >= batchSize) {
+                this.updateBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.updateBatch(batch);
+        }
+    }
+
+    /**
+     * Updates the specified securities concurrently, with at most maxInFlight requests outstanding. Prices are
+     * applied as each response arrives, and the call returns once every request has finished.
+     *
+     * @param securities the securities
+     */
+    protected void updateSecuritiesAsync(Collection<Security> securities) {
+        List<Security> pending = new ArrayList<Security>(securities);
+        Semaphore inFlight = new Semaphore(this.maxInFlight);
+        CountDownLatch finished = new CountDownLatch(pending.size());
+
+        try {
+            for (Security security : pending) {
+                inFlight.acquire();
+                try {
+                    grabber.getDetailAsync(security.getTicker(), this.executor)
+                            .whenComplete((detail, error) -> {
+                                try {
+                                    if (error == null && detail != null) {
+                                        apply(security, detail);
+                                    }
+                                } finally {
+                                    // released even when a bad quote throws, or the await below never returns
+                                    inFlight.release();
+                                    finished.countDown();
+                                }
+                            });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    finished.countDown();
+                }
+            }
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     * Updates the specified security.
+     * Sets a security's price from a detail, along with the day's volume so far when the grabber knows it.
+     */
+    private static void apply(Security security, SecurityDetail detail) {
+        if (detail.getPrice() == null) {
+            return;
+        }
+        security.updatePrice(Price.fromBigDecimal(detail.getPrice()), System.currentTimeMillis(), detail.getVolume());
+    }
+
+    /**
+     * Updates a single batch of securities with one call to the grabber.
      *
-     * @param security the security
+     * @param batch the securities in the batch, keyed by ticker
      */
-    private void updateSecurity(Security security) {
+    private void updateBatch(Map<String, Security> batch) {
+        List<String> tickers = new ArrayList<String>(batch.keySet());
         try {
-            SecurityDetail detail = grabber.getDetail(security.getTicker());
-            security.updatePrice(detail.getPrice());
-        } catch (APICallException ignored) {
+            Map<String, SecurityDetail> details = grabber.getDetails(tickers);
+            for (SecurityDetail detail : details.values()) {
+                Security security = batch.get(detail.getTicker());
+                if (security != null) {
+                    try {
+                        apply(security, detail);
+                    } catch (RuntimeException ignored) {
+                        // one bad quote, such as a price out of range, does not cost the rest of the batch
+                    }
+                }
+            }
+        } catch (APICallException | RuntimeException ignored) {
         }
     }
 }
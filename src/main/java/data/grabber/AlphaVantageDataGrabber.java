@@ -9,16 +9,31 @@ import kong.unirest.json.JSONException;
 import kong.unirest.json.JSONObject;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class AlphaVantageDataGrabber implements DataGrabber {
 
+    // how long to use single quotes for after the batch endpoint is found unavailable, before trying it again
+    static final long BATCH_RETRY_MILLIS = 3600000;
+
     final String url = "https://www.alphavantage.co";
     final String endpoint = "query";
     final int updateInterval = 5000;
     final String testTicker = "AAPL";
+    final int maxBatchSize = 100;
 
     private final String apiKey;
 
+    // set when the api tells us the batch endpoint is unavailable, in milliseconds since the epoch
+    private volatile long batchUnavailableUntil = 0;
+
     /**
      * Creates a DataManager using the Alpha Vantage API.
      * @param apiKey The user's api key for alpha vantage.
@@ -39,25 +54,145 @@ public class AlphaVantageDataGrabber implements DataGrabber {
 
         String URLEndpoint = String.format("%s/%s", url, endpoint);
 
-        HttpResponse <JsonNode> response = Unirest.get(URLEndpoint)
+        HttpResponse<byte[]> response = Unirest.get(URLEndpoint)
+                .queryString("function", function)
+                .queryString("symbol", ticker)
+                .queryString("datatype", datatype)
+                .queryString("apikey", this.apiKey)
+                .asBytes();
+
+        return this.parseQuote(ticker, response);
+    }
+
+    @Override
+    public CompletableFuture<SecurityDetail> getDetailAsync(String ticker, Executor executor) {
+        String function = "GLOBAL_QUOTE";
+        String datatype = "json";
+
+        String URLEndpoint = String.format("%s/%s", url, endpoint);
+
+        return Unirest.get(URLEndpoint)
                 .queryString("function", function)
                 .queryString("symbol", ticker)
                 .queryString("datatype", datatype)
                 .queryString("apikey", this.apiKey)
+                .asBytesAsync()
+                // parsed on the caller's executor, not the client's thread, so the caller's pool bounds the work
+                .thenApplyAsync(response -> {
+                    try {
+                        return this.parseQuote(ticker, response);
+                    } catch (APICallException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+    }
+
+    /**
+     * Reads the quote out of a GLOBAL_QUOTE response.
+     *
+     * @param ticker the ticker that was requested
+     * @param response the response
+     * @return the security detail
+     * @throws APICallException if the response does not contain a price
+     */
+    private SecurityDetail parseQuote(String ticker, HttpResponse<byte[]> response) throws APICallException {
+        byte[] body = response.getBody();
+        if (body == null) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+        return AlphaVantageResponseParser.parseQuote(ticker, body);
+    }
+
+    private boolean batchSupported() {
+        return System.currentTimeMillis() >= this.batchUnavailableUntil;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return this.batchSupported() ? this.maxBatchSize : 1;
+    }
+
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        if (!this.batchSupported()) {
+            return DataGrabber.super.getDetails(tickers);
+        }
+
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+        List<String> chunk = new ArrayList<String>(this.maxBatchSize);
+        for (String ticker : tickers) {
+            chunk.add(ticker);
+            if (chunk.size() == this.maxBatchSize) {
+                this.getBatch(chunk, details);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            this.getBatch(chunk, details);
+        }
+        return details;
+    }
+
+    /**
+     * Fetches a single chunk of tickers with the batch quote endpoint. If the api says the endpoint is unavailable,
+     * batching is turned off for a while and the request fails, so the caller can fetch the tickers one at a time
+     * and count each request.
+     *
+     * @param tickers the tickers, no more than maxBatchSize of them
+     * @param details the map the fetched details are added to
+     * @throws APICallException if the batch request fails, including when the api answers with a rate limit note or
+     * an error instead of quotes
+     */
+    private void getBatch(List<String> tickers, Map<String, SecurityDetail> details) throws APICallException {
+        String function = "BATCH_STOCK_QUOTES";
+        String datatype = "json";
+
+        String URLEndpoint = String.format("%s/%s", url, endpoint);
+
+        HttpResponse <JsonNode> response = Unirest.get(URLEndpoint)
+                .queryString("function", function)
+                .queryString("symbols", String.join(",", tickers))
+                .queryString("datatype", datatype)
+                .queryString("apikey", this.apiKey)
                 .asJson();
 
+        JSONObject body;
         try {
-            JSONObject stockInfo = response.getBody().getObject().getJSONObject("Global Quote");
-            String priceString = stockInfo.getString("05. price");
-            if (priceString == null) {
-                throw new APICallException("Unable to get stock detail.");
+            body = response.getBody().getObject();
+        } catch (JSONException | NullPointerException e) {
+            throw new APICallException("Unable to get stock details.");
+        }
+
+        if (!body.has("Stock Quotes")) {
+            String message = body.optString("Error Message", body.optString("Information", body.optString("Note")));
+            if (batchUnavailable(message)) {
+                this.batchUnavailableUntil = System.currentTimeMillis() + BATCH_RETRY_MILLIS;
+                throw new APICallException("The batch quote endpoint is unavailable.");
             }
-            return new SecurityDetail (ticker, new BigDecimal (priceString), SecurityType.Stock);
-        } catch (JSONException e) {
-            throw new APICallException("Unable to get stock detail.");
+            throw new APICallException(message.isEmpty() ? "Unable to get stock details." : message);
+        }
+
+        try {
+            JSONArray quotes = body.getJSONArray("Stock Quotes");
+            for (int i = 0; i < quotes.length(); i++) {
+                JSONObject quote = quotes.getJSONObject(i);
+                String ticker = quote.getString("1. symbol");
+                String priceString = quote.getString("2. price");
+                details.put(ticker, new SecurityDetail(ticker, new BigDecimal(priceString), SecurityType.Stock));
+            }
+        } catch (JSONException | NumberFormatException e) {
+            throw new APICallException("Unable to get stock details.");
         }
     }
 
+    /**
+     * Tests whether a message from the api says the batch endpoint is unavailable, as opposed to a rate limit note or
+     * some other error.
+     */
+    static boolean batchUnavailable(String message) {
+        return message.contains("BATCH_STOCK_QUOTES") || message.contains("premium endpoint");
+    }
+
     @Override
     public String[] searchTicker(String search) {
         String function = "SYMBOL_SEARCH";
@@ -65,21 +200,18 @@ public class AlphaVantageDataGrabber implements DataGrabber {
 
         String URLEndpoint = String.format("%s/%s", url, endpoint);
 
-        HttpResponse <JsonNode> response = Unirest.get(URLEndpoint)
+        HttpResponse<byte[]> response = Unirest.get(URLEndpoint)
                 .queryString("function", function)
                 .queryString("keywords", search)
                 .queryString("datatype", datatype)
                 .queryString("apikey", this.apiKey)
-                .asJson();
-
-        JSONArray stocks = response.getBody().getArray();
-        int num = stocks.length();
-        String[] tickers = new String[num];
+                .asBytes();
 
-        for (int i = 0; i < num; i ++) {
-            tickers[i] = stocks.getJSONObject(i).getString("symbol");
+        byte[] body = response.getBody();
+        if (body == null) {
+            return new String[0];
         }
-        return tickers;
+        return AlphaVantageResponseParser.parseSearch(body);
     }
 
     @Override
@@ -0,0 +1,310 @@
+package data.grabber;
+
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the fields we need straight out of raw Alpha Vantage responses, without building a JSON tree. The response is
+ * scanned once for string keys, and only the values of the keys we care about are decoded.
+ */
+public class AlphaVantageResponseParser {
+
+    private static final byte[] SYMBOL_KEY = ascii("01. symbol");
+    private static final byte[] PRICE_KEY = ascii("05. price");
+    private static final byte[] VOLUME_KEY = ascii("06. volume");
+    private static final byte[] DAY_KEY = ascii("07. latest trading day");
+    private static final byte[] SEARCH_SYMBOL_KEY = ascii("1. symbol");
+    private static final byte[] GLOBAL_QUOTE_KEY = ascii("Global Quote");
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private AlphaVantageResponseParser() {}
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads a GLOBAL_QUOTE response.
+     *
+     * @param ticker the ticker that was requested
+     * @param body the raw response body
+     * @return the security detail
+     * @throws UnknownTickerException if the response has an empty quote, which is how the api says the ticker does
+     * not exist
+     * @throws APICallException if the response does not contain a valid price
+     */
+    public static SecurityDetail parseQuote(String ticker, byte[] body) throws APICallException {
+        boolean empty = false;
+        int symbolStart = -1, symbolEnd = -1;
+        int priceStart = -1, priceEnd = -1;
+        int volumeStart = -1, volumeEnd = -1;
+        int dayStart = -1, dayEnd = -1;
+
+        int i = 0;
+        while ((i = indexOf(body, (byte) '"', i)) >= 0) {
+            int keyStart = i + 1;
+            int keyEnd = endOfString(body, keyStart);
+            if (keyEnd < 0) {
+                break;
+            }
+
+            int valueStart = stringValueStart(body, keyEnd + 1);
+            if (valueStart < 0) {
+                empty |= equals(body, keyStart, keyEnd, GLOBAL_QUOTE_KEY) && emptyObjectValue(body, keyEnd + 1);
+                i = keyEnd + 1;
+                continue;
+            }
+            int valueEnd = endOfString(body, valueStart);
+            if (valueEnd < 0) {
+                break;
+            }
+
+            if (equals(body, keyStart, keyEnd, PRICE_KEY)) {
+                priceStart = valueStart;
+                priceEnd = valueEnd;
+            }
+            else if (equals(body, keyStart, keyEnd, SYMBOL_KEY)) {
+                symbolStart = valueStart;
+                symbolEnd = valueEnd;
+            }
+            else if (equals(body, keyStart, keyEnd, VOLUME_KEY)) {
+                volumeStart = valueStart;
+                volumeEnd = valueEnd;
+            }
+            else if (equals(body, keyStart, keyEnd, DAY_KEY)) {
+                dayStart = valueStart;
+                dayEnd = valueEnd;
+            }
+            i = valueEnd + 1;
+        }
+
+        if (priceStart < 0 && empty) {
+            throw new UnknownTickerException("No security has that ticker.");
+        }
+        if (priceStart < 0) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+
+        BigDecimal price = parseDecimal(body, priceStart, priceEnd);
+        String symbol = ticker;
+        if (symbolStart >= 0 && !equalsIgnoreCase(body, symbolStart, symbolEnd, ticker)) {
+            symbol = new String(body, symbolStart, symbolEnd - symbolStart, StandardCharsets.UTF_8);
+        }
+        long volume = volumeStart >= 0 ? parseLong(body, volumeStart, volumeEnd) : 0;
+        long timestamp = dayStart >= 0 ? parseDate(body, dayStart, dayEnd) : 0;
+
+        return new SecurityDetail(symbol, price, SecurityType.Stock, volume, timestamp);
+    }
+
+    /**
+     * Reads the symbols out of a SYMBOL_SEARCH response.
+     *
+     * @param body the raw response body
+     * @return the symbols, in the order the api ranked them
+     */
+    public static String[] parseSearch(byte[] body) {
+        List<String> symbols = new ArrayList<String>();
+
+        int i = 0;
+        while ((i = indexOf(body, (byte) '"', i)) >= 0) {
+            int keyStart = i + 1;
+            int keyEnd = endOfString(body, keyStart);
+            if (keyEnd < 0) {
+                break;
+            }
+
+            int valueStart = stringValueStart(body, keyEnd + 1);
+            if (valueStart < 0) {
+                i = keyEnd + 1;
+                continue;
+            }
+            int valueEnd = endOfString(body, valueStart);
+            if (valueEnd < 0) {
+                break;
+            }
+
+            if (equals(body, keyStart, keyEnd, SEARCH_SYMBOL_KEY)) {
+                symbols.add(new String(body, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8));
+            }
+            i = valueEnd + 1;
+        }
+        return symbols.toArray(new String[0]);
+    }
+
+    private static int indexOf(byte[] body, byte b, int from) {
+        for (int i = from; i < body.length; i++) {
+            if (body[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the closing quote of the string starting at the specified index, skipping escaped characters.
+     */
+    private static int endOfString(byte[] body, int start) {
+        for (int i = start; i < body.length; i++) {
+            if (body[i] == '\\') {
+                i++;
+            }
+            else if (body[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] body, int i) {
+        while (i < body.length && (body[i] == ' ' || body[i] == '\n' || body[i] == '\r' || body[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * If the string ending just before the specified index is a key with a string value, finds the start of the
+     * value.
+     *
+     * @return the index just after the value's opening quote, or -1 if there is no string value
+     */
+    private static int stringValueStart(byte[] body, int i) {
+        i = skipWhitespace(body, i);
+        if (i >= body.length || body[i] != ':') {
+            return -1;
+        }
+        i = skipWhitespace(body, i + 1);
+        if (i >= body.length || body[i] != '"') {
+            return -1;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Tests whether the string ending just before the specified index is a key whose value is an empty object.
+     */
+    private static boolean emptyObjectValue(byte[] body, int i) {
+        i = skipWhitespace(body, i);
+        if (i >= body.length || body[i] != ':') {
+            return false;
+        }
+        i = skipWhitespace(body, i + 1);
+        if (i >= body.length || body[i] != '{') {
+            return false;
+        }
+        i = skipWhitespace(body, i + 1);
+        return i < body.length && body[i] == '}';
+    }
+
+    private static boolean equals(byte[] body, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (body[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] body, int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.toUpperCase((char) body[start + i]) != Character.toUpperCase(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a decimal number such as "123.4500" into a BigDecimal with the same scale.
+     */
+    private static BigDecimal parseDecimal(byte[] body, int start, int end) throws APICallException {
+        boolean negative = start < end && body[start] == '-';
+        int i = negative ? start + 1 : start;
+        long unscaled = 0;
+        int scale = -1;
+        int digits = 0;
+
+        for (; i < end; i++) {
+            byte b = body[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            }
+            else if (b >= '0' && b <= '9') {
+                // too many digits for a long, so let BigDecimal deal with it
+                if (++digits > 18) {
+                    return parseDecimalSlow(body, start, end);
+                }
+                unscaled = unscaled * 10 + (b - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            else {
+                throw new APICallException("Unable to get stock detail.");
+            }
+        }
+        if (digits == 0) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private static BigDecimal parseDecimalSlow(byte[] body, int start, int end) throws APICallException {
+        try {
+            return new BigDecimal(new String(body, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+    }
+
+    /**
+     * Parses a whole number, returning 0 if it is malformed.
+     */
+    private static long parseLong(byte[] body, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = body[i];
+            if (b < '0' || b > '9' || value > Long.MAX_VALUE / 10) {
+                return 0;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses a date such as "2021-03-05" into milliseconds since the epoch at midnight UTC, returning 0 if it is
+     * malformed.
+     */
+    private static long parseDate(byte[] body, int start, int end) {
+        if (end - start != 10 || body[start + 4] != '-' || body[start + 7] != '-') {
+            return 0;
+        }
+        long year = parseLong(body, start, start + 4);
+        long month = parseLong(body, start + 5, start + 7);
+        long day = parseLong(body, start + 8, start + 10);
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return 0;
+        }
+
+        // days from the civil calendar, counting years from March so leap days come last
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146097 + dayOfEra - 719468;
+        return epochDay * MILLIS_PER_DAY;
+    }
+}
@@ -0,0 +1,87 @@
+package data.grabber;
+
+/**
+ * Stops requests to a provider that keeps failing. After enough consecutive failures the circuit opens and requests
+ * are refused. Once the open period has passed a single trial request is let through: if it succeeds the circuit
+ * closes again, and if it fails the circuit stays open for another period.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private CircuitState state = CircuitState.Closed;
+    private int failures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureThreshold the number of consecutive failures that opens the circuit
+     * @param openMillis how long the circuit stays open before a trial request is allowed, in milliseconds
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1 || openMillis < 0) {
+            throw new IllegalArgumentException("The failure threshold must be positive.");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Gets the state of the circuit, moving it to half open if its open period has passed.
+     *
+     * @return the state
+     */
+    public synchronized CircuitState getState() {
+        if (this.state == CircuitState.Open && System.currentTimeMillis() - this.openedAt >= this.openMillis) {
+            this.state = CircuitState.HalfOpen;
+            this.trialInFlight = false;
+        }
+        return this.state;
+    }
+
+    /**
+     * Asks to make a request. A request allowed while the circuit is half open is the trial request, and must be
+     * followed by a call to recordSuccess or recordFailure.
+     *
+     * @return true if the request may go ahead, false otherwise
+     */
+    public synchronized boolean allowRequest() {
+        switch (this.getState()) {
+            case Closed:
+                return true;
+            case HalfOpen:
+                if (this.trialInFlight) {
+                    return false;
+                }
+                this.trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records a successful request, closing the circuit.
+     */
+    public synchronized void recordSuccess() {
+        this.state = CircuitState.Closed;
+        this.failures = 0;
+        this.trialInFlight = false;
+    }
+
+    /**
+     * Records a failed request, opening the circuit if the trial request failed or there have been too many
+     * failures in a row.
+     */
+    public synchronized void recordFailure() {
+        this.failures++;
+        if (this.state == CircuitState.HalfOpen || this.failures >= this.failureThreshold) {
+            this.state = CircuitState.Open;
+            this.openedAt = System.currentTimeMillis();
+            this.trialInFlight = false;
+        }
+    }
+}
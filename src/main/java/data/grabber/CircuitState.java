@@ -0,0 +1,10 @@
+package data.grabber;
+
+/**
+ * The state of a circuit breaker.
+ */
+public enum CircuitState {
+    Closed,
+    Open,
+    HalfOpen,
+}
@@ -0,0 +1,376 @@
+package data.grabber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A data grabber that spreads requests over several providers. Each request goes to the available provider with the
+ * lowest recent median latency. If that provider has not answered by the time its recent latency percentile has
+ * passed, the same request is sent to the next provider as a hedge and whichever answers first is used. A provider
+ * that fails, or is skipped by its circuit breaker after repeated failures, is replaced by the next one straight away.
+ * A provider that answers that a ticker does not exist has not failed, and does not count towards its breaker.
+ */
+public class CompositeDataGrabber implements DataGrabber {
+
+    static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    static final long DEFAULT_HEDGE_DELAY = 2000;
+    static final int MIN_HEDGE_SAMPLES = 8;
+    static final int LATENCY_WINDOW = 128;
+    static final int FAILURE_THRESHOLD = 3;
+    static final long OPEN_MILLIS = 30000;
+
+    /**
+     * A provider together with what is known about how it has been behaving.
+     */
+    private static class Provider {
+        final DataGrabber grabber;
+        final LatencyTracker latency;
+        final CircuitBreaker breaker;
+
+        Provider(DataGrabber grabber, LatencyTracker latency, CircuitBreaker breaker) {
+            this.grabber = grabber;
+            this.latency = latency;
+            this.breaker = breaker;
+        }
+    }
+
+    /**
+     * The outcome of one request to one provider.
+     */
+    private static class Attempt {
+        final SecurityDetail detail;
+        // true if the provider answered that the ticker does not exist
+        final boolean unknown;
+
+        Attempt(SecurityDetail detail, boolean unknown) {
+            this.detail = detail;
+            this.unknown = unknown;
+        }
+    }
+
+    private final List<Provider> providers;
+    private final double hedgePercentile;
+    private final ExecutorService executor;
+    private final CompositeDataGrabber background;
+
+    /**
+     * Creates a composite grabber that hedges at the default latency percentile.
+     *
+     * @param providers the providers, in order of preference until their latencies are known
+     */
+    public CompositeDataGrabber(List<? extends DataGrabber> providers) {
+        this(providers, DEFAULT_HEDGE_PERCENTILE, FAILURE_THRESHOLD, OPEN_MILLIS);
+    }
+
+    /**
+     * Creates a composite grabber.
+     *
+     * @param providers the providers, in order of preference until their latencies are known
+     * @param hedgePercentile the percentile of a provider's recent latency after which a hedged request is sent
+     * @param failureThreshold the number of consecutive failures after which a provider is skipped
+     * @param openMillis how long a failing provider is skipped for, in milliseconds
+     */
+    public CompositeDataGrabber(List<? extends DataGrabber> providers, double hedgePercentile, int failureThreshold,
+                                long openMillis) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("A composite grabber needs at least one provider.");
+        }
+        this.providers = new ArrayList<Provider>();
+        List<Provider> backgroundProviders = new ArrayList<Provider>();
+        for (DataGrabber grabber : providers) {
+            Provider provider = new Provider(grabber, new LatencyTracker(LATENCY_WINDOW),
+                    new CircuitBreaker(failureThreshold, openMillis));
+            this.providers.add(provider);
+            backgroundProviders.add(new Provider(grabber.background(), provider.latency, provider.breaker));
+        }
+        this.hedgePercentile = hedgePercentile;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "composite-grabber");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.background = new CompositeDataGrabber(backgroundProviders, hedgePercentile, this.executor);
+    }
+
+    /**
+     * Creates a view of a composite grabber over the background views of its providers, sharing their latency and
+     * failure history.
+     */
+    private CompositeDataGrabber(List<Provider> providers, double hedgePercentile, ExecutorService executor) {
+        this.providers = providers;
+        this.hedgePercentile = hedgePercentile;
+        this.executor = executor;
+        this.background = this;
+    }
+
+    /**
+     * Gets the state of each provider's circuit breaker, in the order the providers were given.
+     *
+     * @return the circuit states
+     */
+    public List<CircuitState> getCircuitStates() {
+        List<CircuitState> states = new ArrayList<CircuitState>();
+        for (Provider provider : this.providers) {
+            states.add(provider.breaker.getState());
+        }
+        return states;
+    }
+
+    /**
+     * Orders the providers that are not being skipped by their recent median latency. Providers with no recent
+     * requests keep their given order and go first, so they get measured.
+     */
+    private List<Provider> ranked() {
+        List<Provider> ranked = new ArrayList<Provider>();
+        for (Provider provider : this.providers) {
+            if (provider.breaker.getState() != CircuitState.Open) {
+                ranked.add(provider);
+            }
+        }
+        Collections.sort(ranked, (a, b) -> Long.compare(a.latency.percentile(0.5), b.latency.percentile(0.5)));
+        return ranked;
+    }
+
+    /**
+     * Gets how long to wait for a provider before hedging.
+     */
+    private long hedgeDelay(Provider provider) {
+        if (provider.latency.getSampleCount() < MIN_HEDGE_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY;
+        }
+        return Math.max(1, provider.latency.percentile(this.hedgePercentile));
+    }
+
+    /**
+     * Records the latency and outcome of a request to a provider. Being told the ticker does not exist is an answer,
+     * so it counts as a success.
+     *
+     * @param error what the request failed with, or null if it succeeded
+     */
+    private static void record(Provider provider, long start, Throwable error) {
+        provider.latency.record(System.currentTimeMillis() - start);
+        if (error == null || error instanceof UnknownTickerException) {
+            provider.breaker.recordSuccess();
+        }
+        else {
+            provider.breaker.recordFailure();
+        }
+    }
+
+    /**
+     * Sends a request to a provider, recording its latency and outcome.
+     */
+    private void submit(CompletionService<Attempt> requests, Provider provider, String ticker) {
+        requests.submit(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                SecurityDetail detail = provider.grabber.getDetail(ticker);
+                record(provider, start, null);
+                return new Attempt(detail, false);
+            } catch (APICallException | RuntimeException e) {
+                record(provider, start, e);
+                return new Attempt(null, e instanceof UnknownTickerException);
+            }
+        });
+    }
+
+    /**
+     * Gets the exception to fail with once every provider asked has failed.
+     *
+     * @param asked the number of providers asked
+     * @param unknown the number of them that answered that the ticker does not exist
+     */
+    private static APICallException failure(int asked, int unknown) {
+        if (asked > 0 && unknown == asked) {
+            return new UnknownTickerException("No security has that ticker.");
+        }
+        return new APICallException("Unable to get stock detail.");
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        int interval = Integer.MAX_VALUE;
+        for (Provider provider : this.providers) {
+            interval = Math.min(interval, provider.grabber.getUpdateInterval());
+        }
+        return interval;
+    }
+
+    @Override
+    public SecurityDetail getDetail(String ticker) throws APICallException {
+        List<Provider> ranked = this.ranked();
+        CompletionService<Attempt> requests = new ExecutorCompletionService<Attempt>(this.executor);
+        int next = 0;
+        int sent = 0;
+        int finished = 0;
+        int unknown = 0;
+        Provider last = null;
+        boolean send = true;
+
+        try {
+            while (true) {
+                if (send) {
+                    // send to the next provider whose circuit breaker lets us
+                    while (next < ranked.size()) {
+                        Provider provider = ranked.get(next++);
+                        if (provider.breaker.allowRequest()) {
+                            this.submit(requests, provider, ticker);
+                            last = provider;
+                            sent++;
+                            break;
+                        }
+                    }
+                    send = false;
+                }
+                if (finished == sent) {
+                    throw failure(finished, unknown);
+                }
+
+                Future<Attempt> done = next < ranked.size()
+                        ? requests.poll(this.hedgeDelay(last), TimeUnit.MILLISECONDS) : requests.take();
+                if (done == null) {
+                    // the last provider is slower than usual, so hedge with the next
+                    send = true;
+                    continue;
+                }
+                finished++;
+                Attempt attempt = done.get();
+                if (attempt.detail != null) {
+                    // losing requests are left to finish so their latencies are still recorded
+                    return attempt.detail;
+                }
+                if (attempt.unknown) {
+                    unknown++;
+                }
+                send = finished == sent;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APICallException("Interrupted while waiting to call the api.");
+        } catch (ExecutionException e) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+    }
+
+    /**
+     * Asks the providers in turn without blocking, moving on to the next as soon as one fails. Requests are not
+     * hedged, since the caller already has other requests in flight.
+     */
+    @Override
+    public CompletableFuture<SecurityDetail> getDetailAsync(String ticker, Executor executor) {
+        return this.getDetailAsync(this.ranked(), 0, 0, 0, ticker, executor);
+    }
+
+    /**
+     * Asks the next provider whose circuit breaker lets us, falling back to the ones after it.
+     *
+     * @param next the index of the next provider to try
+     * @param asked the number of providers asked so far
+     * @param unknown the number of them that answered that the ticker does not exist
+     */
+    private CompletableFuture<SecurityDetail> getDetailAsync(List<Provider> ranked, int next, int asked, int unknown,
+                                                             String ticker, Executor executor) {
+        while (next < ranked.size() && !ranked.get(next).breaker.allowRequest()) {
+            next++;
+        }
+        if (next == ranked.size()) {
+            CompletableFuture<SecurityDetail> failed = new CompletableFuture<SecurityDetail>();
+            failed.completeExceptionally(failure(asked, unknown));
+            return failed;
+        }
+
+        Provider provider = ranked.get(next);
+        int following = next + 1;
+        long start = System.currentTimeMillis();
+        CompletableFuture<SecurityDetail> request;
+        try {
+            request = provider.grabber.getDetailAsync(ticker, executor);
+        } catch (RuntimeException e) {
+            request = new CompletableFuture<SecurityDetail>();
+            request.completeExceptionally(e);
+        }
+
+        return request.handle((detail, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            record(provider, start, cause);
+            return cause == null ? CompletableFuture.completedFuture(detail)
+                    : this.getDetailAsync(ranked, following, asked + 1,
+                    cause instanceof UnknownTickerException ? unknown + 1 : unknown, ticker, executor);
+        }).thenCompose(result -> result);
+    }
+
+    /**
+     * Gets the largest batch any provider that is not being skipped can fetch in one request. A batch goes to a
+     * single provider, which splits it further if it has to.
+     */
+    @Override
+    public int getMaxBatchSize() {
+        int batchSize = 1;
+        for (Provider provider : this.ranked()) {
+            batchSize = Math.max(batchSize, provider.grabber.getMaxBatchSize());
+        }
+        return batchSize;
+    }
+
+    /**
+     * Fetches the whole batch from the fastest provider that is not being skipped, moving on to the next if it fails.
+     * Batches are not hedged, and their latency is not recorded, since it says little about a single request.
+     */
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        for (Provider provider : this.ranked()) {
+            if (!provider.breaker.allowRequest()) {
+                continue;
+            }
+            try {
+                Map<String, SecurityDetail> details = provider.grabber.getDetails(tickers);
+                provider.breaker.recordSuccess();
+                return details;
+            } catch (APICallException | RuntimeException e) {
+                provider.breaker.recordFailure();
+            }
+        }
+        throw new APICallException("Unable to get stock details.");
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        for (Provider provider : this.ranked()) {
+            String[] results = provider.grabber.searchTicker(search);
+            if (results != null && results.length > 0) {
+                return results;
+            }
+        }
+        return new String[0];
+    }
+
+    @Override
+    public boolean testSetup() {
+        boolean success = false;
+        for (Provider provider : this.providers) {
+            if (provider.grabber.testSetup()) {
+                success = true;
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public DataGrabber background() {
+        return this.background;
+    }
+}
@@ -1,5 +1,12 @@
 package data.grabber;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 public interface DataGrabber {
 
     /**
@@ -19,6 +26,53 @@ public interface DataGrabber {
      */
     SecurityDetail getDetail(String ticker) throws APICallException;
 
+    /**
+     * Used to get information about a specified security without blocking the caller. Grabbers with a non-blocking
+     * client should override this. By default getDetail is run on the provided executor.
+     *
+     * @param ticker the ticker of the security
+     * @param executor the executor used for any blocking work
+     * @return a future completed with information about the security, or completed exceptionally with an
+     * APICallException if the grabber is unable to get information about the security.
+     */
+    default CompletableFuture<SecurityDetail> getDetailAsync(String ticker, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.getDetail(ticker);
+            } catch (APICallException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Gets the maximum number of tickers that can be fetched in a single request by getDetails.
+     *
+     * @return the maximum batch size, or 1 if the grabber has no bulk request
+     */
+    default int getMaxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Used to get information about several securities at once. Grabbers with a bulk endpoint should override this
+     * to fetch the tickers in as few requests as possible. By default each ticker is fetched with getDetail.
+     *
+     * @param tickers the tickers of the securities
+     * @return a map from ticker to information about the security. Tickers that could not be found are left out.
+     * @throws APICallException if the grabber is unable to get information about any of the securities.
+     */
+    default Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+        for (String ticker : tickers) {
+            try {
+                details.put(ticker, this.getDetail(ticker));
+            } catch (APICallException ignored) {
+            }
+        }
+        return details;
+    }
+
     /**
      *
      * @param search the string used as the search parameter.
@@ -26,6 +80,16 @@ public interface DataGrabber {
      */
     String[] searchTicker(String search);
 
+    /**
+     * Gets a view of this grabber to be used for background refreshes, which may be given lower priority than
+     * interactive requests. Grabbers that do not prioritise requests return themselves.
+     *
+     * @return the background grabber
+     */
+    default DataGrabber background() {
+        return this;
+    }
+
     /**
      * Tests whether the grabber has been set up correctly.
      *
@@ -1,7 +1,14 @@
 package data.grabber;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
 public class DataGrabberFactory {
 
+    static final double SYNTHETIC_DRIFT = 0;
+    static final double SYNTHETIC_VOLATILITY = 0.001;
+
     private DataGrabberFactory() {}
 
     /**
@@ -14,6 +21,10 @@ public class DataGrabberFactory {
         switch (type) {
             case AlphaVantage:
                 return "AlphaVantage";
+            case Replay:
+                return "Replay";
+            case Synthetic:
+                return "Synthetic";
             default:
                 return null;
         }
@@ -28,4 +39,65 @@ public class DataGrabberFactory {
     public static DataGrabber newAlphaVantageGrabber(String apiKey) {
         return new AlphaVantageDataGrabber(apiKey);
     }
+
+    /**
+     * Creates a new data grabber that replays a recorded tick file.
+     *
+     * @param fileName the name of the tick file
+     * @param speed how many simulated milliseconds pass per real millisecond
+     * @return the data grabber
+     * @throws IOException if the tick file cannot be read
+     */
+    public static ReplayDataGrabber newReplayGrabber(String fileName, double speed) throws IOException {
+        return new ReplayDataGrabber(Paths.get(fileName), speed);
+    }
+
+    /**
+     * Creates a new data grabber that generates prices for a synthetic market.
+     *
+     * @param universeSize the number of tickers in the market
+     * @param seed the seed the prices are derived from
+     * @param tickRate the number of price ticks per second
+     * @return the data grabber
+     */
+    public static SyntheticDataGrabber newSyntheticGrabber(int universeSize, long seed, double tickRate) {
+        return new SyntheticDataGrabber(universeSize, seed, tickRate, SYNTHETIC_DRIFT, SYNTHETIC_VOLATILITY);
+    }
+
+    /**
+     * Wraps a data grabber so that it makes no more than the specified number of requests. Interactive requests are
+     * served before background refreshes.
+     *
+     * @param grabber the grabber
+     * @param requestsPerMinute the number of requests allowed per minute
+     * @param burst the number of requests that can be made at once
+     * @return the rate limited data grabber
+     */
+    public static RateLimitedDataGrabber newRateLimitedGrabber(DataGrabber grabber, double requestsPerMinute,
+                                                               int burst) {
+        return new RateLimitedDataGrabber(grabber, requestsPerMinute / 60, burst);
+    }
+
+    /**
+     * Combines several data grabbers into one that sends each request to the fastest working provider, hedging slow
+     * requests with a second provider and skipping providers that keep failing.
+     *
+     * @param providers the grabbers, in order of preference
+     * @return the composite data grabber
+     */
+    public static CompositeDataGrabber newCompositeGrabber(List<? extends DataGrabber> providers) {
+        return new CompositeDataGrabber(providers);
+    }
+
+    /**
+     * Wraps a data grabber so that ticker searches are answered from a local listing file when possible.
+     *
+     * @param grabber the grabber
+     * @param listingFile the name of a listing file with the symbol and company name in its first two columns
+     * @return the indexed data grabber
+     * @throws IOException if the listing file cannot be read
+     */
+    public static IndexedDataGrabber newIndexedGrabber(DataGrabber grabber, String listingFile) throws IOException {
+        return new IndexedDataGrabber(grabber, SymbolIndex.load(Paths.get(listingFile)));
+    }
 }
@@ -2,4 +2,6 @@ package data.grabber;
 
 public enum DataGrabberType {
     AlphaVantage,
+    Replay,
+    Synthetic,
 }
@@ -0,0 +1,59 @@
+package data.grabber;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A data grabber that passes every call through to another grabber. Wrappers that only change a few calls
+ * extend this and override those.
+ */
+public abstract class ForwardingDataGrabber implements DataGrabber {
+
+    protected final DataGrabber delegate;
+
+    /**
+     * Creates a grabber that forwards to the specified grabber.
+     *
+     * @param delegate the wrapped grabber
+     */
+    protected ForwardingDataGrabber(DataGrabber delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        return this.delegate.getUpdateInterval();
+    }
+
+    @Override
+    public SecurityDetail getDetail(String ticker) throws APICallException {
+        return this.delegate.getDetail(ticker);
+    }
+
+    @Override
+    public CompletableFuture<SecurityDetail> getDetailAsync(String ticker, Executor executor) {
+        return this.delegate.getDetailAsync(ticker, executor);
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return this.delegate.getMaxBatchSize();
+    }
+
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        return this.delegate.getDetails(tickers);
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        return this.delegate.searchTicker(search);
+    }
+
+    @Override
+    public boolean testSetup() {
+        return this.delegate.testSetup();
+    }
+}
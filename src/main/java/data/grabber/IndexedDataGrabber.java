@@ -0,0 +1,38 @@
+package data.grabber;
+
+/**
+ * A data grabber that answers ticker searches from a local symbol index, and only asks the wrapped grabber when the
+ * index has no match.
+ */
+public class IndexedDataGrabber extends ForwardingDataGrabber {
+
+    static final int MAX_SEARCH_RESULTS = 10;
+
+    private final SymbolIndex index;
+
+    /**
+     * Creates an indexed grabber.
+     *
+     * @param delegate the grabber used for prices and for searches the index cannot answer
+     * @param index the symbol index
+     */
+    public IndexedDataGrabber(DataGrabber delegate, SymbolIndex index) {
+        super(delegate);
+        this.index = index;
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        String[] results = this.index.search(search, MAX_SEARCH_RESULTS);
+        if (results.length > 0) {
+            return results;
+        }
+        return this.delegate.searchTicker(search);
+    }
+
+    @Override
+    public DataGrabber background() {
+        // background refreshes never search, so they can skip the index
+        return this.delegate.background();
+    }
+}
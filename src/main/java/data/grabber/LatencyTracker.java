@@ -0,0 +1,64 @@
+package data.grabber;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of a provider's most recent requests, so percentiles can be read off them.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int count = 0;
+    private int next = 0;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param window the number of recent requests kept
+     */
+    public LatencyTracker(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("The window must be positive.");
+        }
+        this.samples = new long[window];
+    }
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param millis the latency, in milliseconds
+     */
+    public synchronized void record(long millis) {
+        this.samples[this.next] = millis;
+        this.next = (this.next + 1) % this.samples.length;
+        this.count = Math.min(this.count + 1, this.samples.length);
+    }
+
+    /**
+     * Gets the number of latencies currently kept.
+     *
+     * @return the number of samples
+     */
+    public synchronized int getSampleCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets a percentile of the recent latencies.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the latency in milliseconds, or -1 if no requests have been recorded
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (this.count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(this.samples, this.count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+}
@@ -0,0 +1,154 @@
+package data.grabber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A data grabber that limits the rate of requests made to another grabber with a shared token bucket. Calls made
+ * through this grabber are treated as foreground requests; calls made through the view returned by background()
+ * only go ahead when no foreground request is waiting.
+ */
+public class RateLimitedDataGrabber extends ForwardingDataGrabber {
+
+    private final TokenBucket bucket;
+    private final RequestPriority priority;
+    private final RateLimitedDataGrabber background;
+
+    /**
+     * Creates a rate limited grabber.
+     *
+     * @param delegate the grabber whose requests are limited
+     * @param requestsPerSecond the sustained rate of requests allowed
+     * @param burst the number of requests that can be made at once after a quiet period
+     */
+    public RateLimitedDataGrabber(DataGrabber delegate, double requestsPerSecond, int burst) {
+        super(delegate);
+        this.bucket = new TokenBucket(requestsPerSecond, burst);
+        this.priority = RequestPriority.Foreground;
+        this.background = new RateLimitedDataGrabber(delegate, this.bucket, RequestPriority.Background);
+    }
+
+    /**
+     * Creates a view of a rate limited grabber that shares its token bucket.
+     */
+    private RateLimitedDataGrabber(DataGrabber delegate, TokenBucket bucket, RequestPriority priority) {
+        super(delegate);
+        this.bucket = bucket;
+        this.priority = priority;
+        this.background = this;
+    }
+
+    /**
+     * Takes a permit for one request.
+     *
+     * @throws APICallException if interrupted while waiting
+     */
+    private void acquire() throws APICallException {
+        try {
+            this.bucket.acquire(this.priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APICallException("Interrupted while waiting to call the api.");
+        }
+    }
+
+    @Override
+    public DataGrabber background() {
+        return this.background;
+    }
+
+    /**
+     * Gets the token bucket shared by this grabber and its background view, for its queueing and wait metrics.
+     *
+     * @return the token bucket
+     */
+    public TokenBucket getBucket() {
+        return this.bucket;
+    }
+
+    @Override
+    public SecurityDetail getDetail(String ticker) throws APICallException {
+        this.acquire();
+        return this.delegate.getDetail(ticker);
+    }
+
+    @Override
+    public CompletableFuture<SecurityDetail> getDetailAsync(String ticker, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                this.acquire();
+            } catch (APICallException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(ignored -> this.delegate.getDetailAsync(ticker, executor));
+    }
+
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        List<String> pending = new ArrayList<String>(tickers);
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+
+        int from = 0;
+        while (from < pending.size()) {
+            // read for each chunk, since the delegate may stop batching part way through
+            int batchSize = Math.max(1, this.delegate.getMaxBatchSize());
+            List<String> chunk = pending.subList(from, Math.min(pending.size(), from + batchSize));
+            from += chunk.size();
+            details.putAll(this.getChunk(chunk));
+        }
+        return details;
+    }
+
+    /**
+     * Fetches a chunk no larger than the delegate's batch size, taking a token for every request made. If the
+     * delegate stops batching while the chunk is being fetched, the chunk is fetched again one ticker at a time.
+     */
+    private Map<String, SecurityDetail> getChunk(List<String> chunk) throws APICallException {
+        if (chunk.size() > 1) {
+            this.acquire();
+            try {
+                return this.delegate.getDetails(chunk);
+            } catch (APICallException e) {
+                if (this.delegate.getMaxBatchSize() >= chunk.size()) {
+                    throw e;
+                }
+            }
+        }
+
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+        for (String ticker : chunk) {
+            this.acquire();
+            try {
+                details.put(ticker, this.delegate.getDetail(ticker));
+            } catch (APICallException ignored) {
+            }
+        }
+        return details;
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        try {
+            this.acquire();
+        } catch (APICallException e) {
+            return new String[0];
+        }
+        return this.delegate.searchTicker(search);
+    }
+
+    @Override
+    public boolean testSetup() {
+        try {
+            this.acquire();
+        } catch (APICallException e) {
+            return false;
+        }
+        return this.delegate.testSetup();
+    }
+}
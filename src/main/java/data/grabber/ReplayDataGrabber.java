@@ -0,0 +1,245 @@
+package data.grabber;
+
+import data.market.securities.SecurityType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A data grabber that replays ticks recorded in a tick file (see TickFileWriter) instead of calling an api.
+ *
+ * The file is read through a memory mapped window that slides forward as the simulated clock advances, so files
+ * larger than the heap can be replayed. Only the latest price of each ticker is kept in memory.
+ */
+public class ReplayDataGrabber implements DataGrabber {
+
+    final int updateInterval = 1000;
+
+    // records per mapped window, about 640MB of file
+    private static final long WINDOW_RECORDS = 1L << 25;
+
+    private final FileChannel channel;
+    private final long recordsStart;
+    private final long recordCount;
+    private final String[] tickers;
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private final long[] latestPrices;
+    private final boolean[] seen;
+
+    private final double speed;
+    private final long firstTimestamp;
+    private final long startNanos;
+
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long nextRecord = 0;
+    private long simulatedTime;
+
+    /**
+     * Creates a grabber replaying the specified tick file.
+     *
+     * @param path the tick file
+     * @param speed how many simulated milliseconds pass per real millisecond. If this is 0, the clock only moves
+     *              when advanceTo is called.
+     * @throws IOException if the file cannot be read or is not a tick file
+     */
+    public ReplayDataGrabber(Path path, double speed) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.speed = speed;
+
+        ByteBuffer header = ByteBuffer.allocate(TickFileWriter.HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt() != TickFileWriter.MAGIC || header.getInt() != TickFileWriter.VERSION) {
+            this.channel.close();
+            throw new IOException("Not a tick file.");
+        }
+        int tickerCount = header.getInt();
+        this.recordCount = header.getLong();
+
+        // read the ticker index
+        this.tickers = new String[tickerCount];
+        long position = TickFileWriter.HEADER_SIZE;
+        ByteBuffer length = ByteBuffer.allocate(2);
+        for (int id = 0; id < tickerCount; id++) {
+            length.clear();
+            readFully(length, position);
+            ByteBuffer name = ByteBuffer.allocate(length.getShort() & 0xFFFF);
+            readFully(name, position + 2);
+            position += 2 + name.capacity();
+
+            this.tickers[id] = new String(name.array(), StandardCharsets.UTF_8);
+            this.ids.put(this.tickers[id], id);
+        }
+        this.recordsStart = position;
+
+        this.latestPrices = new long[tickerCount];
+        this.seen = new boolean[tickerCount];
+
+        this.mapWindow(0);
+        this.firstTimestamp = this.recordCount > 0 ? this.window.getLong(4) : 0;
+        this.simulatedTime = this.firstTimestamp;
+        this.advanceTo(this.firstTimestamp);
+        this.startNanos = System.nanoTime();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of tick file.");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Maps the window of records starting at the specified record.
+     */
+    private void mapWindow(long firstRecord) throws IOException {
+        long records = Math.min(WINDOW_RECORDS, this.recordCount - firstRecord);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                this.recordsStart + firstRecord * TickFileWriter.RECORD_SIZE,
+                records * TickFileWriter.RECORD_SIZE);
+        this.windowStart = firstRecord;
+    }
+
+    /**
+     * Moves the simulated clock forward to the specified time, applying every tick up to it.
+     *
+     * @param time the simulated time in milliseconds
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized void advanceTo(long time) throws IOException {
+        if (time < this.simulatedTime) {
+            return;
+        }
+        this.simulatedTime = time;
+
+        while (this.nextRecord < this.recordCount) {
+            if (this.nextRecord - this.windowStart >= WINDOW_RECORDS) {
+                this.mapWindow(this.nextRecord);
+            }
+            int offset = (int) ((this.nextRecord - this.windowStart) * TickFileWriter.RECORD_SIZE);
+            long timestamp = this.window.getLong(offset + 4);
+            if (timestamp > time) {
+                break;
+            }
+
+            int id = this.window.getInt(offset);
+            this.latestPrices[id] = this.window.getLong(offset + 12);
+            this.seen[id] = true;
+            this.nextRecord++;
+        }
+    }
+
+    /**
+     * Gets the current simulated time.
+     *
+     * @return the time in milliseconds
+     */
+    public synchronized long getSimulatedTime() {
+        return this.simulatedTime;
+    }
+
+    /**
+     * Advances the clock by however much simulated time has passed since the replay started.
+     */
+    private void tick() throws APICallException {
+        if (this.speed <= 0) {
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - this.startNanos) / 1_000_000;
+        try {
+            this.advanceTo(this.firstTimestamp + (long) (elapsedMillis * this.speed));
+        } catch (IOException e) {
+            throw new APICallException("Unable to read tick file.");
+        }
+    }
+
+    /**
+     * Gets the latest price of the specified ticker.
+     */
+    private synchronized SecurityDetail latest(String ticker) throws APICallException {
+        Integer id = this.ids.get(ticker);
+        if (id == null) {
+            throw new UnknownTickerException("The tick file has no ticks for that ticker.");
+        }
+        if (!this.seen[id]) {
+            throw new APICallException("Unable to get stock detail.");
+        }
+        return new SecurityDetail(ticker, BigDecimal.valueOf(this.latestPrices[id], TickFileWriter.PRICE_SCALE),
+                SecurityType.Stock);
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        return this.updateInterval;
+    }
+
+    @Override
+    public SecurityDetail getDetail(String ticker) throws APICallException {
+        this.tick();
+        return this.latest(ticker);
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        this.tick();
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+        for (String ticker : tickers) {
+            try {
+                details.put(ticker, this.latest(ticker));
+            } catch (APICallException ignored) {
+            }
+        }
+        return details;
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        String query = search.toUpperCase();
+        List<String> prefixMatches = new ArrayList<String>();
+        List<String> otherMatches = new ArrayList<String>();
+
+        for (String ticker : this.tickers) {
+            String upper = ticker.toUpperCase();
+            if (upper.startsWith(query)) {
+                prefixMatches.add(ticker);
+            }
+            else if (upper.contains(query)) {
+                otherMatches.add(ticker);
+            }
+        }
+
+        String[] prefix = prefixMatches.toArray(new String[0]);
+        String[] other = otherMatches.toArray(new String[0]);
+        Arrays.sort(prefix);
+        Arrays.sort(other);
+
+        String[] results = Arrays.copyOf(prefix, prefix.length + other.length);
+        System.arraycopy(other, 0, results, prefix.length, other.length);
+        return results;
+    }
+
+    @Override
+    public boolean testSetup() {
+        return this.recordCount > 0;
+    }
+}
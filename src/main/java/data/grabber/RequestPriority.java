@@ -0,0 +1,9 @@
+package data.grabber;
+
+/**
+ * How urgently a request to a data api is needed.
+ */
+public enum RequestPriority {
+    Foreground,
+    Background,
+}
@@ -9,6 +9,8 @@ public class SecurityDetail {
     private String ticker;
     private BigDecimal price;
     private SecurityType type;
+    private long volume;
+    private long timestamp;
 
     /**
      * Creates a new security detail with the specified parameters.
@@ -18,9 +20,24 @@ public class SecurityDetail {
      * @param type The type of the security.
      */
     public SecurityDetail(String ticker, BigDecimal price, SecurityType type) {
+        this(ticker, price, type, 0, 0);
+    }
+
+    /**
+     * Creates a new security detail with the specified parameters.
+     *
+     * @param ticker The ticker of the security.
+     * @param price The price of the security.
+     * @param type The type of the security.
+     * @param volume The volume traded so far in the trading day, or 0 if unknown.
+     * @param timestamp When the price was quoted in milliseconds since the epoch, or 0 if unknown.
+     */
+    public SecurityDetail(String ticker, BigDecimal price, SecurityType type, long volume, long timestamp) {
         this.ticker = ticker;
         this.price = price;
         this.type = type;
+        this.volume = volume;
+        this.timestamp = timestamp;
     }
 
     /**
@@ -49,4 +66,22 @@ public class SecurityDetail {
     public SecurityType getType() {
         return this.type;
     }
+
+    /**
+     * Gets the volume traded so far in the trading day of this detail.
+     *
+     * @return volume, or 0 if unknown
+     */
+    public long getVolume() {
+        return this.volume;
+    }
+
+    /**
+     * Gets the time the price in this detail was quoted.
+     *
+     * @return the time in milliseconds since the epoch, or 0 if unknown
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
 }
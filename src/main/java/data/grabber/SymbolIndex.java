@@ -0,0 +1,473 @@
+package data.grabber;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An in-memory index of ticker symbols and company names for instant ticker search.
+ *
+ * Every symbol, every word of a company name and the rest of the name from that word on is a key in a radix trie.
+ * Once built, the trie is packed into flat arrays: each node stores the edge label leading to it, a contiguous range
+ * of children, the listings whose keys end at it, and the best few listings anywhere below it, so a prefix lookup is
+ * a single walk down the trie. Queries with no prefix match fall back to a bounded edit distance search over the same trie.
+ */
+public class SymbolIndex {
+
+    static final int TOP_PER_NODE = 10;
+
+    /**
+     * A listing as read from the listing file.
+     */
+    private static class Listing {
+        final String symbol;
+        final String name;
+
+        Listing(String symbol, String name) {
+            this.symbol = symbol;
+            this.name = name;
+        }
+    }
+
+    /**
+     * A node of the trie while it is being built.
+     */
+    private static class BuildNode {
+        String label = "";
+        final TreeMap<Character, BuildNode> children = new TreeMap<Character, BuildNode>();
+        final List<Integer> values = new ArrayList<Integer>();
+    }
+
+    private final String[] symbols;
+
+    // the packed trie
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] depth;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] valueStart;
+    private final int[] valueCount;
+    private final int[] values;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] top;
+
+    /**
+     * Creates an index over the specified listings, which are ranked in the order given.
+     */
+    private SymbolIndex(List<Listing> listings) {
+        this.symbols = new String[listings.size()];
+        BuildNode root = new BuildNode();
+
+        // a value is a listing id shifted left, with the low bit set when the key came from the company name
+        for (int id = 0; id < listings.size(); id++) {
+            Listing listing = listings.get(id);
+            this.symbols[id] = listing.symbol;
+
+            Set<String> nameKeys = new LinkedHashSet<String>();
+            String name = normalize(listing.name);
+            if (!name.isEmpty()) {
+                // the name from each word onwards, so a search can start mid name, and each word alone
+                String[] words = name.split(" ");
+                for (int w = 0, start = 0; w < words.length; start += words[w].length() + 1, w++) {
+                    nameKeys.add(name.substring(start));
+                    nameKeys.add(words[w]);
+                }
+            }
+            insert(root, normalize(listing.symbol), id << 1);
+            for (String key : nameKeys) {
+                insert(root, key, (id << 1) | 1);
+            }
+        }
+        compress(root);
+
+        // number the nodes breadth first so every node's children are contiguous
+        List<BuildNode> order = new ArrayList<BuildNode>();
+        Deque<BuildNode> queue = new ArrayDeque<BuildNode>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            order.add(node);
+            queue.addAll(node.children.values());
+        }
+
+        int nodes = order.size();
+        this.labelStart = new int[nodes];
+        this.labelLength = new int[nodes];
+        this.depth = new int[nodes];
+        this.firstChild = new int[nodes];
+        this.childCount = new int[nodes];
+        this.valueStart = new int[nodes];
+        this.valueCount = new int[nodes];
+        this.topStart = new int[nodes];
+        this.topCount = new int[nodes];
+
+        StringBuilder labelPool = new StringBuilder();
+        List<Integer> valuePool = new ArrayList<Integer>();
+        int nextChild = 1;
+        for (int i = 0; i < nodes; i++) {
+            BuildNode node = order.get(i);
+            this.labelStart[i] = labelPool.length();
+            this.labelLength[i] = node.label.length();
+            labelPool.append(node.label);
+
+            this.firstChild[i] = nextChild;
+            this.childCount[i] = node.children.size();
+            for (int c = nextChild; c < nextChild + node.children.size(); c++) {
+                this.depth[c] = this.depth[i] + order.get(c).label.length();
+            }
+            nextChild += node.children.size();
+
+            this.valueStart[i] = valuePool.size();
+            this.valueCount[i] = node.values.size();
+            valuePool.addAll(node.values);
+        }
+        this.labels = labelPool.toString().toCharArray();
+        this.values = toArray(valuePool);
+
+        // the best listings below each node, computed bottom up
+        int[][] best = new int[nodes][];
+        for (int i = nodes - 1; i >= 0; i--) {
+            int[] candidates = Arrays.copyOfRange(this.values, this.valueStart[i],
+                    this.valueStart[i] + this.valueCount[i]);
+            for (int c = this.firstChild[i]; c < this.firstChild[i] + this.childCount[i]; c++) {
+                candidates = merge(candidates, best[c]);
+            }
+            best[i] = candidates;
+        }
+        List<Integer> topPool = new ArrayList<Integer>();
+        for (int i = 0; i < nodes; i++) {
+            this.topStart[i] = topPool.size();
+            this.topCount[i] = best[i].length;
+            for (int value : best[i]) {
+                topPool.add(value);
+            }
+        }
+        this.top = toArray(topPool);
+    }
+
+    /**
+     * Loads an index from a listing file with a header row and the symbol and company name in the first two
+     * columns, such as the one returned by Alpha Vantage's LISTING_STATUS. Listings are ranked in file order.
+     *
+     * @param path the listing file
+     * @return the index
+     * @throws IOException if the file cannot be read
+     */
+    public static SymbolIndex load(Path path) throws IOException {
+        List<Listing> listings = new ArrayList<Listing>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = splitCsv(line);
+                if (fields.size() >= 1 && !fields.get(0).isEmpty()) {
+                    listings.add(new Listing(fields.get(0), fields.size() > 1 ? fields.get(1) : ""));
+                }
+            }
+        }
+        return new SymbolIndex(listings);
+    }
+
+    /**
+     * Creates an index from parallel arrays of symbols and company names, ranked in the order given.
+     *
+     * @param symbols the ticker symbols
+     * @param names the company names
+     * @return the index
+     */
+    public static SymbolIndex of(String[] symbols, String[] names) {
+        List<Listing> listings = new ArrayList<Listing>();
+        for (int i = 0; i < symbols.length; i++) {
+            listings.add(new Listing(symbols[i], names[i]));
+        }
+        return new SymbolIndex(listings);
+    }
+
+    /**
+     * Gets the number of listings in the index.
+     *
+     * @return the number of listings
+     */
+    public int size() {
+        return this.symbols.length;
+    }
+
+    /**
+     * Searches the index. Exact symbol matches come first, then symbols starting with the query, then company names
+     * starting with it. If nothing starts with the query, listings within a small edit distance are returned.
+     *
+     * @param search the string used as the search parameter
+     * @param limit the most results to return
+     * @return matching tickers, sorted from best match to worst
+     */
+    public String[] search(String search, int limit) {
+        String query = normalize(search);
+        Set<Integer> results = new LinkedHashSet<Integer>();
+        if (query.isEmpty() || limit <= 0) {
+            return new String[0];
+        }
+
+        int node = this.descend(query);
+        if (node >= 0) {
+            // keys ending exactly here, symbols first
+            if (this.depth[node] == query.length()) {
+                this.collect(this.values, this.valueStart[node], this.valueCount[node], results, limit);
+            }
+            this.collect(this.top, this.topStart[node], this.topCount[node], results, limit);
+        }
+        if (results.isEmpty()) {
+            this.fuzzy(query, query.length() <= 4 ? 1 : 2, results, limit);
+        }
+
+        String[] tickers = new String[results.size()];
+        int i = 0;
+        for (int id : results) {
+            tickers[i++] = this.symbols[id];
+        }
+        return tickers;
+    }
+
+    /**
+     * Finds the node whose key starts with the query, or -1 if no key does.
+     */
+    private int descend(String query) {
+        int node = 0;
+        int matched = 0;
+        while (matched < query.length()) {
+            int child = this.child(node, query.charAt(matched));
+            if (child < 0) {
+                return -1;
+            }
+            int length = this.labelLength[child];
+            for (int i = 0; i < length && matched < query.length(); i++, matched++) {
+                if (this.labels[this.labelStart[child] + i] != query.charAt(matched)) {
+                    return -1;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Finds the child of the node whose label starts with the specified character, or -1.
+     */
+    private int child(int node, char c) {
+        int low = this.firstChild[node];
+        int high = low + this.childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = this.labels[this.labelStart[mid]];
+            if (label < c) {
+                low = mid + 1;
+            }
+            else if (label > c) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds listings within the specified edit distance of the query to the results, closest first.
+     */
+    private void fuzzy(String query, int maxEdits, Set<Integer> results, int limit) {
+        List<List<Integer>> byDistance = new ArrayList<List<Integer>>();
+        for (int d = 0; d <= maxEdits; d++) {
+            byDistance.add(new ArrayList<Integer>());
+        }
+
+        int[] row = new int[query.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        for (int c = this.firstChild[0]; c < this.firstChild[0] + this.childCount[0]; c++) {
+            this.fuzzy(c, query, row, maxEdits, byDistance);
+        }
+
+        for (List<Integer> matches : byDistance) {
+            matches.sort(Integer::compare);
+            for (int value : matches) {
+                if (results.size() >= limit) {
+                    return;
+                }
+                results.add(value >>> 1);
+            }
+        }
+    }
+
+    /**
+     * Walks the node's label, extending the Levenshtein rows, and recurses into its children while a match within
+     * the edit distance is still possible.
+     */
+    private void fuzzy(int node, String query, int[] previous, int maxEdits, List<List<Integer>> byDistance) {
+        int[] row = previous;
+        for (int l = 0; l < this.labelLength[node]; l++) {
+            char c = this.labels[this.labelStart[node] + l];
+            int[] next = new int[row.length];
+            next[0] = row[0] + 1;
+            int best = next[0];
+            for (int i = 1; i < row.length; i++) {
+                int cost = query.charAt(i - 1) == c ? 0 : 1;
+                next[i] = Math.min(Math.min(next[i - 1] + 1, row[i] + 1), row[i - 1] + cost);
+                best = Math.min(best, next[i]);
+            }
+            if (best > maxEdits) {
+                return;
+            }
+            row = next;
+        }
+
+        int distance = row[row.length - 1];
+        if (distance <= maxEdits) {
+            for (int v = this.valueStart[node]; v < this.valueStart[node] + this.valueCount[node]; v++) {
+                byDistance.get(distance).add(this.values[v]);
+            }
+        }
+        for (int c = this.firstChild[node]; c < this.firstChild[node] + this.childCount[node]; c++) {
+            this.fuzzy(c, query, row, maxEdits, byDistance);
+        }
+    }
+
+    private void collect(int[] pool, int start, int count, Set<Integer> results, int limit) {
+        for (int i = start; i < start + count && results.size() < limit; i++) {
+            results.add(pool[i] >>> 1);
+        }
+    }
+
+    /**
+     * Merges two sorted lists of values, keeping the best TOP_PER_NODE distinct values. Symbol keys rank above name
+     * keys, and earlier listings above later ones.
+     */
+    private static int[] merge(int[] a, int[] b) {
+        int[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        Integer[] boxed = new Integer[all.length];
+        for (int i = 0; i < all.length; i++) {
+            boxed[i] = all[i];
+        }
+        Arrays.sort(boxed, (x, y) -> (x & 1) != (y & 1) ? Integer.compare(x & 1, y & 1) : Integer.compare(x, y));
+
+        int[] merged = new int[Math.min(TOP_PER_NODE, boxed.length)];
+        Set<Integer> seen = new LinkedHashSet<Integer>();
+        int count = 0;
+        for (Integer value : boxed) {
+            if (count == merged.length) {
+                break;
+            }
+            if (seen.add(value >>> 1)) {
+                merged[count++] = value;
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    private static void insert(BuildNode root, String key, int value) {
+        if (key.isEmpty()) {
+            return;
+        }
+        BuildNode node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            BuildNode child = node.children.get(c);
+            if (child == null) {
+                child = new BuildNode();
+                child.label = String.valueOf(c);
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        if (!node.values.contains(value)) {
+            node.values.add(value);
+        }
+    }
+
+    /**
+     * Merges chains of nodes with a single child and no values into one node with a longer label.
+     */
+    private static void compress(BuildNode node) {
+        for (Map.Entry<Character, BuildNode> entry : node.children.entrySet()) {
+            BuildNode child = entry.getValue();
+            while (child.children.size() == 1 && child.values.isEmpty()) {
+                BuildNode only = child.children.firstEntry().getValue();
+                only.label = child.label + only.label;
+                child = only;
+            }
+            entry.setValue(child);
+            compress(child);
+        }
+    }
+
+    /**
+     * Upper cases a key and reduces it to letters, digits, dots and single spaces.
+     */
+    private static String normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean space = false;
+        for (char c : text.toUpperCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+                if (space && builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(c);
+                space = false;
+            }
+            else {
+                space = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                }
+                else {
+                    quoted = !quoted;
+                }
+            }
+            else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,177 @@
+package data.grabber;
+
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A data grabber that makes up prices for a universe of tickers, without any I/O. Each ticker follows its own
+ * geometric Brownian motion driven by a random generator seeded from the universe seed, so the same queries made at
+ * the same ticks always see the same prices, whatever order tickers are queried in. A ticker jumps straight to the
+ * tick it is queried at, however long it has gone unqueried.
+ */
+public class SyntheticDataGrabber implements DataGrabber {
+
+    static final String TICKER_PREFIX = "SYN";
+    static final double MIN_START_PRICE = 10;
+    static final double MAX_START_PRICE = 500;
+
+    private final String[] tickers;
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final Random[] randoms;
+    private final double[] prices;
+    private final long[] steps;
+
+    private final double tickRate;
+    private final double stepDrift;
+    private final double stepVolatility;
+    private final long startNanos;
+
+    private volatile long manualSteps = 0;
+
+    /**
+     * Creates a synthetic market.
+     *
+     * @param universeSize the number of tickers in the market
+     * @param seed the seed all prices are derived from
+     * @param tickRate the number of ticks per second. If this is 0, prices only move when advance is called.
+     * @param drift the expected log return of a ticker per tick
+     * @param volatility the standard deviation of the log return of a ticker per tick
+     */
+    public SyntheticDataGrabber(int universeSize, long seed, double tickRate, double drift, double volatility) {
+        if (universeSize < 0) {
+            throw new IllegalArgumentException("The universe size cannot be negative.");
+        }
+        this.tickers = new String[universeSize];
+        this.randoms = new Random[universeSize];
+        this.prices = new double[universeSize];
+        this.steps = new long[universeSize];
+
+        this.tickRate = tickRate;
+        this.stepDrift = drift - volatility * volatility / 2;
+        this.stepVolatility = volatility;
+
+        Random seeds = new Random(seed);
+        for (int id = 0; id < universeSize; id++) {
+            this.tickers[id] = String.format("%s%05d", TICKER_PREFIX, id);
+            this.ids.put(this.tickers[id], id);
+            this.randoms[id] = new Random(seeds.nextLong());
+            this.prices[id] = MIN_START_PRICE + seeds.nextDouble() * (MAX_START_PRICE - MIN_START_PRICE);
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Moves every ticker forward by the specified number of ticks, on top of any driven by the tick rate.
+     *
+     * @param ticks the number of ticks
+     */
+    public synchronized void advance(long ticks) {
+        this.manualSteps += ticks;
+    }
+
+    /**
+     * Gets the tick the market is currently at.
+     *
+     * @return the tick
+     */
+    public long currentTick() {
+        long steps = this.manualSteps;
+        if (this.tickRate > 0) {
+            steps += (long) ((System.nanoTime() - this.startNanos) * this.tickRate / 1_000_000_000L);
+        }
+        return steps;
+    }
+
+    /**
+     * Gets every ticker in the market.
+     *
+     * @return the tickers
+     */
+    public String[] getTickers() {
+        return this.tickers.clone();
+    }
+
+    /**
+     * Moves the specified ticker forward to the specified tick and returns its price. The sum of n log returns is
+     * normal with n times the mean and variance of one, so any number of ticks is a single draw.
+     */
+    private double priceAt(int id, long tick) {
+        Random random = this.randoms[id];
+        synchronized (random) {
+            if (tick > this.steps[id]) {
+                double n = tick - this.steps[id];
+                this.prices[id] *= Math.exp(n * this.stepDrift + this.stepVolatility * Math.sqrt(n)
+                        * random.nextGaussian());
+                this.steps[id] = tick;
+            }
+            return this.prices[id];
+        }
+    }
+
+    /**
+     * Gets the detail of the specified ticker at the specified tick.
+     */
+    private SecurityDetail detailAt(String ticker, long tick) throws APICallException {
+        Integer id = this.ids.get(ticker);
+        if (id == null) {
+            throw new UnknownTickerException("No security has that ticker.");
+        }
+        long micros = Math.round(this.priceAt(id, tick) * 1_000_000);
+        return new SecurityDetail(ticker, BigDecimal.valueOf(micros, 6), SecurityType.Stock);
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        if (this.tickRate <= 0) {
+            return 1000;
+        }
+        return (int) Math.max(1, Math.round(1000 / this.tickRate));
+    }
+
+    @Override
+    public SecurityDetail getDetail(String ticker) throws APICallException {
+        return this.detailAt(ticker, this.currentTick());
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+        long tick = this.currentTick();
+        Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+        for (String ticker : tickers) {
+            try {
+                details.put(ticker, this.detailAt(ticker, tick));
+            } catch (APICallException ignored) {
+            }
+        }
+        return details;
+    }
+
+    @Override
+    public String[] searchTicker(String search) {
+        String query = search.toUpperCase();
+        List<String> matches = new ArrayList<String>();
+        for (String ticker : this.tickers) {
+            if (ticker.startsWith(query)) {
+                matches.add(ticker);
+            }
+        }
+        return matches.toArray(new String[0]);
+    }
+
+    @Override
+    public boolean testSetup() {
+        return this.tickers.length > 0;
+    }
+}
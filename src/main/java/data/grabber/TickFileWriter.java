@@ -0,0 +1,117 @@
+package data.grabber;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tick files that can be replayed by a ReplayDataGrabber.
+ *
+ * A tick file starts with a header (magic, version, ticker count, record count), followed by the ticker index (each
+ * ticker as a length-prefixed UTF-8 string, its position in the index being its id), followed by fixed size records
+ * of ticker id, timestamp in milliseconds and price in millionths. Records must be written in timestamp order.
+ */
+public class TickFileWriter implements Closeable {
+
+    static final int MAGIC = 0x5449434B;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int RECORD_SIZE = 20;
+    static final int PRICE_SCALE = 6;
+
+    private static final int BUFFERED_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * BUFFERED_RECORDS);
+
+    private long records = 0;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Creates a tick file for the specified tickers, replacing any existing file.
+     *
+     * @param path the location of the file
+     * @param tickers the tickers that will have ticks in the file
+     * @throws IOException if the file cannot be written
+     */
+    public TickFileWriter(Path path, List<String> tickers) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        int indexSize = 0;
+        for (String ticker : tickers) {
+            indexSize += 2 + ticker.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + indexSize);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(tickers.size());
+        header.putLong(0);
+        for (String ticker : tickers) {
+            byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+            header.putShort((short) bytes.length);
+            header.put(bytes);
+            this.ids.put(ticker, this.ids.size());
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+    }
+
+    /**
+     * Appends a tick to the file.
+     *
+     * @param ticker the ticker, which must have been listed when the file was created
+     * @param timestamp the time of the tick in milliseconds, no earlier than the previous tick
+     * @param price the price in millionths
+     * @throws IOException if the tick cannot be written
+     */
+    public void write(String ticker, long timestamp, long price) throws IOException {
+        Integer id = this.ids.get(ticker);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown ticker " + ticker + ".");
+        }
+        if (timestamp < this.lastTimestamp) {
+            throw new IllegalArgumentException("Ticks must be written in timestamp order.");
+        }
+        if (!this.buffer.hasRemaining()) {
+            this.flush();
+        }
+        this.buffer.putInt(id);
+        this.buffer.putLong(timestamp);
+        this.buffer.putLong(price);
+        this.lastTimestamp = timestamp;
+        this.records++;
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+            ByteBuffer count = ByteBuffer.allocate(8);
+            count.putLong(this.records);
+            count.flip();
+            this.channel.write(count, 12);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
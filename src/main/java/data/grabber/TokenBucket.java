@@ -0,0 +1,183 @@
+package data.grabber;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A token bucket that hands out permits at a fixed rate, allowing short bursts. Foreground requests are always
+ * served before background requests that are waiting at the same time.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double tokens;
+    private long lastRefill;
+
+    private int waitingForeground = 0;
+    private int waitingBackground = 0;
+
+    private long acquired = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+
+    /**
+     * Creates a full token bucket.
+     *
+     * @param permitsPerSecond the rate at which permits are added
+     * @param burst the maximum number of permits that can be saved up
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("The rate and burst must be positive.");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Waits until a permit is available and takes it.
+     *
+     * @param priority the priority of the request the permit is for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(RequestPriority priority) throws InterruptedException {
+        boolean foreground = priority == RequestPriority.Foreground;
+        long start = System.nanoTime();
+
+        lock.lock();
+        try {
+            if (foreground) {
+                this.waitingForeground++;
+            }
+            else {
+                this.waitingBackground++;
+            }
+
+            try {
+                while (true) {
+                    this.refill();
+                    boolean ourTurn = foreground || this.waitingForeground == 0;
+                    if (ourTurn && this.tokens >= 1) {
+                        this.tokens -= 1;
+                        break;
+                    }
+
+                    // background requests wait to be signalled by the foreground ones ahead of them
+                    if (!ourTurn) {
+                        this.changed.await();
+                    }
+                    else {
+                        long wait = (long) Math.ceil((1 - this.tokens) / this.permitsPerNano);
+                        this.changed.awaitNanos(Math.max(wait, 1));
+                    }
+                }
+            } finally {
+                if (foreground) {
+                    this.waitingForeground--;
+                }
+                else {
+                    this.waitingBackground--;
+                }
+                this.changed.signalAll();
+            }
+
+            long waited = System.nanoTime() - start;
+            this.acquired++;
+            this.totalWaitNanos += waited;
+            this.maxWaitNanos = Math.max(this.maxWaitNanos, waited);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the permits earned since the last refill.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill) * this.permitsPerNano);
+        this.lastRefill = now;
+    }
+
+    /**
+     * Gets the number of foreground requests waiting for a permit.
+     *
+     * @return the number of requests
+     */
+    public int getQueuedForeground() {
+        lock.lock();
+        try {
+            return this.waitingForeground;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of background requests waiting for a permit.
+     *
+     * @return the number of requests
+     */
+    public int getQueuedBackground() {
+        lock.lock();
+        try {
+            return this.waitingBackground;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of permits handed out so far.
+     *
+     * @return the number of permits
+     */
+    public long getAcquired() {
+        lock.lock();
+        try {
+            return this.acquired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the average time requests have waited for a permit.
+     *
+     * @return the average wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        lock.lock();
+        try {
+            if (this.acquired == 0) {
+                return 0;
+            }
+            return (double) this.totalWaitNanos / this.acquired / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the longest time a request has waited for a permit.
+     *
+     * @return the wait in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        lock.lock();
+        try {
+            return (double) this.maxWaitNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package data.grabber;
+
+/**
+ * Thrown when a provider answers that a ticker does not exist, as opposed to failing to answer at all.
+ */
+public class UnknownTickerException extends APICallException {
+
+    public UnknownTickerException(String errorMessage) {
+        super(errorMessage);
+    }
+}
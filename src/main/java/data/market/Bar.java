@@ -0,0 +1,91 @@
+package data.market;
+
+import java.math.BigDecimal;
+
+/**
+ * The open, high, low and close prices of a security over one period, and the number of ticks they came from.
+ */
+public final class Bar {
+
+    private final long start;
+    private final long open;
+    private final long high;
+    private final long low;
+    private final long close;
+    private final int ticks;
+
+    /**
+     * Creates a bar.
+     *
+     * @param start when the period starts, in milliseconds since the epoch
+     * @param open the first price in micros
+     * @param high the highest price in micros
+     * @param low the lowest price in micros
+     * @param close the last price in micros
+     * @param ticks the number of ticks in the period
+     */
+    public Bar(long start, long open, long high, long low, long close, int ticks) {
+        this.start = start;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.ticks = ticks;
+    }
+
+    /**
+     * Gets when the period starts.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getStart() {
+        return this.start;
+    }
+
+    public BigDecimal getOpen() {
+        return Price.toBigDecimal(this.open);
+    }
+
+    public BigDecimal getHigh() {
+        return Price.toBigDecimal(this.high);
+    }
+
+    public BigDecimal getLow() {
+        return Price.toBigDecimal(this.low);
+    }
+
+    public BigDecimal getClose() {
+        return Price.toBigDecimal(this.close);
+    }
+
+    public long getOpenMicros() {
+        return this.open;
+    }
+
+    public long getHighMicros() {
+        return this.high;
+    }
+
+    public long getLowMicros() {
+        return this.low;
+    }
+
+    public long getCloseMicros() {
+        return this.close;
+    }
+
+    /**
+     * Gets the number of ticks the bar was built from.
+     *
+     * @return the number of ticks
+     */
+    public int getTicks() {
+        return this.ticks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d O %s H %s L %s C %s (%d)", this.start, Price.toString(this.open),
+                Price.toString(this.high), Price.toString(this.low), Price.toString(this.close), this.ticks);
+    }
+}
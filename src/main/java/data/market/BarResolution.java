@@ -0,0 +1,25 @@
+package data.market;
+
+/**
+ * The length of time each OHLC bar covers.
+ */
+public enum BarResolution {
+    Second(1000),
+    Minute(60000),
+    Hour(3600000);
+
+    private final long millis;
+
+    BarResolution(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * Gets the length of a bar.
+     *
+     * @return the length in milliseconds
+     */
+    public long getMillis() {
+        return this.millis;
+    }
+}
@@ -1,10 +1,15 @@
 package data.market;
 
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionGreeks;
+import data.market.risk.CovarianceMatrix;
 import data.market.securities.Security;
 import data.market.securities.SecurityType;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * A representation of a market containing various securities.
@@ -12,7 +17,8 @@ import java.util.Collection;
 public interface Market {
 
     /**
-     * Gets the a collection of the securities in our model.
+     * Gets the a collection of the securities in our model. The collection is a read-only live view that can be
+     * iterated safely while the market changes.
      *
      * @return a collection of securities
      */
@@ -25,6 +31,56 @@ public interface Market {
      */
     Security getSecurity(String ticker);
 
+    /**
+     * Returns the security with the specified symbol id, without hashing its ticker.
+     * @param symbol the id of the security's ticker in the symbol table.
+     * @return the security, or null if there is no security in our model with the specified id.
+     */
+    Security getSecurity(int symbol);
+
+    /**
+     * Gets the most recently published snapshot of the market's prices. Taking a snapshot does not copy anything,
+     * unless securities have been added or removed since the last one was published. A new one is then made from the
+     * last, with only those securities' quotes changed, so it still holds the prices of a single refresh cycle.
+     *
+     * @return the snapshot
+     */
+    MarketSnapshot snapshot();
+
+    /**
+     * Publishes a new snapshot of every security's current price. The Updater publishes one after each refresh cycle,
+     * so snapshots never mix prices from different cycles.
+     *
+     * @return the new snapshot
+     */
+    MarketSnapshot publish();
+
+    /**
+     * Gets the rolling covariance of the returns of the market's securities, sampled each time a snapshot is
+     * published. Samples are taken in the background, and this waits until those of every snapshot published so far
+     * have been taken.
+     *
+     * @return the covariance matrix
+     */
+    CovarianceMatrix getCovariance();
+
+    /**
+     * Gets the model price and greeks of an option, as priced from its underlying's latest price.
+     *
+     * @param ticker the option's symbol
+     * @return the greeks, or null if the ticker is not an option in the market or its underlying has no price
+     */
+    OptionGreeks getGreeks(String ticker);
+
+    /**
+     * Sets the annual volatility the options on an underlying are priced with.
+     *
+     * @param underlying the underlying's ticker
+     * @param volatility the volatility, such as 0.25 for 25%
+     * @throws IllegalArgumentException if the volatility is not positive
+     */
+    void setVolatility(String underlying, double volatility);
+
     /**
      * Gets the price of the specified security.
      *
@@ -34,6 +90,50 @@ public interface Market {
      */
     BigDecimal getPrice(String ticker) throws SecurityNotFoundException;
 
+    /**
+     * Gets the OHLC bars of the specified security that start within a range of time. Only recent bars are kept, so
+     * older parts of the range come back empty.
+     *
+     * @param ticker the security's ticker
+     * @param resolution the length of each bar
+     * @param from the earliest start, inclusive, in milliseconds since the epoch
+     * @param to the latest start, exclusive, in milliseconds since the epoch
+     * @return the bars, oldest first
+     * @throws SecurityNotFoundException if no security can be found with the specified ticker.
+     */
+    List<Bar> getBars(String ticker, BarResolution resolution, long from, long to) throws SecurityNotFoundException;
+
+    /**
+     * Starts keeping an indicator for the specified security, seeded with the security's recent prices. Indicators
+     * are kept by ticker, so they carry on if the security is removed and added again.
+     *
+     * @param ticker the security's ticker
+     * @param type the indicator's type
+     * @param period the indicator's period, in ticks
+     * @return true if the indicator was added, false if it was already being kept
+     * @throws IllegalArgumentException if the period is less than 1
+     */
+    boolean addIndicator(String ticker, IndicatorType type, int period);
+
+    /**
+     * Stops keeping an indicator for the specified security.
+     *
+     * @param ticker the security's ticker
+     * @param type the indicator's type
+     * @param period the indicator's period, in ticks
+     * @return true if the indicator was removed, false if it was not being kept
+     */
+    boolean removeIndicator(String ticker, IndicatorType type, int period);
+
+    /**
+     * Gets the current values of the indicators kept for the specified security, reflecting every price accepted
+     * before the call.
+     *
+     * @param ticker the security's ticker
+     * @return the values, in the order the indicators were added, or an empty list if there are none
+     */
+    List<IndicatorValue> getIndicators(String ticker);
+
     /**
      * Adds a security with the specified parameters to the market.
      * @param ticker the security's ticker
@@ -42,8 +142,66 @@ public interface Market {
      */
     void addSecurity(String ticker, SecurityType type, BigDecimal price);
 
+    /**
+     * Adds a security with the specified parameters to the market.
+     * @param ticker the security's ticker
+     * @param type the type of the security
+     * @param price the security's price
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     */
+    void addSecurity(String ticker, SecurityType type, BigDecimal price, long timestamp);
+
+    /**
+     * Removes the security with the specified ticker from the market, if it is there.
+     * @param ticker the security's ticker
+     */
+    void removeSecurity(String ticker);
+
     /**
      * Clears the market model.
      */
     void clear();
+
+    /**
+     * Stops the threads that react to price updates, once they have handled every price accepted so far. Prices can
+     * still be updated afterwards, but bars, indicators, options and listeners no longer follow them.
+     */
+    void close();
+
+    /**
+     * Subscribes a listener to changes in the price of the specified security. Listeners are called on a separate
+     * dispatcher thread, and only when the price actually changes.
+     *
+     * @param ticker the security's ticker
+     * @param listener the listener
+     */
+    void subscribe(String ticker, PriceListener listener);
+
+    /**
+     * Subscribes a listener to changes in the price of every security.
+     *
+     * @param listener the listener
+     */
+    void subscribeAll(PriceListener listener);
+
+    /**
+     * Removes every subscription of the specified listener.
+     *
+     * @param listener the listener
+     */
+    void unsubscribe(PriceListener listener);
+
+    /**
+     * Adds a listener that is told about every price the market accepts, on the thread that updated it.
+     *
+     * @param listener the listener
+     */
+    void addTickListener(TickListener listener);
+
+    /**
+     * Removes a tick listener.
+     *
+     * @param listener the listener
+     */
+    void removeTickListener(TickListener listener);
 }
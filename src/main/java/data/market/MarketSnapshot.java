@@ -0,0 +1,105 @@
+package data.market;
+
+import data.market.securities.Quote;
+
+import java.util.Arrays;
+
+/**
+ * An immutable view of every price in a market at one point in time. Snapshots are numbered by an epoch that goes up
+ * each time the market publishes a new one, so two readers holding snapshots with the same epoch saw the same prices.
+ * Reading a snapshot never locks and never sees a price change part way through.
+ */
+public final class MarketSnapshot {
+
+    private final long epoch;
+    private final long timestamp;
+    private final Quote[] quotes;
+    private final int size;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param epoch the snapshot's number
+     * @param timestamp when the snapshot was taken, in milliseconds since the epoch
+     * @param quotes each security's quote, indexed by symbol id, with null for symbols not in the market. The array
+     *               is kept, so it must not be changed afterwards.
+     * @param size the number of securities in the snapshot
+     */
+    MarketSnapshot(long epoch, long timestamp, Quote[] quotes, int size) {
+        this.epoch = epoch;
+        this.timestamp = timestamp;
+        this.quotes = quotes;
+        this.size = size;
+    }
+
+    /**
+     * Copies the quotes, for a snapshot that differs from this one in only a few securities.
+     *
+     * @param length the least length of the copy
+     * @return the copy, indexed by symbol id
+     */
+    Quote[] copyQuotes(int length) {
+        return Arrays.copyOf(this.quotes, Math.max(length, this.quotes.length));
+    }
+
+    /**
+     * Gets the snapshot's number. Later snapshots of the same market have larger epochs.
+     *
+     * @return the epoch
+     */
+    public long getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Gets when the snapshot was taken.
+     *
+     * @return the time, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Gets the number of securities in the snapshot.
+     *
+     * @return the number of securities
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the quote of the security with the specified symbol id.
+     *
+     * @param symbol the id of the security's ticker in the symbol table
+     * @return the quote, or null if the security was not in the market
+     */
+    public Quote getQuote(int symbol) {
+        if (symbol < 0 || symbol >= this.quotes.length) {
+            return null;
+        }
+        return this.quotes[symbol];
+    }
+
+    /**
+     * Gets the quote of the security with the specified ticker.
+     *
+     * @param ticker the security's ticker
+     * @return the quote, or null if the security was not in the market
+     */
+    public Quote getQuote(String ticker) {
+        return this.getQuote(Symbols.id(ticker));
+    }
+
+    /**
+     * Gets the price of the security with the specified symbol id.
+     *
+     * @param symbol the id of the security's ticker in the symbol table
+     * @return the price in micros, or Price.NONE if the security was not in the market
+     */
+    public long getPriceMicros(int symbol) {
+        Quote quote = this.getQuote(symbol);
+        return quote == null ? Price.NONE : quote.getPriceMicros();
+    }
+}
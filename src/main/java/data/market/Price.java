@@ -0,0 +1,120 @@
+package data.market;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point prices. A price is held in a long as a whole number of millionths (micros), so prices and values can
+ * be added and multiplied without allocating. All arithmetic is exact and throws ArithmeticException on overflow
+ * rather than wrapping; a long of micros holds values up to about 9.2 trillion. Prices are converted to and from
+ * BigDecimal only where they enter or leave the program.
+ */
+public final class Price {
+
+    /** The number of decimal places kept. */
+    public static final int SCALE = 6;
+
+    /** One, in micros. */
+    public static final long ONE = 1_000_000L;
+
+    /** Stands in for a missing price. It is not a valid price, so it must be checked for before doing arithmetic. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private Price() {}
+
+    /**
+     * Converts a decimal to micros, rounding half to even past the sixth decimal place.
+     *
+     * @param price the price, or null
+     * @return the price in micros, or NONE if the price is null
+     * @throws ArithmeticException if the price is too large
+     */
+    public static long fromBigDecimal(BigDecimal price) {
+        if (price == null) {
+            return NONE;
+        }
+        return price.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts micros to a decimal with six decimal places.
+     *
+     * @param micros the price in micros, or NONE
+     * @return the price, or null if it is NONE
+     */
+    public static BigDecimal toBigDecimal(long micros) {
+        if (micros == NONE) {
+            return null;
+        }
+        return BigDecimal.valueOf(micros, SCALE);
+    }
+
+    /**
+     * Multiplies a price by a quantity.
+     *
+     * @param micros the price in micros
+     * @param quantity the quantity
+     * @return the value in micros
+     * @throws ArithmeticException if the value overflows
+     */
+    public static long multiply(long micros, long quantity) {
+        return Math.multiplyExact(micros, quantity);
+    }
+
+    /**
+     * Adds two amounts.
+     *
+     * @param a an amount in micros
+     * @param b an amount in micros
+     * @return the sum in micros
+     * @throws ArithmeticException if the sum overflows
+     */
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Subtracts one amount from another.
+     *
+     * @param a an amount in micros
+     * @param b an amount in micros
+     * @return the difference in micros
+     * @throws ArithmeticException if the difference overflows
+     */
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Converts a price to a double, for statistics where rounding does not matter.
+     *
+     * @param micros the price in micros
+     * @return the price in dollars, or NaN if micros is NONE
+     */
+    public static double toDouble(long micros) {
+        return micros == NONE ? Double.NaN : micros / (double) ONE;
+    }
+
+    /**
+     * Converts a double to micros, rounding to the nearest micro.
+     *
+     * @param price the price in dollars
+     * @return the price in micros, or NONE if the price is NaN or infinite
+     */
+    public static long fromDouble(double price) {
+        if (Double.isNaN(price) || Double.isInfinite(price)) {
+            return NONE;
+        }
+        return Math.round(price * ONE);
+    }
+
+    /**
+     * Formats a price the way BigDecimal would.
+     *
+     * @param micros the price in micros
+     * @return the price as a string
+     */
+    public static String toString(long micros) {
+        return micros == NONE ? "null" : toBigDecimal(micros).toPlainString();
+    }
+}
@@ -0,0 +1,86 @@
+package data.market;
+
+import data.market.bus.PriceEventHandler;
+import data.market.securities.Security;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Passes price changes on to the listeners subscribed to them. The dispatcher consumes a market's price bus, so
+ * changes are delivered in order on the bus consumer's thread and a slow listener never holds up the thread that
+ * updated the price. Prices that did not change are skipped without allocating anything.
+ */
+public class PriceDispatcher implements PriceEventHandler {
+
+    private final ConcurrentMap<String, List<PriceListener>> tickerListeners =
+            new ConcurrentHashMap<String, List<PriceListener>>();
+    private final List<PriceListener> allListeners = new CopyOnWriteArrayList<PriceListener>();
+
+    /**
+     * Subscribes a listener to changes in the price of the specified security.
+     *
+     * @param ticker the security's ticker
+     * @param listener the listener
+     */
+    public void subscribe(String ticker, PriceListener listener) {
+        this.tickerListeners.computeIfAbsent(ticker, t -> new CopyOnWriteArrayList<PriceListener>()).add(listener);
+    }
+
+    /**
+     * Subscribes a listener to changes in the price of every security.
+     *
+     * @param listener the listener
+     */
+    public void subscribeAll(PriceListener listener) {
+        this.allListeners.add(listener);
+    }
+
+    /**
+     * Removes every subscription of the specified listener.
+     *
+     * @param listener the listener
+     */
+    public void unsubscribe(PriceListener listener) {
+        this.allListeners.remove(listener);
+        for (List<PriceListener> listeners : this.tickerListeners.values()) {
+            listeners.remove(listener);
+        }
+    }
+
+    @Override
+    public void onEvent(Security security, long timestamp, long oldMicros, long newMicros, long volume,
+                        boolean endOfBatch) {
+        // a new security, or an unchanged price, is not a change
+        if (oldMicros == Price.NONE || oldMicros == newMicros) {
+            return;
+        }
+
+        String ticker = security.getTicker();
+        List<PriceListener> listeners = this.tickerListeners.get(ticker);
+        boolean hasTickerListeners = listeners != null && !listeners.isEmpty();
+        if (!hasTickerListeners && this.allListeners.isEmpty()) {
+            return;
+        }
+
+        BigDecimal oldPrice = Price.toBigDecimal(oldMicros);
+        BigDecimal newPrice = Price.toBigDecimal(newMicros);
+        if (hasTickerListeners) {
+            deliver(listeners, ticker, oldPrice, newPrice);
+        }
+        deliver(this.allListeners, ticker, oldPrice, newPrice);
+    }
+
+    private static void deliver(List<PriceListener> listeners, String ticker, BigDecimal oldPrice,
+                                BigDecimal newPrice) {
+        for (PriceListener listener : listeners) {
+            try {
+                listener.priceChanged(ticker, oldPrice, newPrice);
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+}
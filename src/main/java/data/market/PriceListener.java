@@ -0,0 +1,18 @@
+package data.market;
+
+import java.math.BigDecimal;
+
+/**
+ * Listens for changes to the prices of securities in a market.
+ */
+public interface PriceListener {
+
+    /**
+     * Called after the price of a security changes.
+     *
+     * @param ticker the security's ticker
+     * @param oldPrice the previous price
+     * @param newPrice the new price
+     */
+    void priceChanged(String ticker, BigDecimal oldPrice, BigDecimal newPrice);
+}
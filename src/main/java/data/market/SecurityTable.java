@@ -0,0 +1,148 @@
+package data.market;
+
+import data.market.securities.Security;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free table of securities indexed by symbol id. Slots live in fixed size pages that are created the first
+ * time an id in their range is used, so the table grows with the symbol table without ever copying, and a write can
+ * never be lost to a resize.
+ */
+class SecurityTable extends AbstractCollection<Security> {
+
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int MAX_PAGES = 1 << 16;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Security>> pages =
+            new AtomicReferenceArray<AtomicReferenceArray<Security>>(MAX_PAGES);
+    private final AtomicInteger count = new AtomicInteger();
+
+    private AtomicReferenceArray<Security> page(int id, boolean create) {
+        int index = id >>> PAGE_BITS;
+        if (index >= MAX_PAGES) {
+            throw new IndexOutOfBoundsException("Too many symbols for the market.");
+        }
+        AtomicReferenceArray<Security> page = this.pages.get(index);
+        if (page == null && create) {
+            this.pages.compareAndSet(index, null, new AtomicReferenceArray<Security>(PAGE_SIZE));
+            page = this.pages.get(index);
+        }
+        return page;
+    }
+
+    /**
+     * Gets the security with the specified symbol id.
+     *
+     * @param id the symbol id
+     * @return the security, or null if there is none
+     */
+    Security get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        AtomicReferenceArray<Security> page = this.page(id, false);
+        return page == null ? null : page.get(id & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * Stores a security under the specified symbol id, unless one is already there.
+     *
+     * @param id the symbol id
+     * @param security the security
+     * @return the security already there, or null if the security was stored
+     */
+    Security putIfAbsent(int id, Security security) {
+        AtomicReferenceArray<Security> page = this.page(id, true);
+        int slot = id & (PAGE_SIZE - 1);
+        while (!page.compareAndSet(slot, null, security)) {
+            Security existing = page.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        this.count.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Removes the security with the specified symbol id.
+     *
+     * @param id the symbol id
+     */
+    void remove(int id) {
+        AtomicReferenceArray<Security> page = id < 0 ? null : this.page(id, false);
+        if (page != null && page.getAndSet(id & (PAGE_SIZE - 1), null) != null) {
+            this.count.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int index = 0; index < MAX_PAGES; index++) {
+            AtomicReferenceArray<Security> page = this.pages.get(index);
+            if (page == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if (page.getAndSet(slot, null) != null) {
+                    this.count.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.count.get();
+    }
+
+    /**
+     * Iterates the securities in symbol id order. Like the iterators of the concurrent collections, it never throws
+     * ConcurrentModificationException and may or may not see changes made after it was created.
+     */
+    @Override
+    public Iterator<Security> iterator() {
+        return new Iterator<Security>() {
+            private int id = -1;
+            private Security next = this.advance();
+
+            private Security advance() {
+                int end = Symbols.size();
+                while (++this.id < end) {
+                    AtomicReferenceArray<Security> page = SecurityTable.this.pages.get(this.id >>> PAGE_BITS);
+                    if (page == null) {
+                        // skip the rest of a page that was never used
+                        this.id |= PAGE_SIZE - 1;
+                        continue;
+                    }
+                    Security security = page.get(this.id & (PAGE_SIZE - 1));
+                    if (security != null) {
+                        return security;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Security next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                Security security = this.next;
+                this.next = this.advance();
+                return security;
+            }
+        };
+    }
+}
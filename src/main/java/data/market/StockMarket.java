@@ -1,93 +1,457 @@
 package data.market;
 
+import data.market.bus.BusConsumer;
+import data.market.bus.PriceBus;
+import data.market.bus.WaitStrategy;
+import data.market.indicators.IndicatorSet;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionContract;
+import data.market.options.OptionGreeks;
+import data.market.options.OptionPricer;
+import data.market.risk.CovarianceMatrix;
+import data.market.securities.AbstractSecurity;
+import data.market.securities.Option;
+import data.market.securities.Quote;
 import data.market.securities.Security;
 import data.market.securities.SecurityType;
 import data.market.securities.Stock;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * A market that never locks. Securities are kept in a table indexed by symbol id and publish their prices through an
+ * immutable quote, so lookups and iteration can run alongside updates, removals and clears. Snapshots are only built
+ * when published, so taking one is a single volatile read. Everything else a price update leads to, from bars to
+ * listeners, happens on consumer threads of the market's price bus.
+ */
 public class StockMarket implements Market {
 
-    private final Map<String, Security> tracked_securities;
-    private final ReadWriteLock marketLock = new ReentrantReadWriteLock();
+    static final long HISTORY_WAIT_MILLIS = 1000;
+    static final int INDICATOR_SEED_TICKS = 256;
+
+    private final SecurityTable tracked_securities;
+    private final PriceDispatcher dispatcher = new PriceDispatcher();
+    private final List<TickListener> tickListeners = new CopyOnWriteArrayList<TickListener>();
+
+    private volatile MarketSnapshot snapshot = new MarketSnapshot(0, System.currentTimeMillis(), new Quote[0], 0);
+    // set when securities are added or removed, so the next snapshot taken includes them
+    private volatile boolean stale = false;
+    // the symbols added or removed since the last snapshot, and whether the market was cleared
+    private final ConcurrentLinkedQueue<Integer> changed = new ConcurrentLinkedQueue<Integer>();
+    private volatile boolean cleared = false;
+    // held while a snapshot is made, never while the covariance is sampled
+    private final Object snapshotLock = new Object();
+
+    // the covariance is sampled on its own thread, in the order snapshots are published
+    private final CovarianceMatrix covariance = new CovarianceMatrix();
+    private final ExecutorService sampler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "market-covariance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Future<?> sampled;
+
+    // every accepted price goes through the bus, and each consumer reads it on its own thread
+    private final PriceBus bus = new PriceBus();
+    private final BusConsumer history;
+    private final BusConsumer indicatorConsumer;
+    // indicator sets indexed by symbol id, copied whenever a security gets its first indicator
+    private volatile IndicatorSet[] indicators = new IndicatorSet[0];
+    // options are repriced from their underlyings' ticks on the pricer's own thread
+    private final OptionPricer options = new OptionPricer();
+    private final BusConsumer optionConsumer;
 
     public StockMarket(){
-        this.tracked_securities = new HashMap<String, Security>();
+        this.tracked_securities = new SecurityTable();
+        this.history = this.bus.addConsumer("market-history",
+                (security, timestamp, oldMicros, newMicros, volume, endOfBatch) ->
+                        security.getHistory().record(timestamp, newMicros),
+                WaitStrategy.Blocking);
+        this.indicatorConsumer = this.bus.addConsumer("market-indicators",
+                (security, timestamp, oldMicros, newMicros, volume, endOfBatch) -> {
+                    IndicatorSet[] indicators = this.indicators;
+                    int symbol = security.getSymbol();
+                    if (symbol < indicators.length && indicators[symbol] != null) {
+                        indicators[symbol].update(timestamp, newMicros, volume);
+                    }
+                },
+                WaitStrategy.Blocking);
+        this.optionConsumer = this.bus.addConsumer("market-options",
+                (security, timestamp, oldMicros, newMicros, volume, endOfBatch) ->
+                        this.options.tick(security.getSymbol(), timestamp, newMicros),
+                WaitStrategy.Blocking);
+        this.bus.addConsumer("price-dispatcher", this.dispatcher, WaitStrategy.Blocking);
+        this.bus.addConsumer("market-ticks", (security, timestamp, oldMicros, newMicros, volume, endOfBatch) -> {
+            for (TickListener listener : this.tickListeners) {
+                listener.tick(security.getSymbol(), timestamp, newMicros);
+            }
+        }, WaitStrategy.Blocking);
+    }
+
+    @Override
+    public void close() {
+        this.bus.close(HISTORY_WAIT_MILLIS);
+        this.options.close();
+        this.sampler.shutdown();
     }
 
     @Override
     public Collection<Security> getSecurities() {
-        return tracked_securities.values();
+        // a read-only view whose iterators never throw ConcurrentModificationException
+        return Collections.unmodifiableCollection(tracked_securities);
     }
 
     @Override
     public Security getSecurity(String ticker) {
-        Lock readLock = marketLock.readLock();
-        readLock.lock();
+        return tracked_securities.get(Symbols.id(ticker));
+    }
 
-        try {
-            return tracked_securities.get(ticker);
-        } finally {
-            readLock.unlock();
-        }
+    @Override
+    public Security getSecurity(int symbol) {
+        return tracked_securities.get(symbol);
     }
 
     @Override
     public BigDecimal getPrice(String ticker) throws SecurityNotFoundException {
-        Lock readLock = marketLock.readLock();
-        readLock.lock();
+        Security security = tracked_securities.get(Symbols.id(ticker));
 
-        try {
-            Security security = tracked_securities.get(ticker);
+        if (security == null) {
+            throw new SecurityNotFoundException("This market does not have a security with the provided ticker.");
+        }
 
-            if (security == null) {
-                throw new SecurityNotFoundException("This market does not have a security with the provided ticker.");
-            }
+        return security.getPrice();
+    }
+
+    @Override
+    public List<Bar> getBars(String ticker, BarResolution resolution, long from, long to)
+            throws SecurityNotFoundException {
+        Security security = tracked_securities.get(Symbols.id(ticker));
+
+        if (security == null) {
+            throw new SecurityNotFoundException("This market does not have a security with the provided ticker.");
+        }
+
+        // bars are built on the history consumer's thread, so let it catch up with every price accepted so far
+        this.history.awaitSequence(this.bus.getCursor(), HISTORY_WAIT_MILLIS);
+        return security.getHistory().getBars(resolution, from, to);
+    }
+
+    @Override
+    public synchronized boolean addIndicator(String ticker, IndicatorType type, int period) {
+        int symbol = Symbols.intern(ticker);
+        IndicatorSet[] indicators = this.indicators;
+        if (symbol >= indicators.length) {
+            indicators = Arrays.copyOf(indicators, Math.max(symbol + 1, indicators.length * 2));
+        }
+        if (indicators[symbol] == null) {
+            indicators[symbol] = new IndicatorSet();
+        }
+        this.indicators = indicators;
+
+        // seed from the history once it has every price accepted so far, so no tick is missed or counted twice
+        long[] timestamps = new long[INDICATOR_SEED_TICKS];
+        long[] prices = new long[INDICATOR_SEED_TICKS];
+        int count = 0;
+        Security security = tracked_securities.get(symbol);
+        if (security != null) {
+            this.history.awaitSequence(this.bus.getCursor(), HISTORY_WAIT_MILLIS);
+            count = security.getHistory().copyTicks(timestamps, prices);
+        }
+        return indicators[symbol].add(type, period, timestamps, prices, count);
+    }
 
-            return security.getPrice();
-        } finally {
-            readLock.unlock();
+    @Override
+    public boolean removeIndicator(String ticker, IndicatorType type, int period) {
+        IndicatorSet set = this.indicatorSet(ticker);
+        return set != null && set.remove(type, period);
+    }
+
+    @Override
+    public List<IndicatorValue> getIndicators(String ticker) {
+        IndicatorSet set = this.indicatorSet(ticker);
+        if (set == null) {
+            return Collections.emptyList();
         }
+        this.indicatorConsumer.awaitSequence(this.bus.getCursor(), HISTORY_WAIT_MILLIS);
+        return set.read();
+    }
+
+    private IndicatorSet indicatorSet(String ticker) {
+        int symbol = Symbols.id(ticker);
+        IndicatorSet[] indicators = this.indicators;
+        return symbol < 0 || symbol >= indicators.length ? null : indicators[symbol];
     }
 
     @Override
     public void addSecurity(String ticker, SecurityType type, BigDecimal price) {
-        Lock writeLock = marketLock.writeLock();
-        writeLock.lock();
+        this.addSecurity(ticker, type, price, System.currentTimeMillis());
+    }
 
-        try {
-            Security searchedSecurity = tracked_securities.get(ticker);
+    @Override
+    public void addSecurity(String ticker, SecurityType type, BigDecimal price, long timestamp) {
+        int symbol = Symbols.intern(ticker);
+        Security searchedSecurity = tracked_securities.get(symbol);
 
-            // The new security is not already in our market.
+        // The new security is not already in our market.
+        if (searchedSecurity == null) {
+            AbstractSecurity newSecurity;
+            if (type.equals(SecurityType.Stock)) {
+                newSecurity = new Stock(ticker, price, timestamp, this.bus);
+            }
+            else if (type.equals(SecurityType.Option)) {
+                newSecurity = this.newOption(ticker, price, timestamp);
+            }
+            else {
+                throw new IllegalArgumentException("Unexpected security type.");
+            }
+
+            searchedSecurity = tracked_securities.putIfAbsent(symbol, newSecurity);
             if (searchedSecurity == null) {
-                Security newSecurity;
-                if (type.equals(SecurityType.Stock)) {
-                    newSecurity = new Stock(ticker, price);
-                }
-                else {
-                    throw new IllegalArgumentException("Unexpected security type.");
+                newSecurity.publishAdded();
+                if (newSecurity instanceof Option) {
+                    this.options.add((Option) newSecurity, this.underlyingQuote((Option) newSecurity));
                 }
-                tracked_securities.put(newSecurity.getTicker(), newSecurity);
+                this.changed(symbol);
+                return;
             }
+        }
 
-            // The new security is already in our market.
-            else {
-                searchedSecurity.updatePrice(price);
+        // an option's price comes from its underlying, not from whoever added it
+        if (searchedSecurity instanceof Option) {
+            return;
+        }
+
+        // The new security is already in our market, or another thread added it first.
+        searchedSecurity.updatePrice(price, timestamp);
+    }
+
+    /**
+     * Creates an option priced from its underlying's current price, or at the specified price if the underlying is
+     * not in the market.
+     */
+    private Option newOption(String ticker, BigDecimal price, long timestamp) {
+        OptionContract contract = OptionContract.parse(ticker);
+        if (contract == null) {
+            throw new IllegalArgumentException("Not an option symbol.");
+        }
+        Security underlying = tracked_securities.get(Symbols.id(contract.getUnderlying()));
+        if (underlying != null) {
+            Quote quote = underlying.getQuote();
+            long micros = this.options.price(contract, quote);
+            if (micros != Price.NONE) {
+                price = Price.toBigDecimal(micros);
+                timestamp = quote.getTimestamp();
             }
+        }
+        return new Option(contract, price, timestamp, this.bus);
+    }
+
+    private Quote underlyingQuote(Option option) {
+        Security underlying = tracked_securities.get(Symbols.id(option.getContract().getUnderlying()));
+        return underlying == null ? null : underlying.getQuote();
+    }
 
-        } finally {
-            writeLock.unlock();
+    @Override
+    public void removeSecurity(String ticker) {
+        int symbol = Symbols.id(ticker);
+        Security security = tracked_securities.get(symbol);
+        if (security == null) {
+            return;
+        }
+        tracked_securities.remove(symbol);
+        if (security instanceof Option) {
+            this.options.remove((Option) security);
         }
+        this.changed(symbol);
+        // after any sample of a snapshot it was in
+        this.sample(() -> this.covariance.release(ticker));
     }
 
     @Override
     public void clear() {
         this.tracked_securities.clear();
+        this.options.clear();
+        this.cleared = true;
+        this.stale = true;
+        this.sample(this.covariance::clear);
+    }
+
+    /**
+     * Marks the next snapshot taken as needing the specified security's quote, or its removal.
+     */
+    private void changed(int symbol) {
+        this.changed.add(symbol);
+        this.stale = true;
+    }
+
+    @Override
+    public OptionGreeks getGreeks(String ticker) {
+        Security security = tracked_securities.get(Symbols.id(ticker));
+        if (!(security instanceof Option)) {
+            return null;
+        }
+        // let the pricer catch up with every underlying tick accepted so far
+        this.optionConsumer.awaitSequence(this.bus.getCursor(), HISTORY_WAIT_MILLIS);
+        this.options.awaitIdle(HISTORY_WAIT_MILLIS);
+        return this.options.getGreeks((Option) security);
+    }
+
+    @Override
+    public void setVolatility(String underlying, double volatility) {
+        this.options.setVolatility(underlying, volatility);
+    }
+
+    @Override
+    public MarketSnapshot snapshot() {
+        if (this.stale) {
+            synchronized (this.snapshotLock) {
+                if (this.stale) {
+                    this.applyChanges();
+                }
+            }
+        }
+        return this.snapshot;
+    }
+
+    @Override
+    public MarketSnapshot publish() {
+        MarketSnapshot published;
+        synchronized (this.snapshotLock) {
+            published = this.rebuildSnapshot();
+        }
+        // only the snapshots published at the end of a cycle are return samples, so they stay evenly spaced
+        this.sampled = this.sample(() -> this.covariance.sample(published));
+        return published;
+    }
+
+    /**
+     * Runs a change to the covariance on the sampler's thread, after every change already queued, or on this thread
+     * once the market is closed.
+     *
+     * @return the change's future, or null if it has already run
+     */
+    private Future<?> sample(Runnable change) {
+        try {
+            return this.sampler.submit(change);
+        } catch (RejectedExecutionException e) {
+            change.run();
+            return null;
+        }
+    }
+
+    /**
+     * Makes a snapshot from the last one, taking the quotes of only the securities added or removed since. The
+     * caller must hold the snapshot lock.
+     */
+    private void applyChanges() {
+        // clear the flag first, so a security added while we copy marks the new snapshot stale again
+        this.stale = false;
+        MarketSnapshot last = this.snapshot;
+        Quote[] quotes;
+        int size;
+        if (this.cleared) {
+            this.cleared = false;
+            quotes = new Quote[Symbols.size()];
+            size = 0;
+        }
+        else {
+            quotes = last.copyQuotes(Symbols.size());
+            size = last.size();
+        }
+
+        Integer symbol;
+        while ((symbol = this.changed.poll()) != null) {
+            if (symbol >= quotes.length) {
+                quotes = Arrays.copyOf(quotes, symbol + 1);
+            }
+            Security security = this.tracked_securities.get(symbol);
+            Quote quote = security == null ? null : security.getQuote();
+            if (quotes[symbol] == null && quote != null) {
+                size++;
+            }
+            else if (quotes[symbol] != null && quote == null) {
+                size--;
+            }
+            quotes[symbol] = quote;
+        }
+
+        this.snapshot = new MarketSnapshot(last.getEpoch() + 1, System.currentTimeMillis(), quotes, size);
+    }
+
+    /**
+     * Makes a snapshot of every security's current quote. The caller must hold the snapshot lock.
+     */
+    private MarketSnapshot rebuildSnapshot() {
+        // clear the flag first, so a security added while we copy marks the new snapshot stale again
+        this.stale = false;
+        this.cleared = false;
+        this.changed.clear();
+        Quote[] quotes = new Quote[Symbols.size()];
+        int size = 0;
+        for (Security security : this.tracked_securities) {
+            int symbol = security.getSymbol();
+            if (symbol < quotes.length) {
+                quotes[symbol] = security.getQuote();
+                size++;
+            }
+        }
+
+        MarketSnapshot published = new MarketSnapshot(this.snapshot.getEpoch() + 1, System.currentTimeMillis(),
+                quotes, size);
+        this.snapshot = published;
+        return published;
+    }
+
+    @Override
+    public CovarianceMatrix getCovariance() {
+        Future<?> sampled = this.sampled;
+        if (sampled != null) {
+            try {
+                sampled.get(HISTORY_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ignored) {
+            }
+        }
+        return this.covariance;
+    }
+
+    @Override
+    public void subscribe(String ticker, PriceListener listener) {
+        this.dispatcher.subscribe(ticker, listener);
+    }
+
+    @Override
+    public void subscribeAll(PriceListener listener) {
+        this.dispatcher.subscribeAll(listener);
+    }
+
+    @Override
+    public void unsubscribe(PriceListener listener) {
+        this.dispatcher.unsubscribe(listener);
+    }
+
+    @Override
+    public void addTickListener(TickListener listener) {
+        this.tickListeners.add(listener);
+    }
+
+    @Override
+    public void removeTickListener(TickListener listener) {
+        this.tickListeners.remove(listener);
     }
 }
@@ -0,0 +1,84 @@
+package data.market;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The global symbol table. Every ticker is interned once into a dense int id, starting from 0, so the market,
+ * positions and transactions can refer to a security by id and use array indexed lookups instead of hashing the
+ * ticker's text. Ids are never reused or released.
+ */
+public final class Symbols {
+
+    private static final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] tickers = new String[1024];
+    private static volatile int count = 0;
+
+    private Symbols() {}
+
+    /**
+     * Gets the id of a ticker, assigning the next id if the ticker has not been seen before.
+     *
+     * @param ticker the ticker
+     * @return the ticker's id
+     */
+    public static int intern(String ticker) {
+        Integer id = ids.get(ticker);
+        if (id != null) {
+            return id;
+        }
+        return assign(ticker);
+    }
+
+    private static synchronized int assign(String ticker) {
+        Integer id = ids.get(ticker);
+        if (id != null) {
+            return id;
+        }
+
+        int next = count;
+        if (next == tickers.length) {
+            tickers = Arrays.copyOf(tickers, next * 2);
+        }
+        tickers[next] = ticker;
+        // publish the ticker before the id, so anyone who sees the id can look the ticker up
+        count = next + 1;
+        ids.put(ticker, next);
+        return next;
+    }
+
+    /**
+     * Gets the id of a ticker without assigning one.
+     *
+     * @param ticker the ticker
+     * @return the ticker's id, or -1 if it has never been interned
+     */
+    public static int id(String ticker) {
+        Integer id = ids.get(ticker);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the ticker with the specified id.
+     *
+     * @param id the id
+     * @return the ticker
+     * @throws IndexOutOfBoundsException if no ticker has the id
+     */
+    public static String ticker(int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No ticker has id " + id + ".");
+        }
+        return tickers[id];
+    }
+
+    /**
+     * Gets the number of tickers interned so far. Every id is less than this.
+     *
+     * @return the number of tickers
+     */
+    public static int size() {
+        return count;
+    }
+}
@@ -0,0 +1,18 @@
+package data.market;
+
+/**
+ * Listens for every price a market accepts, whether or not it changed. Tick listeners are called in order on a
+ * consumer thread of the market's price bus, shared with other tick listeners, so they must be quick and must not
+ * block.
+ */
+public interface TickListener {
+
+    /**
+     * Called after a security's price is updated.
+     *
+     * @param symbol the id of the security's ticker in the symbol table
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     */
+    void tick(int symbol, long timestamp, long micros);
+}
@@ -0,0 +1,79 @@
+package data.market.bus;
+
+/**
+ * A consumer of a price bus. It reads every event published after it was added, in order and in batches, passing
+ * each to its handler. A handler that throws only loses the event it threw on.
+ */
+public class BusConsumer implements Runnable {
+
+    private final PriceBus bus;
+    private final PriceEventHandler handler;
+    private final WaitStrategy strategy;
+    final Sequence sequence;
+    private volatile boolean running = true;
+
+    BusConsumer(PriceBus bus, PriceEventHandler handler, WaitStrategy strategy, Sequence sequence) {
+        this.bus = bus;
+        this.handler = handler;
+        this.strategy = strategy;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the sequence of the last event this consumer has finished handling.
+     *
+     * @return the sequence
+     */
+    public long getSequence() {
+        return this.sequence.get();
+    }
+
+    boolean isRunning() {
+        return this.running;
+    }
+
+    void halt() {
+        this.running = false;
+    }
+
+    /**
+     * Waits until this consumer has handled the event with the specified sequence.
+     *
+     * @param sequence the sequence
+     * @param timeoutMillis the longest to wait, in milliseconds
+     * @return true if the event was handled in time, false otherwise
+     */
+    public boolean awaitSequence(long sequence, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int tries = 0;
+        while (this.sequence.get() < sequence) {
+            if (!this.running || System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            if (++tries > PriceBus.SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        long next = this.sequence.get() + 1;
+        while (this.running) {
+            long available = this.bus.waitFor(next, this.strategy, this);
+            for (long sequence = next; sequence <= available; sequence++) {
+                try {
+                    this.handler.onEvent(this.bus.security(sequence), this.bus.timestamp(sequence),
+                            this.bus.oldPrice(sequence), this.bus.newPrice(sequence), this.bus.volume(sequence),
+                            sequence == available);
+                } catch (RuntimeException ignored) {
+                }
+            }
+            if (available >= next) {
+                this.sequence.set(available);
+                next = available + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package data.market.bus;
+
+import data.market.securities.Security;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A preallocated ring buffer of price events between the securities whose prices change and the consumers that
+ * react to them. Every slot's fields live in primitive arrays allocated up front, so publishing and consuming an event
+ * allocates nothing.
+ * <p>
+ * Producers claim a sequence number, fill in its slot and then mark the slot published. Each consumer runs on its own
+ * thread and tracks its own sequence, reading every event published since it last looked as one batch. A producer
+ * that gets a whole ring ahead of the slowest consumer waits for it, so no event is ever lost.
+ */
+public class PriceBus {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    static final int SPIN_TRIES = 100;
+    static final int YIELD_TRIES = 100;
+    static final long SLEEP_NANOS = 100000;
+
+    private final int capacity;
+    private final int mask;
+
+    // the fields of each slot
+    private final Security[] securities;
+    private final long[] timestamps;
+    private final long[] oldPrices;
+    private final long[] newPrices;
+    private final long[] volumes;
+    // the sequence last published in each slot, so consumers can tell which claimed slots are ready
+    private final AtomicLongArray published;
+
+    // the last sequence claimed by a producer
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // the slowest consumer's sequence when producers last looked
+    private final Sequence gatingCache = new Sequence(-1);
+    private volatile Sequence[] gating = new Sequence[0];
+    private BusConsumer[] consumers = new BusConsumer[0];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition publishedCondition = this.lock.newCondition();
+    private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+    public PriceBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a price bus.
+     *
+     * @param capacity the number of events the ring holds, which must be a power of two
+     */
+    public PriceBus(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity of a price bus must be a power of two.");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.securities = new Security[capacity];
+        this.timestamps = new long[capacity];
+        this.oldPrices = new long[capacity];
+        this.newPrices = new long[capacity];
+        this.volumes = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.published.set(i, -1);
+        }
+    }
+
+    /**
+     * Gets the number of events the ring holds.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the last sequence claimed by a producer. Every event up to it has been or is about to be published.
+     *
+     * @return the sequence, or -1 if nothing has been published
+     */
+    public long getCursor() {
+        return this.cursor.get();
+    }
+
+    /**
+     * Publishes a price event with no volume, waiting first if the ring is full.
+     *
+     * @param security the security whose price was updated
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param oldMicros the previous price in micros, or Price.NONE if the security is new
+     * @param newMicros the new price in micros
+     * @return the event's sequence
+     */
+    public long publish(Security security, long timestamp, long oldMicros, long newMicros) {
+        return this.publish(security, timestamp, oldMicros, newMicros, 0);
+    }
+
+    /**
+     * Publishes a price event, waiting first if the ring is full.
+     *
+     * @param security the security whose price was updated
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param oldMicros the previous price in micros, or Price.NONE if the security is new
+     * @param newMicros the new price in micros
+     * @param volume the number of shares traded since the previous price, or 0 if unknown
+     * @return the event's sequence
+     */
+    public long publish(Security security, long timestamp, long oldMicros, long newMicros, long volume) {
+        long sequence = this.cursor.incrementAndGet();
+
+        // wait until the slowest consumer has read the event that used this slot last time round
+        long wrapPoint = sequence - this.capacity;
+        if (wrapPoint > this.gatingCache.get()) {
+            long slowest;
+            while (wrapPoint > (slowest = this.slowest(sequence))) {
+                LockSupport.parkNanos(1000);
+            }
+            this.gatingCache.set(slowest);
+        }
+
+        int index = (int) (sequence & this.mask);
+        this.securities[index] = security;
+        this.timestamps[index] = timestamp;
+        this.oldPrices[index] = oldMicros;
+        this.newPrices[index] = newMicros;
+        this.volumes[index] = volume;
+        this.published.lazySet(index, sequence);
+
+        if (this.signalNeeded.get() && this.signalNeeded.getAndSet(false)) {
+            this.lock.lock();
+            try {
+                this.publishedCondition.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Gets the sequence of the slowest consumer, or the specified default if there are none.
+     */
+    private long slowest(long whenNone) {
+        long slowest = whenNone;
+        for (Sequence sequence : this.gating) {
+            slowest = Math.min(slowest, sequence.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * Adds a consumer that reads events published from now on, running on its own daemon thread.
+     *
+     * @param name the name of the consumer's thread
+     * @param handler the handler the consumer passes events to
+     * @param strategy how the consumer waits for events
+     * @return the consumer, already started
+     */
+    public synchronized BusConsumer addConsumer(String name, PriceEventHandler handler, WaitStrategy strategy) {
+        BusConsumer consumer = new BusConsumer(this, handler, strategy, new Sequence(this.cursor.get()));
+        Sequence[] gating = Arrays.copyOf(this.gating, this.gating.length + 1);
+        gating[gating.length - 1] = consumer.sequence;
+        this.gating = gating;
+        this.consumers = Arrays.copyOf(this.consumers, this.consumers.length + 1);
+        this.consumers[this.consumers.length - 1] = consumer;
+
+        Thread thread = new Thread(consumer, name);
+        thread.setDaemon(true);
+        thread.start();
+        return consumer;
+    }
+
+    /**
+     * Stops a consumer and stops waiting for it.
+     *
+     * @param consumer the consumer
+     */
+    public synchronized void removeConsumer(BusConsumer consumer) {
+        consumer.halt();
+        Sequence[] gating = new Sequence[0];
+        for (Sequence sequence : this.gating) {
+            if (sequence != consumer.sequence) {
+                gating = Arrays.copyOf(gating, gating.length + 1);
+                gating[gating.length - 1] = sequence;
+            }
+        }
+        this.gating = gating;
+        BusConsumer[] consumers = new BusConsumer[0];
+        for (BusConsumer other : this.consumers) {
+            if (other != consumer) {
+                consumers = Arrays.copyOf(consumers, consumers.length + 1);
+                consumers[consumers.length - 1] = other;
+            }
+        }
+        this.consumers = consumers;
+        this.signal();
+    }
+
+    /**
+     * Stops every consumer once it has handled the events published so far. Events published afterwards are never
+     * handled, and publishing them never waits.
+     *
+     * @param timeoutMillis the longest to wait for each consumer to catch up, in milliseconds
+     */
+    public synchronized void close(long timeoutMillis) {
+        long cursor = this.cursor.get();
+        for (BusConsumer consumer : this.consumers) {
+            consumer.awaitSequence(cursor, timeoutMillis);
+            consumer.halt();
+        }
+        this.consumers = new BusConsumer[0];
+        this.gating = new Sequence[0];
+        this.signal();
+    }
+
+    /**
+     * Gets the last sequence, from the specified one on, up to which every event has been published.
+     *
+     * @return the sequence, which is next - 1 if the next event has not been published
+     */
+    private long highestPublished(long next) {
+        long limit = Math.min(this.cursor.get(), next + this.capacity - 1);
+        long sequence = next;
+        while (sequence <= limit && this.published.get((int) (sequence & this.mask)) == sequence) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+
+    /**
+     * Waits until the event with the specified sequence is published, or the consumer is halted.
+     *
+     * @return the last sequence that can be read as one batch, or next - 1 if the consumer was halted
+     */
+    long waitFor(long next, WaitStrategy strategy, BusConsumer consumer) {
+        long available;
+        int tries = 0;
+        while ((available = this.highestPublished(next)) < next) {
+            if (!consumer.isRunning()) {
+                return next - 1;
+            }
+
+            tries++;
+            if (strategy == WaitStrategy.BusySpin || tries < SPIN_TRIES) {
+                continue;
+            }
+            if (strategy == WaitStrategy.Yielding || (strategy == WaitStrategy.Sleeping
+                    && tries < SPIN_TRIES + YIELD_TRIES)) {
+                Thread.yield();
+            }
+            else if (strategy == WaitStrategy.Sleeping) {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+            else {
+                this.block(next);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Parks until a producer publishes. The timeout only guards against a signal racing with a halt.
+     */
+    private void block(long next) {
+        this.lock.lock();
+        try {
+            this.signalNeeded.set(true);
+            if (this.highestPublished(next) < next) {
+                this.publishedCondition.await(10, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes every blocked consumer.
+     */
+    private void signal() {
+        this.lock.lock();
+        try {
+            this.publishedCondition.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    Security security(long sequence) {
+        return this.securities[(int) (sequence & this.mask)];
+    }
+
+    long timestamp(long sequence) {
+        return this.timestamps[(int) (sequence & this.mask)];
+    }
+
+    long oldPrice(long sequence) {
+        return this.oldPrices[(int) (sequence & this.mask)];
+    }
+
+    long newPrice(long sequence) {
+        return this.newPrices[(int) (sequence & this.mask)];
+    }
+
+    long volume(long sequence) {
+        return this.volumes[(int) (sequence & this.mask)];
+    }
+}
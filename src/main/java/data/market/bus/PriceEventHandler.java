@@ -0,0 +1,22 @@
+package data.market.bus;
+
+import data.market.securities.Security;
+
+/**
+ * Handles the price events read by a consumer of a price bus. Events arrive in the order they were published, on the
+ * consumer's own thread.
+ */
+public interface PriceEventHandler {
+
+    /**
+     * Called for each price a security accepts.
+     *
+     * @param security the security whose price was updated
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param oldMicros the previous price in micros, or Price.NONE if the security is new
+     * @param newMicros the new price in micros
+     * @param volume the number of shares traded since the previous price, or 0 if unknown
+     * @param endOfBatch true if this is the last event available to the consumer for now, so work can be flushed
+     */
+    void onEvent(Security security, long timestamp, long oldMicros, long newMicros, long volume, boolean endOfBatch);
+}
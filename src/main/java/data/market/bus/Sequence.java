@@ -0,0 +1,36 @@
+package data.market.bus;
+
+/**
+ * Padding that keeps a sequence's value off the cache line of whatever is allocated before it.
+ */
+class LeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * The value of a sequence.
+ */
+class SequenceValue extends LeftPadding {
+    protected volatile long value;
+}
+
+/**
+ * A position in a price bus, such as how far a consumer has read. The value is padded on both sides so sequences
+ * updated by different threads never share a cache line.
+ */
+class Sequence extends SequenceValue {
+
+    protected long p9, p10, p11, p12, p13, p14, p15;
+
+    Sequence(long initial) {
+        this.value = initial;
+    }
+
+    long get() {
+        return this.value;
+    }
+
+    void set(long value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,26 @@
+package data.market.bus;
+
+/**
+ * How a consumer waits for the next price event. Strategies that spin react fastest but keep a core busy, so they
+ * suit consumers that must keep up with heavy update rates on a machine with cores to spare.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins without pausing. The lowest latency, at the cost of a whole core.
+     */
+    BusySpin,
+    /**
+     * Spins for a while, then yields the core to other threads between checks.
+     */
+    Yielding,
+    /**
+     * Spins, then yields, then sleeps briefly between checks. Uses little CPU when idle and needs nothing from the
+     * producer.
+     */
+    Sleeping,
+    /**
+     * Spins briefly, then parks until a producer signals a new event. Uses no CPU when idle, but producers pay for a
+     * signal whenever a consumer is parked.
+     */
+    Blocking
+}
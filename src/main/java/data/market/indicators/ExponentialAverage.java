@@ -0,0 +1,30 @@
+package data.market.indicators;
+
+/**
+ * An exponential moving average, started from the first price seen.
+ */
+class ExponentialAverage extends Indicator {
+
+    private final double alpha;
+    private double average = Double.NaN;
+    private int count = 0;
+
+    ExponentialAverage(int period) {
+        super(IndicatorType.Ema, period);
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    void update(long timestamp, double price, long volume) {
+        this.average = this.count == 0 ? price : this.average + this.alpha * (price - this.average);
+        if (this.count < this.period) {
+            this.count++;
+        }
+    }
+
+    @Override
+    IndicatorValue read() {
+        return new IndicatorValue(this.type, this.period, this.count == this.period, this.average, this.average,
+                this.average);
+    }
+}
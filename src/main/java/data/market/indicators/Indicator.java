@@ -0,0 +1,56 @@
+package data.market.indicators;
+
+/**
+ * An indicator kept up to date one price at a time. Updating costs O(1) and allocates nothing.
+ */
+abstract class Indicator {
+
+    final IndicatorType type;
+    final int period;
+
+    Indicator(IndicatorType type, int period) {
+        this.type = type;
+        this.period = period;
+    }
+
+    /**
+     * Creates an indicator.
+     *
+     * @throws IllegalArgumentException if the period is less than 1
+     */
+    static Indicator create(IndicatorType type, int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("An indicator's period must be at least 1.");
+        }
+        switch (type) {
+            case Sma:
+                return new MovingAverage(period, false);
+            case Bollinger:
+                return new MovingAverage(period, true);
+            case Ema:
+                return new ExponentialAverage(period);
+            case Vwap:
+                return new VolumeWeightedAverage(period);
+            case Rsi:
+                return new RelativeStrength(period);
+            case Volatility:
+                return new Volatility(period);
+            default:
+                throw new IllegalArgumentException("Unexpected indicator type.");
+        }
+    }
+
+    /**
+     * Adds a price.
+     *
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param price the price, in dollars
+     * @param volume the number of shares traded since the previous price, or 0 if unknown
+     */
+    abstract void update(long timestamp, double price, long volume);
+
+    /**
+     * Gets the indicator's current value.
+     */
+    abstract IndicatorValue read();
+}
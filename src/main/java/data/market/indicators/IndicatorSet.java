@@ -0,0 +1,110 @@
+package data.market.indicators;
+
+import data.market.Price;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The indicators registered for one security. Every price the security accepts is passed to each of its indicators,
+ * in O(1) per indicator and without allocating. Reads and updates come from different threads, so both are guarded by
+ * the set itself.
+ */
+public final class IndicatorSet {
+
+    private Indicator[] indicators = new Indicator[0];
+    // the newest seed tick given to each indicator, so the price stream does not give it those ticks again
+    private long[] seededThrough = new long[0];
+
+    /**
+     * Adds an indicator, seeding it with recent ticks so it does not start empty. Seed ticks carry no volume. Adding
+     * an indicator the set already has does nothing.
+     *
+     * @param type the indicator's type
+     * @param period the indicator's period, in ticks
+     * @param timestamps the times of the seed ticks, oldest first
+     * @param prices the prices of the seed ticks, in micros
+     * @param count the number of seed ticks
+     * @return true if the indicator was added, false if the set already had it
+     * @throws IllegalArgumentException if the period is less than 1
+     */
+    public synchronized boolean add(IndicatorType type, int period, long[] timestamps, long[] prices, int count) {
+        if (this.find(type, period) >= 0) {
+            return false;
+        }
+
+        Indicator indicator = Indicator.create(type, period);
+        long seededThrough = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            indicator.update(timestamps[i], Price.toDouble(prices[i]), 0);
+            seededThrough = timestamps[i];
+        }
+
+        int length = this.indicators.length;
+        this.indicators = Arrays.copyOf(this.indicators, length + 1);
+        this.seededThrough = Arrays.copyOf(this.seededThrough, length + 1);
+        this.indicators[length] = indicator;
+        this.seededThrough[length] = seededThrough;
+        return true;
+    }
+
+    /**
+     * Removes an indicator.
+     *
+     * @param type the indicator's type
+     * @param period the indicator's period, in ticks
+     * @return true if the indicator was removed, false if the set did not have it
+     */
+    public synchronized boolean remove(IndicatorType type, int period) {
+        int index = this.find(type, period);
+        if (index < 0) {
+            return false;
+        }
+
+        int length = this.indicators.length;
+        System.arraycopy(this.indicators, index + 1, this.indicators, index, length - index - 1);
+        System.arraycopy(this.seededThrough, index + 1, this.seededThrough, index, length - index - 1);
+        this.indicators = Arrays.copyOf(this.indicators, length - 1);
+        this.seededThrough = Arrays.copyOf(this.seededThrough, length - 1);
+        return true;
+    }
+
+    private int find(IndicatorType type, int period) {
+        for (int i = 0; i < this.indicators.length; i++) {
+            if (this.indicators[i].type == type && this.indicators[i].period == period) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Passes a price to every indicator.
+     *
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     * @param volume the number of shares traded since the previous price, or 0 if unknown
+     */
+    public synchronized void update(long timestamp, long micros, long volume) {
+        double price = Price.toDouble(micros);
+        for (int i = 0; i < this.indicators.length; i++) {
+            if (timestamp > this.seededThrough[i]) {
+                this.indicators[i].update(timestamp, price, volume);
+            }
+        }
+    }
+
+    /**
+     * Gets the current value of every indicator, in the order they were added.
+     *
+     * @return the values
+     */
+    public synchronized List<IndicatorValue> read() {
+        List<IndicatorValue> values = new ArrayList<IndicatorValue>();
+        for (Indicator indicator : this.indicators) {
+            values.add(indicator.read());
+        }
+        return values;
+    }
+}
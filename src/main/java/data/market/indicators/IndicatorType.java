@@ -0,0 +1,32 @@
+package data.market.indicators;
+
+/**
+ * The technical indicators that can be kept for a security. Each is kept over a period counted in ticks.
+ */
+public enum IndicatorType {
+    /**
+     * The simple moving average of the last period prices.
+     */
+    Sma,
+    /**
+     * The exponential moving average, with a smoothing factor of 2 / (period + 1).
+     */
+    Ema,
+    /**
+     * The average of the last period prices, each weighted by the volume traded since the price before it. It is
+     * the last price until any volume has been seen.
+     */
+    Vwap,
+    /**
+     * The relative strength index, with Wilder's smoothing, from 0 to 100.
+     */
+    Rsi,
+    /**
+     * The simple moving average of the last period prices, with bands two standard deviations either side.
+     */
+    Bollinger,
+    /**
+     * The standard deviation of the log returns between the last period + 1 prices.
+     */
+    Volatility
+}
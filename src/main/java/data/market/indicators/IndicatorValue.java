@@ -0,0 +1,74 @@
+package data.market.indicators;
+
+/**
+ * The value of an indicator at one moment. Indicators with bands, such as Bollinger bands, also have a lower and
+ * upper value; for the rest these equal the value.
+ */
+public final class IndicatorValue {
+
+    private final IndicatorType type;
+    private final int period;
+    private final boolean ready;
+    private final double value;
+    private final double lower;
+    private final double upper;
+
+    IndicatorValue(IndicatorType type, int period, boolean ready, double value, double lower, double upper) {
+        this.type = type;
+        this.period = period;
+        this.ready = ready;
+        this.value = value;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    public IndicatorType getType() {
+        return this.type;
+    }
+
+    public int getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Checks if the indicator has seen enough prices to fill its period.
+     *
+     * @return true if the value covers a full period, false if it is still warming up
+     */
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * Gets the value, in dollars for price-like indicators.
+     *
+     * @return the value, or NaN if no prices have been seen
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    public double getLower() {
+        return this.lower;
+    }
+
+    public double getUpper() {
+        return this.upper;
+    }
+
+    @Override
+    public String toString() {
+        String name = this.type.toString().toUpperCase() + "(" + this.period + ")";
+        String value;
+        if (Double.isNaN(this.value)) {
+            value = "no data";
+        }
+        else if (this.lower != this.value || this.upper != this.value) {
+            value = String.format("%.4f / %.4f / %.4f", this.lower, this.value, this.upper);
+        }
+        else {
+            value = String.format("%.4f", this.value);
+        }
+        return name + ": " + value + (this.ready ? "" : " (warming up)");
+    }
+}
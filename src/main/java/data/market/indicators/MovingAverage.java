@@ -0,0 +1,30 @@
+package data.market.indicators;
+
+/**
+ * A simple moving average, optionally with Bollinger bands two standard deviations either side.
+ */
+class MovingAverage extends Indicator {
+
+    static final double BAND_WIDTH = 2;
+
+    private final RollingWindow window;
+    private final boolean bands;
+
+    MovingAverage(int period, boolean bands) {
+        super(bands ? IndicatorType.Bollinger : IndicatorType.Sma, period);
+        this.window = new RollingWindow(period);
+        this.bands = bands;
+    }
+
+    @Override
+    void update(long timestamp, double price, long volume) {
+        this.window.add(price);
+    }
+
+    @Override
+    IndicatorValue read() {
+        double mean = this.window.mean();
+        double width = this.bands ? BAND_WIDTH * this.window.standardDeviation() : 0;
+        return new IndicatorValue(this.type, this.period, this.window.isFull(), mean, mean - width, mean + width);
+    }
+}
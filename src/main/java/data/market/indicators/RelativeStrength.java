@@ -0,0 +1,50 @@
+package data.market.indicators;
+
+/**
+ * The relative strength index. The first period changes are averaged simply, and later ones with Wilder's smoothing.
+ */
+class RelativeStrength extends Indicator {
+
+    private double averageGain = 0;
+    private double averageLoss = 0;
+    private int changes = 0;
+    private double lastPrice = Double.NaN;
+
+    RelativeStrength(int period) {
+        super(IndicatorType.Rsi, period);
+    }
+
+    @Override
+    void update(long timestamp, double price, long volume) {
+        if (!Double.isNaN(this.lastPrice)) {
+            double change = price - this.lastPrice;
+            double gain = Math.max(0, change);
+            double loss = Math.max(0, -change);
+            if (this.changes < this.period) {
+                this.changes++;
+                this.averageGain += (gain - this.averageGain) / this.changes;
+                this.averageLoss += (loss - this.averageLoss) / this.changes;
+            }
+            else {
+                this.averageGain = (this.averageGain * (this.period - 1) + gain) / this.period;
+                this.averageLoss = (this.averageLoss * (this.period - 1) + loss) / this.period;
+            }
+        }
+        this.lastPrice = price;
+    }
+
+    @Override
+    IndicatorValue read() {
+        double value;
+        if (this.changes == 0) {
+            value = Double.NaN;
+        }
+        else if (this.averageLoss == 0) {
+            value = this.averageGain == 0 ? 50 : 100;
+        }
+        else {
+            value = 100 - 100 / (1 + this.averageGain / this.averageLoss);
+        }
+        return new IndicatorValue(this.type, this.period, this.changes == this.period, value, value, value);
+    }
+}
@@ -0,0 +1,73 @@
+package data.market.indicators;
+
+/**
+ * The last few values of a series in a preallocated ring, with their running sum and sum of squares. The sums are
+ * rebuilt from the ring each time it wraps, so rounding errors from adding and removing values never build up, and
+ * each value still costs O(1) on average.
+ */
+class RollingWindow {
+
+    private final double[] values;
+    private int count = 0;
+    private int next = 0;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+
+    RollingWindow(int size) {
+        this.values = new double[size];
+    }
+
+    void add(double value) {
+        if (this.count == this.values.length) {
+            double old = this.values[this.next];
+            this.sum -= old;
+            this.sumOfSquares -= old * old;
+        }
+        else {
+            this.count++;
+        }
+        this.values[this.next] = value;
+        this.sum += value;
+        this.sumOfSquares += value * value;
+
+        this.next++;
+        if (this.next == this.values.length) {
+            this.next = 0;
+            this.resum();
+        }
+    }
+
+    private void resum() {
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < this.count; i++) {
+            sum += this.values[i];
+            sumOfSquares += this.values[i] * this.values[i];
+        }
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+    }
+
+    boolean isFull() {
+        return this.count == this.values.length;
+    }
+
+    int count() {
+        return this.count;
+    }
+
+    double mean() {
+        return this.count == 0 ? Double.NaN : this.sum / this.count;
+    }
+
+    /**
+     * Gets the population standard deviation of the values.
+     */
+    double standardDeviation() {
+        if (this.count == 0) {
+            return Double.NaN;
+        }
+        double mean = this.sum / this.count;
+        return Math.sqrt(Math.max(0, this.sumOfSquares / this.count - mean * mean));
+    }
+}
@@ -0,0 +1,29 @@
+package data.market.indicators;
+
+/**
+ * The standard deviation of recent log returns, per tick and not annualized, since ticks arrive at no fixed interval.
+ */
+class Volatility extends Indicator {
+
+    private final RollingWindow returns;
+    private double lastPrice = Double.NaN;
+
+    Volatility(int period) {
+        super(IndicatorType.Volatility, period);
+        this.returns = new RollingWindow(period);
+    }
+
+    @Override
+    void update(long timestamp, double price, long volume) {
+        if (!Double.isNaN(this.lastPrice) && this.lastPrice > 0 && price > 0) {
+            this.returns.add(Math.log(price / this.lastPrice));
+        }
+        this.lastPrice = price;
+    }
+
+    @Override
+    IndicatorValue read() {
+        double value = this.returns.standardDeviation();
+        return new IndicatorValue(this.type, this.period, this.returns.isFull(), value, value, value);
+    }
+}
@@ -0,0 +1,59 @@
+package data.market.indicators;
+
+/**
+ * The average of recent prices, each weighted by the volume traded since the price before it. Until any volume has
+ * been seen, such as while only seed ticks have arrived, it is the last price.
+ */
+class VolumeWeightedAverage extends Indicator {
+
+    private final double[] prices;
+    private final long[] volumes;
+    private int count = 0;
+    private int next = 0;
+    private double weightedSum = 0;
+    private long totalVolume = 0;
+
+    private double lastPrice = Double.NaN;
+
+    VolumeWeightedAverage(int period) {
+        super(IndicatorType.Vwap, period);
+        this.prices = new double[period];
+        this.volumes = new long[period];
+    }
+
+    @Override
+    void update(long timestamp, double price, long volume) {
+        if (this.count == this.prices.length) {
+            this.weightedSum -= this.prices[this.next] * this.volumes[this.next];
+            this.totalVolume -= this.volumes[this.next];
+        }
+        else {
+            this.count++;
+        }
+        this.prices[this.next] = price;
+        this.volumes[this.next] = volume;
+        this.weightedSum += price * volume;
+        this.totalVolume += volume;
+        this.lastPrice = price;
+
+        this.next++;
+        if (this.next == this.prices.length) {
+            this.next = 0;
+            this.resum();
+        }
+    }
+
+    private void resum() {
+        double weightedSum = 0;
+        for (int i = 0; i < this.count; i++) {
+            weightedSum += this.prices[i] * this.volumes[i];
+        }
+        this.weightedSum = weightedSum;
+    }
+
+    @Override
+    IndicatorValue read() {
+        double value = this.totalVolume > 0 ? this.weightedSum / this.totalVolume : this.lastPrice;
+        return new IndicatorValue(this.type, this.period, this.count == this.prices.length, value, value, value);
+    }
+}
@@ -0,0 +1,32 @@
+package data.market.options;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Prices a range of a chain's contracts on a fork-join pool, splitting the range in half until each piece is small
+ * enough to price directly. Each piece gets its own scratch space for binomial trees.
+ */
+class ChainTask extends RecursiveAction {
+
+    static final int CONTRACTS_PER_TASK = 32;
+
+    private final OptionChain chain;
+    private final int from;
+    private final int to;
+
+    ChainTask(OptionChain chain, int from, int to) {
+        this.chain = chain;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from <= CONTRACTS_PER_TASK) {
+            this.chain.price(this.from, this.to, new double[this.chain.getSteps() + 1]);
+            return;
+        }
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new ChainTask(this.chain, this.from, middle), new ChainTask(this.chain, middle, this.to));
+    }
+}
@@ -0,0 +1,11 @@
+package data.market.options;
+
+/**
+ * When an option can be exercised.
+ */
+public enum ExerciseStyle {
+    // only at expiry
+    European,
+    // at any time up to expiry, as listed equity options can be
+    American,
+}
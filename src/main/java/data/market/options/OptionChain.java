@@ -0,0 +1,210 @@
+package data.market.options;
+
+import data.market.Price;
+import data.market.securities.Option;
+import data.market.securities.Quote;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Every option on one underlying. Contract terms and results are kept in parallel primitive arrays, one row per
+ * contract, so the whole chain is repriced in one pass that splits across a fork-join pool. Every contract in the
+ * chain is priced from the same underlying tick.
+ */
+class OptionChain {
+
+    private final int steps;
+    private final double[] tree;
+
+    private int count = 0;
+    private Option[] options = new Option[8];
+    private double[] strikes = new double[8];
+    private long[] expiries = new long[8];
+    private boolean[] calls = new boolean[8];
+    private boolean[] americans = new boolean[8];
+    // OptionModel.VALUES results per contract
+    private double[] values = new double[8 * OptionModel.VALUES];
+    // the row of each contract, by symbol id
+    private final Map<Integer, Integer> rows = new HashMap<Integer, Integer>();
+
+    // the latest tick of the underlying, written by the market and read when repricing
+    private volatile Quote tick;
+    private volatile double volatility;
+    // set while the chain is waiting to be repriced
+    final AtomicBoolean queued = new AtomicBoolean();
+
+    // what the chain was last priced with
+    private double spot = Double.NaN;
+    private long pricedAt;
+    private double rate;
+    private double pricedVolatility;
+
+    OptionChain(int steps, double volatility) {
+        this.steps = steps;
+        this.tree = new double[steps + 1];
+        this.volatility = volatility;
+    }
+
+    int getSteps() {
+        return this.steps;
+    }
+
+    void setTick(Quote tick) {
+        this.tick = tick;
+    }
+
+    void setVolatility(double volatility) {
+        this.volatility = volatility;
+    }
+
+    double getVolatility() {
+        return this.volatility;
+    }
+
+    synchronized int size() {
+        return this.count;
+    }
+
+    /**
+     * Adds a contract to the chain, pricing it from the chain's last pricing if there has been one.
+     *
+     * @param option the option
+     * @param underlying the underlying's latest quote, or null if it has none
+     * @param rate the risk-free rate
+     */
+    synchronized void add(Option option, Quote underlying, double rate) {
+        if (this.rows.containsKey(option.getSymbol())) {
+            return;
+        }
+        if (this.count == this.options.length) {
+            int capacity = this.count * 2;
+            this.options = Arrays.copyOf(this.options, capacity);
+            this.strikes = Arrays.copyOf(this.strikes, capacity);
+            this.expiries = Arrays.copyOf(this.expiries, capacity);
+            this.calls = Arrays.copyOf(this.calls, capacity);
+            this.americans = Arrays.copyOf(this.americans, capacity);
+            this.values = Arrays.copyOf(this.values, capacity * OptionModel.VALUES);
+        }
+
+        int row = this.count++;
+        OptionContract contract = option.getContract();
+        this.options[row] = option;
+        this.strikes[row] = Price.toDouble(contract.getStrikeMicros());
+        this.expiries[row] = contract.getExpiryMillis();
+        this.calls[row] = contract.getRight() == OptionRight.Call;
+        this.americans[row] = contract.getStyle() == ExerciseStyle.American;
+        this.rows.put(option.getSymbol(), row);
+
+        if (this.tick == null && underlying != null && underlying.getPriceMicros() != Price.NONE) {
+            this.tick = underlying;
+        }
+        if (Double.isNaN(this.spot) && this.tick != null) {
+            // the first price for the chain, so earlier contracts have none yet either
+            this.pricedWith(this.tick, rate);
+            this.price(0, this.count, this.tree);
+        }
+        else if (!Double.isNaN(this.spot)) {
+            this.price(row, row + 1, this.tree);
+        }
+    }
+
+    /**
+     * Removes a contract from the chain, moving the last contract into its row.
+     */
+    synchronized void remove(Option option) {
+        Integer row = this.rows.remove(option.getSymbol());
+        if (row == null) {
+            return;
+        }
+        int last = --this.count;
+        if (row != last) {
+            this.options[row] = this.options[last];
+            this.strikes[row] = this.strikes[last];
+            this.expiries[row] = this.expiries[last];
+            this.calls[row] = this.calls[last];
+            this.americans[row] = this.americans[last];
+            System.arraycopy(this.values, last * OptionModel.VALUES, this.values, row * OptionModel.VALUES,
+                    OptionModel.VALUES);
+            this.rows.put(this.options[row].getSymbol(), row);
+        }
+        this.options[last] = null;
+    }
+
+    private void pricedWith(Quote tick, double rate) {
+        this.spot = Price.toDouble(tick.getPriceMicros());
+        this.pricedAt = tick.getTimestamp();
+        this.rate = rate;
+        this.pricedVolatility = this.volatility;
+    }
+
+    /**
+     * Reprices every contract from the underlying's latest tick, then updates each option's price.
+     *
+     * @param rate the risk-free rate
+     * @param pool the pool to price large chains on
+     */
+    synchronized void reprice(double rate, ForkJoinPool pool) {
+        Quote tick = this.tick;
+        if (tick == null || this.count == 0) {
+            return;
+        }
+        this.pricedWith(tick, rate);
+        if (this.count <= ChainTask.CONTRACTS_PER_TASK) {
+            this.price(0, this.count, this.tree);
+        }
+        else {
+            pool.invoke(new ChainTask(this, 0, this.count));
+        }
+
+        for (int row = 0; row < this.count; row++) {
+            this.options[row].updatePrice(Price.fromDouble(this.values[row * OptionModel.VALUES]), this.pricedAt);
+        }
+    }
+
+    /**
+     * Prices a range of rows from the chain's last pricing. Rows are independent, so ranges can be priced at once.
+     */
+    void price(int from, int to, double[] tree) {
+        for (int row = from; row < to; row++) {
+            double years = Math.max(0, (this.expiries[row] - this.pricedAt) / OptionModel.MILLIS_PER_YEAR);
+            OptionModel.price(this.calls[row], this.americans[row], this.spot, this.strikes[row], years, this.rate,
+                    this.pricedVolatility, this.steps, tree, this.values, row * OptionModel.VALUES);
+        }
+    }
+
+    /**
+     * Gets the model price and greeks of a contract as last priced.
+     *
+     * @return the greeks, or null if the contract is not in the chain or has not been priced
+     */
+    synchronized OptionGreeks greeks(Option option) {
+        Integer row = this.rows.get(option.getSymbol());
+        if (row == null || Double.isNaN(this.spot)) {
+            return null;
+        }
+        double years = Math.max(0, (this.expiries[row] - this.pricedAt) / OptionModel.MILLIS_PER_YEAR);
+        return new OptionGreeks(this.spot, this.pricedVolatility, years, this.values, row * OptionModel.VALUES);
+    }
+
+    /**
+     * Prices a single contract as the chain would, without adding it.
+     *
+     * @return the price in micros, or Price.NONE if there is no underlying price
+     */
+    long price(OptionContract contract, Quote underlying, double rate) {
+        if (underlying == null || underlying.getPriceMicros() == Price.NONE) {
+            return Price.NONE;
+        }
+        double[] result = new double[OptionModel.VALUES];
+        double years = Math.max(0, (contract.getExpiryMillis() - underlying.getTimestamp())
+                / OptionModel.MILLIS_PER_YEAR);
+        OptionModel.price(contract.getRight() == OptionRight.Call, contract.getStyle() == ExerciseStyle.American,
+                Price.toDouble(underlying.getPriceMicros()), Price.toDouble(contract.getStrikeMicros()), years, rate,
+                this.volatility, this.steps, new double[this.steps + 1], result, 0);
+        return Price.fromDouble(result[OptionModel.PRICE]);
+    }
+}
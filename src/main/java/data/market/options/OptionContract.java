@@ -0,0 +1,160 @@
+package data.market.options;
+
+import data.market.Price;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The terms of an option contract. Contracts are named by OCC symbols, such as AAPL240119C00150000: the
+ * underlying's ticker, the expiry date as yymmdd, C or P, then the strike in thousandths of a dollar as eight digits.
+ * Listed equity options are American, so that is what a parsed symbol describes.
+ */
+public final class OptionContract {
+
+    private static final Pattern SYMBOL = Pattern.compile("([A-Z][A-Z.]{0,5}) *(\\d{6})([CP])(\\d{8})");
+    private static final DateTimeFormatter EXPIRY = DateTimeFormatter.ofPattern("yyMMdd");
+    // options stop trading at the close on their expiry date
+    private static final LocalTime CLOSE = LocalTime.of(16, 0);
+    private static final ZoneId EXCHANGE = ZoneId.of("America/New_York");
+
+    private final String ticker;
+    private final String underlying;
+    private final OptionRight right;
+    private final long strikeMicros;
+    private final LocalDate expiry;
+    private final ExerciseStyle style;
+
+    /**
+     * Creates a contract.
+     *
+     * @param underlying the underlying security's ticker
+     * @param right whether the option is a call or a put
+     * @param strike the strike price, to at most three decimal places
+     * @param expiry the expiry date
+     * @param style when the option can be exercised
+     * @throws IllegalArgumentException if the strike is not positive or cannot be written in an OCC symbol
+     */
+    public OptionContract(String underlying, OptionRight right, BigDecimal strike, LocalDate expiry,
+                          ExerciseStyle style) {
+        if (strike.signum() <= 0 || strike.stripTrailingZeros().scale() > 3
+                || strike.compareTo(BigDecimal.valueOf(100_000)) >= 0) {
+            throw new IllegalArgumentException("An option's strike must be positive with at most three decimals.");
+        }
+        this.underlying = underlying;
+        this.right = right;
+        this.strikeMicros = Price.fromBigDecimal(strike);
+        this.expiry = expiry;
+        this.style = style;
+        this.ticker = underlying + expiry.format(EXPIRY) + (right == OptionRight.Call ? "C" : "P")
+                + String.format("%08d", this.strikeMicros / 1000);
+    }
+
+    /**
+     * Reads a contract's terms from its OCC symbol.
+     *
+     * @param ticker the symbol
+     * @return the contract, or null if the ticker is not an option symbol
+     */
+    public static OptionContract parse(String ticker) {
+        if (ticker == null) {
+            return null;
+        }
+        Matcher matcher = SYMBOL.matcher(ticker);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        LocalDate expiry;
+        try {
+            expiry = LocalDate.parse(matcher.group(2), EXPIRY);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        BigDecimal strike = BigDecimal.valueOf(Long.parseLong(matcher.group(4)), 3);
+        if (strike.signum() <= 0) {
+            return null;
+        }
+        OptionRight right = matcher.group(3).equals("C") ? OptionRight.Call : OptionRight.Put;
+        return new OptionContract(matcher.group(1), right, strike, expiry, ExerciseStyle.American);
+    }
+
+    /**
+     * Checks if a ticker is an option symbol.
+     *
+     * @param ticker the ticker
+     * @return true if the ticker names an option contract
+     */
+    public static boolean isOption(String ticker) {
+        return parse(ticker) != null;
+    }
+
+    /**
+     * Gets the contract's OCC symbol, with no padding after the underlying.
+     *
+     * @return the ticker
+     */
+    public String getTicker() {
+        return this.ticker;
+    }
+
+    public String getUnderlying() {
+        return this.underlying;
+    }
+
+    public OptionRight getRight() {
+        return this.right;
+    }
+
+    public long getStrikeMicros() {
+        return this.strikeMicros;
+    }
+
+    public BigDecimal getStrike() {
+        return Price.toBigDecimal(this.strikeMicros);
+    }
+
+    public LocalDate getExpiry() {
+        return this.expiry;
+    }
+
+    /**
+     * Gets the moment the contract expires, at the close on its expiry date.
+     *
+     * @return the expiry in milliseconds since the epoch
+     */
+    public long getExpiryMillis() {
+        return this.expiry.atTime(CLOSE).atZone(EXCHANGE).toInstant().toEpochMilli();
+    }
+
+    public ExerciseStyle getStyle() {
+        return this.style;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OptionContract)) {
+            return false;
+        }
+        OptionContract other = (OptionContract) o;
+        return this.ticker.equals(other.ticker) && this.style == other.style;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.ticker.hashCode() * 31 + this.style.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.ticker;
+    }
+}
@@ -0,0 +1,83 @@
+package data.market.options;
+
+/**
+ * The model price of an option and its sensitivities at one moment. Vega and rho are per unit of volatility and
+ * rate, so a one point change in volatility moves the price by a hundredth of vega. Theta is per year.
+ */
+public final class OptionGreeks {
+
+    private final double spot;
+    private final double volatility;
+    private final double years;
+    private final double price;
+    private final double delta;
+    private final double gamma;
+    private final double vega;
+    private final double theta;
+    private final double rho;
+
+    OptionGreeks(double spot, double volatility, double years, double[] values, int offset) {
+        this.spot = spot;
+        this.volatility = volatility;
+        this.years = years;
+        this.price = values[offset + OptionModel.PRICE];
+        this.delta = values[offset + OptionModel.DELTA];
+        this.gamma = values[offset + OptionModel.GAMMA];
+        this.vega = values[offset + OptionModel.VEGA];
+        this.theta = values[offset + OptionModel.THETA];
+        this.rho = values[offset + OptionModel.RHO];
+    }
+
+    /**
+     * Gets the underlying's price the option was priced from.
+     *
+     * @return the price in dollars
+     */
+    public double getSpot() {
+        return this.spot;
+    }
+
+    public double getVolatility() {
+        return this.volatility;
+    }
+
+    /**
+     * Gets the time to expiry the option was priced with.
+     *
+     * @return the time in years, or 0 if the option has expired
+     */
+    public double getYears() {
+        return this.years;
+    }
+
+    public double getPrice() {
+        return this.price;
+    }
+
+    public double getDelta() {
+        return this.delta;
+    }
+
+    public double getGamma() {
+        return this.gamma;
+    }
+
+    public double getVega() {
+        return this.vega;
+    }
+
+    public double getTheta() {
+        return this.theta;
+    }
+
+    public double getRho() {
+        return this.rho;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("price %.4f, delta %.4f, gamma %.4f, vega %.4f, theta %.4f, rho %.4f"
+                        + " (spot %.2f, volatility %.2f, %.3f years)", this.price, this.delta, this.gamma, this.vega,
+                this.theta, this.rho, this.spot, this.volatility, this.years);
+    }
+}
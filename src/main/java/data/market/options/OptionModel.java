@@ -0,0 +1,221 @@
+package data.market.options;
+
+/**
+ * Prices options and their greeks. European options, and American calls, which are never worth exercising early on
+ * an underlying that pays no dividends, use the Black-Scholes formula. American puts use a Cox-Ross-Rubinstein
+ * binomial tree. Results are written into a row of an array so whole chains can be priced without allocating: the
+ * price, then delta, gamma, vega, theta and rho. Vega and rho are per unit of volatility and rate, and theta is per
+ * year.
+ */
+public final class OptionModel {
+
+    public static final int PRICE = 0;
+    public static final int DELTA = 1;
+    public static final int GAMMA = 2;
+    public static final int VEGA = 3;
+    public static final int THETA = 4;
+    public static final int RHO = 5;
+    public static final int VALUES = 6;
+
+    public static final int DEFAULT_STEPS = 128;
+
+    static final double MILLIS_PER_YEAR = 365.25 * 24 * 60 * 60 * 1000;
+    // the bumps used to find the binomial tree's vega and rho
+    static final double VOLATILITY_BUMP = 0.01;
+    static final double RATE_BUMP = 0.0001;
+
+    private static final double SQRT_2PI = Math.sqrt(2 * Math.PI);
+
+    private OptionModel() {
+    }
+
+    /**
+     * Prices an option and its greeks.
+     *
+     * @param call true for a call, false for a put
+     * @param american true if the option can be exercised early
+     * @param spot the underlying's price
+     * @param strike the strike price
+     * @param years the time to expiry, in years
+     * @param rate the continuously compounded risk-free rate
+     * @param volatility the underlying's annual volatility
+     * @param steps the number of steps in the binomial tree, at least 2
+     * @param tree scratch space of at least steps + 1 values for the binomial tree
+     * @param out the array the results are written to
+     * @param offset where in the array to write them
+     */
+    public static void price(boolean call, boolean american, double spot, double strike, double years, double rate,
+                             double volatility, int steps, double[] tree, double[] out, int offset) {
+        if (years <= 0 || volatility <= 0 || spot <= 0) {
+            intrinsic(call, spot, strike, out, offset);
+        }
+        else if (!american || call) {
+            blackScholes(call, spot, strike, years, rate, volatility, out, offset);
+        }
+        else {
+            binomial(call, true, spot, strike, years, rate, volatility, steps, tree, out, offset);
+        }
+    }
+
+    /**
+     * Values an expired option at what exercising it would pay.
+     */
+    static void intrinsic(boolean call, double spot, double strike, double[] out, int offset) {
+        double payoff = call ? spot - strike : strike - spot;
+        out[offset + PRICE] = Math.max(0, payoff);
+        out[offset + DELTA] = payoff > 0 ? (call ? 1 : -1) : 0;
+        out[offset + GAMMA] = 0;
+        out[offset + VEGA] = 0;
+        out[offset + THETA] = 0;
+        out[offset + RHO] = 0;
+    }
+
+    /**
+     * Prices a European option with the Black-Scholes formula.
+     */
+    public static void blackScholes(boolean call, double spot, double strike, double years, double rate,
+                                    double volatility, double[] out, int offset) {
+        double root = Math.sqrt(years);
+        double deviation = volatility * root;
+        double d1 = (Math.log(spot / strike) + (rate + volatility * volatility / 2) * years) / deviation;
+        double d2 = d1 - deviation;
+        double discounted = strike * Math.exp(-rate * years);
+        double density = Math.exp(-d1 * d1 / 2) / SQRT_2PI;
+        double decay = -spot * density * volatility / (2 * root);
+
+        if (call) {
+            double n2 = cdf(d2);
+            out[offset + PRICE] = spot * cdf(d1) - discounted * n2;
+            out[offset + DELTA] = cdf(d1);
+            out[offset + THETA] = decay - rate * discounted * n2;
+            out[offset + RHO] = years * discounted * n2;
+        }
+        else {
+            double n2 = cdf(-d2);
+            out[offset + PRICE] = discounted * n2 - spot * cdf(-d1);
+            out[offset + DELTA] = cdf(d1) - 1;
+            out[offset + THETA] = decay + rate * discounted * n2;
+            out[offset + RHO] = -years * discounted * n2;
+        }
+        out[offset + GAMMA] = density / (spot * deviation);
+        out[offset + VEGA] = spot * density * root;
+    }
+
+    /**
+     * Prices an option with a binomial tree. Delta, gamma and theta are read off the first steps of the tree, and
+     * vega and rho come from pricing again with the volatility and rate bumped.
+     */
+    public static void binomial(boolean call, boolean american, double spot, double strike, double years,
+                                double rate, double volatility, int steps, double[] tree, double[] out, int offset) {
+        double price = tree(call, american, spot, strike, years, rate, volatility, steps, tree, out, offset);
+        out[offset + PRICE] = price;
+        out[offset + VEGA] = (tree(call, american, spot, strike, years, rate, volatility + VOLATILITY_BUMP, steps,
+                tree, null, 0) - price) / VOLATILITY_BUMP;
+        out[offset + RHO] = (tree(call, american, spot, strike, years, rate + RATE_BUMP, volatility, steps,
+                tree, null, 0) - price) / RATE_BUMP;
+    }
+
+    /**
+     * Walks a binomial tree back from expiry.
+     *
+     * @param out where to write delta, gamma and theta, or null to only find the price
+     * @return the price
+     */
+    private static double tree(boolean call, boolean american, double spot, double strike, double years,
+                               double rate, double volatility, int steps, double[] values, double[] out,
+                               int offset) {
+        double dt = years / steps;
+        double up = Math.exp(volatility * Math.sqrt(dt));
+        double down = 1 / up;
+        double growth = Math.exp(rate * dt);
+        double p = (growth - down) / (up - down);
+        double q = 1 - p;
+        double discount = 1 / growth;
+        double upSquared = up * up;
+
+        // the lowest price at expiry, stepping up by up squared to each node above
+        double lowest = spot * Math.pow(down, steps);
+        double node = lowest;
+        for (int j = 0; j <= steps; j++) {
+            values[j] = Math.max(0, call ? node - strike : strike - node);
+            node *= upSquared;
+        }
+
+        double v10 = 0;
+        double v11 = 0;
+        double v20 = 0;
+        double v21 = 0;
+        double v22 = 0;
+        for (int i = steps - 1; i >= 0; i--) {
+            lowest *= up;
+            node = lowest;
+            for (int j = 0; j <= i; j++) {
+                double value = discount * (p * values[j + 1] + q * values[j]);
+                if (american) {
+                    value = Math.max(value, call ? node - strike : strike - node);
+                }
+                values[j] = value;
+                node *= upSquared;
+            }
+            if (i == 2) {
+                v20 = values[0];
+                v21 = values[1];
+                v22 = values[2];
+            }
+            else if (i == 1) {
+                v10 = values[0];
+                v11 = values[1];
+            }
+        }
+
+        if (out != null) {
+            double su = spot * up;
+            double sd = spot * down;
+            double suu = su * up;
+            double sdd = sd * down;
+            out[offset + DELTA] = (v11 - v10) / (su - sd);
+            out[offset + GAMMA] = ((v22 - v21) / (suu - spot) - (v21 - v20) / (spot - sdd)) / ((suu - sdd) / 2);
+            out[offset + THETA] = (v21 - values[0]) / (2 * dt);
+        }
+        return values[0];
+    }
+
+    /**
+     * The standard normal cumulative distribution function, by Hart's approximation, which is accurate to double
+     * precision.
+     */
+    static double cdf(double x) {
+        double z = Math.abs(x);
+        if (z > 37) {
+            return x > 0 ? 1 : 0;
+        }
+
+        double tail;
+        double density = Math.exp(-z * z / 2);
+        if (z < 7.07106781186547) {
+            double numerator = 3.52624965998911e-2 * z + 0.700383064443688;
+            numerator = numerator * z + 6.37396220353165;
+            numerator = numerator * z + 33.912866078383;
+            numerator = numerator * z + 112.079291497871;
+            numerator = numerator * z + 221.213596169931;
+            numerator = numerator * z + 220.206867912376;
+            double denominator = 8.83883476483184e-2 * z + 1.75566716318264;
+            denominator = denominator * z + 16.064177579207;
+            denominator = denominator * z + 86.7807322029461;
+            denominator = denominator * z + 296.564248779674;
+            denominator = denominator * z + 637.333633378831;
+            denominator = denominator * z + 793.826512519948;
+            denominator = denominator * z + 440.413735824752;
+            tail = density * numerator / denominator;
+        }
+        else {
+            double fraction = z + 0.65;
+            fraction = z + 4 / fraction;
+            fraction = z + 3 / fraction;
+            fraction = z + 2 / fraction;
+            fraction = z + 1 / fraction;
+            tail = density / fraction / SQRT_2PI;
+        }
+        return x > 0 ? 1 - tail : tail;
+    }
+}
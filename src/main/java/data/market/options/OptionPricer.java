@@ -0,0 +1,228 @@
+package data.market.options;
+
+import data.market.Price;
+import data.market.Symbols;
+import data.market.securities.Option;
+import data.market.securities.Quote;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prices options from their underlyings. The market tells the pricer about every tick, which only records the
+ * underlying's latest price and queues its chain, so a burst of ticks costs one repricing. A pricer thread takes
+ * queued chains and reprices each in one batch, splitting large chains across the common fork-join pool, then
+ * updates the options' prices like any other security's. Options never cost a request to a data provider.
+ */
+public class OptionPricer implements Runnable {
+
+    static final double DEFAULT_RATE = 0.04;
+    static final double DEFAULT_VOLATILITY = 0.25;
+
+    private final int steps;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private volatile double rate = DEFAULT_RATE;
+
+    // chains indexed by the underlying's symbol id, copied whenever a new underlying gets a chain
+    private volatile OptionChain[] chains = new OptionChain[0];
+    private final BlockingQueue<OptionChain> queue = new LinkedBlockingQueue<OptionChain>();
+    // chains queued or being repriced
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object idle = new Object();
+    private final Thread thread;
+
+    public OptionPricer() {
+        this(OptionModel.DEFAULT_STEPS);
+    }
+
+    /**
+     * Creates a pricer and starts its thread.
+     *
+     * @param steps the number of steps in the binomial trees used for American puts
+     */
+    public OptionPricer(int steps) {
+        if (steps < 2) {
+            throw new IllegalArgumentException("A binomial tree needs at least 2 steps.");
+        }
+        this.steps = steps;
+        this.thread = new Thread(this, "option-pricer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stops the pricer's thread. Chains still queued are not repriced.
+     */
+    public void close() {
+        this.thread.interrupt();
+    }
+
+    /**
+     * Reprices queued chains until interrupted.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            OptionChain chain;
+            try {
+                chain = this.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // cleared first, so a tick that arrives while repricing queues the chain again
+            chain.queued.set(false);
+            try {
+                chain.reprice(this.rate, this.pool);
+            } finally {
+                if (this.pending.decrementAndGet() == 0) {
+                    synchronized (this.idle) {
+                        this.idle.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a tick of a security, queueing the chain of options on it to be repriced.
+     *
+     * @param symbol the security's symbol id
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     */
+    public void tick(int symbol, long timestamp, long micros) {
+        OptionChain[] chains = this.chains;
+        if (symbol >= chains.length || chains[symbol] == null || micros == Price.NONE) {
+            return;
+        }
+        OptionChain chain = chains[symbol];
+        chain.setTick(new Quote(micros, timestamp));
+        if (chain.queued.compareAndSet(false, true)) {
+            this.pending.incrementAndGet();
+            this.queue.add(chain);
+        }
+    }
+
+    private synchronized OptionChain chain(String underlying) {
+        int symbol = Symbols.intern(underlying);
+        OptionChain[] chains = this.chains;
+        if (symbol < chains.length && chains[symbol] != null) {
+            return chains[symbol];
+        }
+        // copied rather than written in place, so ticks read a safely published chain
+        chains = Arrays.copyOf(chains, Math.max(symbol + 1, chains.length));
+        chains[symbol] = new OptionChain(this.steps, DEFAULT_VOLATILITY);
+        this.chains = chains;
+        return chains[symbol];
+    }
+
+    private OptionChain existingChain(String underlying) {
+        int symbol = Symbols.id(underlying);
+        OptionChain[] chains = this.chains;
+        return symbol < 0 || symbol >= chains.length ? null : chains[symbol];
+    }
+
+    /**
+     * Prices a contract from a quote of its underlying, without keeping it.
+     *
+     * @param contract the contract
+     * @param underlying the underlying's quote, or null if it has none
+     * @return the price in micros, or Price.NONE if there is no underlying price
+     */
+    public long price(OptionContract contract, Quote underlying) {
+        return this.chain(contract.getUnderlying()).price(contract, underlying, this.rate);
+    }
+
+    /**
+     * Starts repricing an option whenever its underlying ticks.
+     *
+     * @param option the option
+     * @param underlying the underlying's latest quote, or null if it is not in the market
+     */
+    public void add(Option option, Quote underlying) {
+        this.chain(option.getContract().getUnderlying()).add(option, underlying, this.rate);
+    }
+
+    /**
+     * Stops repricing an option.
+     *
+     * @param option the option
+     */
+    public void remove(Option option) {
+        OptionChain chain = this.existingChain(option.getContract().getUnderlying());
+        if (chain != null) {
+            chain.remove(option);
+        }
+    }
+
+    /**
+     * Stops repricing every option.
+     */
+    public synchronized void clear() {
+        this.chains = new OptionChain[0];
+    }
+
+    /**
+     * Gets an option's model price and greeks as last priced.
+     *
+     * @param option the option
+     * @return the greeks, or null if the option is not being priced or its underlying has no price
+     */
+    public OptionGreeks getGreeks(Option option) {
+        OptionChain chain = this.existingChain(option.getContract().getUnderlying());
+        return chain == null ? null : chain.greeks(option);
+    }
+
+    /**
+     * Sets the volatility the options on an underlying are priced with, from their next repricing on.
+     *
+     * @param underlying the underlying's ticker
+     * @param volatility the annual volatility, such as 0.25 for 25%
+     * @throws IllegalArgumentException if the volatility is not positive
+     */
+    public void setVolatility(String underlying, double volatility) {
+        if (!(volatility > 0)) {
+            throw new IllegalArgumentException("Volatility must be positive.");
+        }
+        this.chain(underlying).setVolatility(volatility);
+    }
+
+    /**
+     * Sets the continuously compounded risk-free rate options are priced with, from their next repricing on.
+     *
+     * @param rate the annual rate, such as 0.04 for 4%
+     */
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Waits until no chains are queued or being repriced.
+     *
+     * @param timeoutMillis the longest to wait
+     * @return true if the pricer is idle, false if the wait timed out
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this.idle) {
+            while (this.pending.get() > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    this.idle.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package data.market.options;
+
+/**
+ * Whether an option gives the right to buy or to sell its underlying.
+ */
+public enum OptionRight {
+    Call,
+    Put,
+}
@@ -0,0 +1,395 @@
+package data.market.risk;
+
+import data.market.MarketSnapshot;
+import data.market.Price;
+import data.market.Symbols;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The rolling covariance of the returns of the securities in a market. Each time the market publishes a snapshot,
+ * the log return of every tracked security since the last snapshot is added as one sample, and the oldest sample
+ * drops out once the window is full. A security whose price did not change, or that was not in the market, has a
+ * return of zero for that sample.
+ * <p>
+ * Rather than the covariances themselves, the matrix keeps each security's sum of returns and each pair's sum of
+ * products of returns over the window, so adding a sample is a rank-one update of the upper triangle instead of a
+ * recomputation. The sums are rebuilt from the kept returns once per window, so rounding errors never build up.
+ * Securities get a slot, in the order they are first seen, up to a fixed capacity, and give it back when they leave
+ * the market, so a later security can reuse it. Slots index row-major primitive arrays whose rows are updated in
+ * parallel on the common fork-join pool.
+ */
+public class CovarianceMatrix {
+
+    static final int DEFAULT_CAPACITY = 2048;
+    static final int DEFAULT_WINDOW = 120;
+    static final int INITIAL_STRIDE = 64;
+
+    private final int capacity;
+    private final int window;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    // the length of each row, which grows as securities are added
+    private int stride = 0;
+    // the number of slots ever handed out, including those released since
+    private int size = 0;
+    private long samples = 0;
+    // released slots, reused before any new one is handed out
+    private int[] free = new int[0];
+    private int freeCount = 0;
+
+    // slot + 1 for each symbol id, or 0 if the symbol has no slot
+    private int[] slots = new int[0];
+    private double[] lastPrices = new double[0];
+    private double[] sample = new double[0];
+    private double[] sums = new double[0];
+    // window rows of returns, one per sample, as a ring
+    private double[] returns = new double[0];
+    // sums of products of returns, with only the upper triangle (column >= row) kept
+    private double[] products = new double[0];
+
+    public CovarianceMatrix() {
+        this(DEFAULT_CAPACITY, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a covariance matrix.
+     *
+     * @param capacity the most securities to track
+     * @param window the number of samples the covariances are taken over
+     */
+    public CovarianceMatrix(int capacity, int window) {
+        if (capacity < 1 || window < 2) {
+            throw new IllegalArgumentException("A covariance matrix needs a capacity of 1 and a window of 2.");
+        }
+        this.capacity = capacity;
+        this.window = window;
+    }
+
+    /**
+     * Adds the returns since the last snapshot as a new sample.
+     *
+     * @param snapshot the market's prices at the end of a refresh cycle
+     */
+    public synchronized void sample(MarketSnapshot snapshot) {
+        Arrays.fill(this.sample, 0);
+        int symbolCount = Symbols.size();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            long micros = snapshot.getPriceMicros(symbol);
+            if (micros == Price.NONE) {
+                continue;
+            }
+            // a security seen once the matrix is full is not tracked
+            int slot = this.slot(symbol, true);
+            if (slot < 0) {
+                continue;
+            }
+            double price = Price.toDouble(micros);
+            if (this.lastPrices[slot] > 0 && price > 0) {
+                this.sample[slot] = Math.log(price / this.lastPrices[slot]);
+            }
+            this.lastPrices[slot] = price;
+        }
+        this.add(this.sample);
+    }
+
+    /**
+     * Gets the slot of a symbol, optionally giving it one.
+     *
+     * @return the slot, or -1 if the symbol has none
+     */
+    private int slot(int symbol, boolean assign) {
+        if (symbol >= 0 && symbol < this.slots.length && this.slots[symbol] > 0) {
+            return this.slots[symbol] - 1;
+        }
+        if (!assign || symbol < 0 || (this.size == this.capacity && this.freeCount == 0)) {
+            return -1;
+        }
+
+        if (symbol >= this.slots.length) {
+            this.slots = Arrays.copyOf(this.slots, Math.max(symbol + 1, this.slots.length * 2));
+        }
+        if (this.freeCount > 0) {
+            int slot = this.free[--this.freeCount];
+            this.slots[symbol] = slot + 1;
+            return slot;
+        }
+        if (this.size == this.stride) {
+            this.grow(Math.min(this.capacity, Math.max(INITIAL_STRIDE, this.stride * 2)));
+        }
+        this.slots[symbol] = ++this.size;
+        return this.size - 1;
+    }
+
+    /**
+     * Stops tracking a security, clearing its returns so the slot starts afresh for whichever security gets it next.
+     * A security that comes back gets a new slot, so its first return is taken from its next price rather than from
+     * the price it had when it left.
+     *
+     * @param ticker the security's ticker
+     */
+    public synchronized void release(String ticker) {
+        int symbol = Symbols.id(ticker);
+        int slot = this.slot(symbol, false);
+        if (slot < 0) {
+            return;
+        }
+        this.slots[symbol] = 0;
+
+        int stride = this.stride;
+        this.lastPrices[slot] = 0;
+        this.sums[slot] = 0;
+        for (int row = 0; row < this.window; row++) {
+            this.returns[row * stride + slot] = 0;
+        }
+        // the slot's row and column of the upper triangle
+        for (int i = 0; i <= slot; i++) {
+            this.products[i * stride + slot] = 0;
+        }
+        Arrays.fill(this.products, slot * stride + slot, slot * stride + this.size, 0);
+
+        if (this.freeCount == this.free.length) {
+            this.free = Arrays.copyOf(this.free, Math.max(INITIAL_STRIDE, this.free.length * 2));
+        }
+        this.free[this.freeCount++] = slot;
+    }
+
+    /**
+     * Stops tracking every security and drops every sample.
+     */
+    public synchronized void clear() {
+        this.stride = 0;
+        this.size = 0;
+        this.samples = 0;
+        this.free = new int[0];
+        this.freeCount = 0;
+        this.slots = new int[0];
+        this.lastPrices = new double[0];
+        this.sample = new double[0];
+        this.sums = new double[0];
+        this.returns = new double[0];
+        this.products = new double[0];
+    }
+
+    /**
+     * Lays the arrays out again with longer rows.
+     */
+    private void grow(int stride) {
+        double[] returns = new double[this.window * stride];
+        for (int row = 0; row < this.window; row++) {
+            System.arraycopy(this.returns, row * this.stride, returns, row * stride, this.size);
+        }
+        double[] products = new double[stride * stride];
+        for (int row = 0; row < this.size; row++) {
+            System.arraycopy(this.products, row * this.stride, products, row * stride, this.size);
+        }
+
+        this.returns = returns;
+        this.products = products;
+        this.lastPrices = Arrays.copyOf(this.lastPrices, stride);
+        this.sample = Arrays.copyOf(this.sample, stride);
+        this.sums = Arrays.copyOf(this.sums, stride);
+        this.stride = stride;
+    }
+
+    /**
+     * Adds a sample of returns, replacing the oldest if the window is full.
+     */
+    private void add(double[] sample) {
+        int n = this.size;
+        int stride = this.stride;
+        double[] returns = this.returns;
+        double[] products = this.products;
+        boolean evict = this.samples >= this.window;
+        int offset = (int) (this.samples % this.window) * stride;
+
+        this.pool.invoke(new RowTask((from, to) -> {
+            for (int i = from; i < to; i++) {
+                int row = i * stride;
+                double added = sample[i];
+                if (evict) {
+                    double removed = returns[offset + i];
+                    for (int j = i; j < n; j++) {
+                        products[row + j] += added * sample[j] - removed * returns[offset + j];
+                    }
+                }
+                else {
+                    for (int j = i; j < n; j++) {
+                        products[row + j] += added * sample[j];
+                    }
+                }
+            }
+        }, 0, n));
+
+        for (int i = 0; i < n; i++) {
+            this.sums[i] += sample[i] - (evict ? returns[offset + i] : 0);
+            returns[offset + i] = sample[i];
+        }
+        this.samples++;
+
+        if (this.samples % this.window == 0) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the sums from the kept returns.
+     */
+    private void rebuild() {
+        int n = this.size;
+        int stride = this.stride;
+        int count = this.count();
+        double[] returns = this.returns;
+        double[] products = this.products;
+
+        this.pool.invoke(new RowTask((from, to) -> {
+            for (int i = from; i < to; i++) {
+                int row = i * stride;
+                Arrays.fill(products, row + i, row + n, 0);
+                for (int k = 0; k < count; k++) {
+                    int sampleRow = k * stride;
+                    double value = returns[sampleRow + i];
+                    if (value == 0) {
+                        continue;
+                    }
+                    for (int j = i; j < n; j++) {
+                        products[row + j] += value * returns[sampleRow + j];
+                    }
+                }
+            }
+        }, 0, n));
+
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int k = 0; k < count; k++) {
+                sum += returns[k * stride + i];
+            }
+            this.sums[i] = sum;
+        }
+    }
+
+    /**
+     * Gets the number of samples the covariances are currently taken over.
+     *
+     * @return the number of samples, at most the window
+     */
+    public synchronized int getSampleCount() {
+        return this.count();
+    }
+
+    private int count() {
+        return (int) Math.min(this.samples, this.window);
+    }
+
+    /**
+     * Gets the number of securities being tracked.
+     *
+     * @return the number of securities
+     */
+    public synchronized int size() {
+        return this.size - this.freeCount;
+    }
+
+    /**
+     * The sample covariance between two slots. The caller must hold the lock, or be a task it is waiting on.
+     */
+    private double covariance(int a, int b) {
+        int count = this.count();
+        if (a < 0 || b < 0 || count < 2) {
+            return Double.NaN;
+        }
+        int i = Math.min(a, b);
+        int j = Math.max(a, b);
+        return (this.products[i * this.stride + j] - this.sums[i] * this.sums[j] / count) / (count - 1);
+    }
+
+    private double correlation(int a, int b) {
+        double denominator = Math.sqrt(this.covariance(a, a) * this.covariance(b, b));
+        return denominator > 0 ? this.covariance(a, b) / denominator : Double.NaN;
+    }
+
+    private int[] slots(String[] tickers) {
+        int[] slots = new int[tickers.length];
+        for (int i = 0; i < tickers.length; i++) {
+            slots[i] = this.slot(Symbols.id(tickers[i]), false);
+        }
+        return slots;
+    }
+
+    /**
+     * Gets the covariance of the returns of two securities.
+     *
+     * @param a the first security's ticker
+     * @param b the second security's ticker
+     * @return the covariance per sample, or NaN if either security is not tracked or there are too few samples
+     */
+    public synchronized double covariance(String a, String b) {
+        return this.covariance(this.slot(Symbols.id(a), false), this.slot(Symbols.id(b), false));
+    }
+
+    /**
+     * Gets the correlation of the returns of two securities.
+     *
+     * @param a the first security's ticker
+     * @param b the second security's ticker
+     * @return the correlation, from -1 to 1, or NaN if it cannot be found or either return never changed
+     */
+    public synchronized double correlation(String a, String b) {
+        return this.correlation(this.slot(Symbols.id(a), false), this.slot(Symbols.id(b), false));
+    }
+
+    /**
+     * Gets the covariances between every pair of the specified securities.
+     *
+     * @param tickers the securities' tickers
+     * @return the matrix, row-major with one row and column per ticker, holding NaN for untracked securities
+     */
+    public synchronized double[] covarianceMatrix(String... tickers) {
+        return this.matrix(tickers, false);
+    }
+
+    /**
+     * Gets the correlations between every pair of the specified securities.
+     *
+     * @param tickers the securities' tickers
+     * @return the matrix, row-major with one row and column per ticker, holding NaN for untracked securities
+     */
+    public synchronized double[] correlationMatrix(String... tickers) {
+        return this.matrix(tickers, true);
+    }
+
+    private double[] matrix(String[] tickers, boolean correlation) {
+        int[] slots = this.slots(tickers);
+        int k = slots.length;
+        double[] matrix = new double[k * k];
+        this.pool.invoke(new RowTask((from, to) -> {
+            for (int i = from; i < to; i++) {
+                for (int j = 0; j < k; j++) {
+                    matrix[i * k + j] = correlation ? this.correlation(slots[i], slots[j])
+                            : this.covariance(slots[i], slots[j]);
+                }
+            }
+        }, 0, k));
+        return matrix;
+    }
+
+    /**
+     * Gets the variance of the return of a portfolio of the specified securities over one sample.
+     *
+     * @param tickers the securities' tickers
+     * @param weights the amount held in each security, such as its market value
+     * @return the variance, in the units of the weights squared, or NaN if a security is not tracked or there are
+     * too few samples
+     */
+    public synchronized double portfolioVariance(String[] tickers, double[] weights) {
+        int[] slots = this.slots(tickers);
+        double variance = 0;
+        for (int i = 0; i < slots.length; i++) {
+            for (int j = 0; j < slots.length; j++) {
+                variance += weights[i] * weights[j] * this.covariance(slots[i], slots[j]);
+            }
+        }
+        return variance;
+    }
+}
@@ -0,0 +1,39 @@
+package data.market.risk;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs work over a range of matrix rows on a fork-join pool, splitting the range in half until each piece is small
+ * enough to run directly.
+ */
+class RowTask extends RecursiveAction {
+
+    static final int ROWS_PER_TASK = 16;
+
+    /**
+     * The work done on a range of rows.
+     */
+    interface Rows {
+        void run(int from, int to);
+    }
+
+    private final Rows rows;
+    private final int from;
+    private final int to;
+
+    RowTask(Rows rows, int from, int to) {
+        this.rows = rows;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from <= ROWS_PER_TASK) {
+            this.rows.run(this.from, this.to);
+            return;
+        }
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new RowTask(this.rows, this.from, middle), new RowTask(this.rows, middle, this.to));
+    }
+}
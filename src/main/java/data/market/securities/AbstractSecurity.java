@@ -1,55 +1,160 @@
 package data.market.securities;
 
+import data.market.Price;
+import data.market.PriceListener;
+import data.market.Symbols;
+import data.market.bus.PriceBus;
+
 import java.math.BigDecimal;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbstractSecurity implements Security {
 
-    private final ReadWriteLock securityLock = new ReentrantReadWriteLock();
-    protected SecurityType type;
-    protected String ticker;
-    protected BigDecimal price;
+    protected final SecurityType type;
+    protected final String ticker;
+    protected final int symbol;
+    protected final PriceListener listener;
+    protected final PriceBus bus;
+
+    // the price and its timestamp are published together, so reads never need a lock
+    private final AtomicReference<Quote> quote;
+    // held by writers from setting the quote until its event is published, so events are in the order of the quotes
+    private final Object updateLock = new Object();
+    // the day's volume as of the last price that came with one, or -1 if none has
+    private long dayVolume = -1;
+    private final TickHistory history = new TickHistory();
+
+    /**
+     * Creates a security that records its own history and calls its listener on the thread that updates its price.
+     */
+    protected AbstractSecurity(SecurityType type, String ticker, BigDecimal price, long timestamp,
+                               PriceListener listener) {
+        this(type, ticker, price, timestamp, listener, null);
+    }
+
+    /**
+     * Creates a security that publishes every price it accepts to a price bus, leaving its consumers to record the
+     * history and tell listeners. Its first price is only published once publishAdded is called.
+     */
+    protected AbstractSecurity(SecurityType type, String ticker, BigDecimal price, long timestamp, PriceBus bus) {
+        this(type, ticker, price, timestamp, null, bus);
+    }
+
+    private AbstractSecurity(SecurityType type, String ticker, BigDecimal price, long timestamp,
+                             PriceListener listener, PriceBus bus) {
+        this.type = type;
+        this.ticker = ticker;
+        this.symbol = Symbols.intern(ticker);
+        this.listener = listener;
+        this.bus = bus;
+        this.quote = new AtomicReference<Quote>(new Quote(Price.fromBigDecimal(price), timestamp));
+        if (price != null && bus == null) {
+            this.history.record(timestamp, this.quote.get().getPriceMicros());
+        }
+    }
+
+    /**
+     * Publishes the security's current price to its bus as the price of a new security. A market calls this once the
+     * security is in it, so consumers never see a security that is not in the market or not fully built.
+     */
+    public void publishAdded() {
+        if (this.bus == null) {
+            return;
+        }
+        synchronized (this.updateLock) {
+            Quote quote = this.quote.get();
+            if (quote.getPriceMicros() != Price.NONE) {
+                this.bus.publish(this, quote.getTimestamp(), Price.NONE, quote.getPriceMicros());
+            }
+        }
+    }
 
     @Override
     public String getTicker(){
-        Lock readLock = securityLock.readLock();
-        readLock.lock();
+        return this.ticker;
+    }
 
-        try {
-            return this.ticker;
-        } finally {
-            readLock.unlock();
-        }
+    @Override
+    public int getSymbol() {
+        return this.symbol;
+    }
+
+    @Override
+    public SecurityType getType() {
+        return this.type;
     }
 
     @Override
     public void updatePrice(BigDecimal newPrice) {
-        Lock writeLock = securityLock.writeLock();
-        writeLock.lock();
+        this.updatePrice(newPrice, System.currentTimeMillis());
+    }
 
-        try {
-            if (newPrice != null) {
-                this.price = newPrice;
-            }
-        } finally {
-            writeLock.unlock();
+    @Override
+    public void updatePrice(BigDecimal newPrice, long timestamp) {
+        if (newPrice == null) {
+            return;
         }
+        this.updatePrice(Price.fromBigDecimal(newPrice), timestamp);
     }
 
     @Override
-    public BigDecimal getPrice() {
-        Lock readLock = securityLock.readLock();
-        readLock.lock();
+    public void updatePrice(long newMicros, long timestamp) {
+        this.updatePrice(newMicros, timestamp, 0);
+    }
+
+    @Override
+    public void updatePrice(long newMicros, long timestamp, long dayVolume) {
+        if (newMicros == Price.NONE) {
+            return;
+        }
+
+        long oldMicros;
+        synchronized (this.updateLock) {
+            long volume = 0;
+            if (dayVolume > 0) {
+                // the first volume seen has no earlier one to take it from, and a smaller one starts a new day
+                if (this.dayVolume >= 0) {
+                    volume = dayVolume >= this.dayVolume ? dayVolume - this.dayVolume : dayVolume;
+                }
+                this.dayVolume = dayVolume;
+            }
 
-        try {
-            if (this.price == null) {
-                System.out.println("Darn");
+            oldMicros = this.quote.getAndSet(new Quote(newMicros, timestamp)).getPriceMicros();
+            if (this.bus != null) {
+                this.bus.publish(this, timestamp, oldMicros, newMicros, volume);
+                return;
             }
-            return this.price;
-        } finally {
-            readLock.unlock();
+            this.history.record(timestamp, newMicros);
         }
+
+        // only tell the listener about actual changes
+        if (this.listener != null && oldMicros != newMicros) {
+            this.listener.priceChanged(this.ticker, Price.toBigDecimal(oldMicros), Price.toBigDecimal(newMicros));
+        }
+    }
+
+    @Override
+    public Quote getQuote() {
+        return this.quote.get();
+    }
+
+    @Override
+    public BigDecimal getPrice() {
+        return this.quote.get().getPrice();
+    }
+
+    @Override
+    public long getPriceMicros() {
+        return this.quote.get().getPriceMicros();
+    }
+
+    @Override
+    public TickHistory getHistory() {
+        return this.history;
+    }
+
+    @Override
+    public long getLastUpdated() {
+        return this.quote.get().getTimestamp();
     }
 }
@@ -0,0 +1,34 @@
+package data.market.securities;
+
+import data.market.PriceListener;
+import data.market.bus.PriceBus;
+import data.market.options.OptionContract;
+
+import java.math.BigDecimal;
+
+/**
+ * An option on another security. Its price is the model price per share of the underlying, worked out from the
+ * underlying's price rather than fetched, so a quantity of an option counts the shares it covers.
+ */
+public class Option extends AbstractSecurity {
+
+    private final OptionContract contract;
+
+    public Option(OptionContract contract, BigDecimal price, long timestamp, PriceListener listener) {
+        super(SecurityType.Option, contract.getTicker(), price, timestamp, listener);
+        this.contract = contract;
+    }
+
+    public Option(OptionContract contract, BigDecimal price, long timestamp, PriceBus bus) {
+        super(SecurityType.Option, contract.getTicker(), price, timestamp, bus);
+        this.contract = contract;
+    }
+
+    /**
+     * Gets the terms of the option.
+     * @return the contract.
+     */
+    public OptionContract getContract() {
+        return this.contract;
+    }
+}
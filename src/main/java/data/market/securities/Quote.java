@@ -0,0 +1,54 @@
+package data.market.securities;
+
+import data.market.Price;
+
+import java.math.BigDecimal;
+
+/**
+ * A security's price together with the time it was fetched. Quotes never change, so a security publishes a new
+ * price by swapping in a new quote, and readers always see a price and timestamp that belong together. The price is
+ * kept in fixed-point micros.
+ */
+public final class Quote {
+
+    private final long micros;
+    private final long timestamp;
+
+    /**
+     * Creates a quote.
+     *
+     * @param micros the price in micros, or Price.NONE
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     */
+    public Quote(long micros, long timestamp) {
+        this.micros = micros;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the price.
+     *
+     * @return the price, or null if there is none
+     */
+    public BigDecimal getPrice() {
+        return Price.toBigDecimal(this.micros);
+    }
+
+    /**
+     * Gets the price in micros.
+     *
+     * @return the price in micros, or Price.NONE if there is none
+     */
+    public long getPriceMicros() {
+        return this.micros;
+    }
+
+    /**
+     * Gets the time the price was fetched.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+}
@@ -10,15 +10,75 @@ public interface Security {
      */
     public String getTicker();
 
+    /**
+     * Gets the id of the given security's ticker in the symbol table.
+     * @return the symbol id.
+     */
+    public int getSymbol();
+
+    /**
+     * Gets the type of the given security.
+     * @return the type.
+     */
+    public SecurityType getType();
+
     /**
      * Sets the price of the security to the specified newPrice.
      * @param newPrice the updated price.
      */
     public void updatePrice(BigDecimal newPrice);
 
+    /**
+     * Sets the price of the security to the specified newPrice, as fetched at the specified time.
+     * @param newPrice the updated price.
+     * @param timestamp when the price was fetched, in milliseconds since the epoch.
+     */
+    public void updatePrice(BigDecimal newPrice, long timestamp);
+
+    /**
+     * Sets the price of the security to the specified fixed-point price, as fetched at the specified time.
+     * @param newMicros the updated price in micros.
+     * @param timestamp when the price was fetched, in milliseconds since the epoch.
+     */
+    public void updatePrice(long newMicros, long timestamp);
+
+    /**
+     * Sets the price of the security to the specified fixed-point price, as fetched at the specified time along with
+     * the volume traded so far that day. The change in the day's volume since the last price is the volume passed on
+     * with this one.
+     * @param newMicros the updated price in micros.
+     * @param timestamp when the price was fetched, in milliseconds since the epoch.
+     * @param dayVolume the number of shares traded so far in the trading day, or 0 if unknown.
+     */
+    public void updatePrice(long newMicros, long timestamp, long dayVolume);
+
+    /**
+     * Gets the price of the security together with the time it was fetched.
+     * @return the quote.
+     */
+    public Quote getQuote();
+
     /**
      * Gets the price of the security.
      * @return the price
      */
     public BigDecimal getPrice();
+
+    /**
+     * Gets the price of the security in fixed-point micros, without allocating.
+     * @return the price in micros, or Price.NONE if there is none.
+     */
+    public long getPriceMicros();
+
+    /**
+     * Gets the time the current price was fetched.
+     * @return the time in milliseconds since the epoch.
+     */
+    public long getLastUpdated();
+
+    /**
+     * Gets the recent ticks and OHLC bars of the security.
+     * @return the history.
+     */
+    public TickHistory getHistory();
 }
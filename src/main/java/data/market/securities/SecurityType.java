@@ -2,4 +2,5 @@ package data.market.securities;
 
 public enum SecurityType {
     Stock,
+    Option,
 }
@@ -1,12 +1,25 @@
 package data.market.securities;
 
+import data.market.PriceListener;
+import data.market.bus.PriceBus;
+
 import java.math.BigDecimal;
 
 public class Stock extends AbstractSecurity {
 
     public Stock(String ticker, BigDecimal price){
-        this.type = SecurityType.Stock;
-        this.ticker = ticker;
-        this.price = price;
+        this(ticker, price, System.currentTimeMillis(), (PriceListener) null);
+    }
+
+    public Stock(String ticker, BigDecimal price, PriceListener listener) {
+        this(ticker, price, System.currentTimeMillis(), listener);
+    }
+
+    public Stock(String ticker, BigDecimal price, long timestamp, PriceListener listener) {
+        super(SecurityType.Stock, ticker, price, timestamp, listener);
+    }
+
+    public Stock(String ticker, BigDecimal price, long timestamp, PriceBus bus) {
+        super(SecurityType.Stock, ticker, price, timestamp, bus);
     }
 }
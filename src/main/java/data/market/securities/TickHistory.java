@@ -0,0 +1,165 @@
+package data.market.securities;
+
+import data.market.Bar;
+import data.market.BarResolution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The recent price history of one security. The last TICK_CAPACITY ticks are kept in preallocated primitive ring
+ * buffers, and OHLC bars are built from them as they arrive, keeping the last BAR_CAPACITY bars at each resolution.
+ * Nothing is allocated per tick, so the memory used stays the same however long the simulation runs.
+ */
+public class TickHistory {
+
+    static final int TICK_CAPACITY = 256;
+    static final int BAR_CAPACITY = 60;
+
+    /**
+     * The bars at one resolution. Each bar's fields sit next to each other in a single array, so updating a bar
+     * touches one cache line.
+     */
+    private static class BarSeries {
+
+        private static final int START = 0;
+        private static final int OPEN = 1;
+        private static final int HIGH = 2;
+        private static final int LOW = 3;
+        private static final int CLOSE = 4;
+        private static final int TICKS = 5;
+        private static final int FIELDS = 6;
+
+        private final long length;
+        private final long[] bars = new long[BAR_CAPACITY * FIELDS];
+
+        // the number of bars ever started, so the newest is at (count - 1) % BAR_CAPACITY
+        private long count = 0;
+
+        BarSeries(long length) {
+            this.length = length;
+        }
+
+        private static int offset(long bar) {
+            return (int) (bar % BAR_CAPACITY) * FIELDS;
+        }
+
+        void record(long timestamp, long micros) {
+            if (this.count > 0) {
+                int last = offset(this.count - 1);
+                long start = this.bars[last + START];
+
+                // most ticks land in the newest bar
+                if (timestamp >= start && timestamp - start < this.length) {
+                    this.extend(last, micros);
+                    this.bars[last + CLOSE] = micros;
+                    return;
+                }
+
+                // a late tick only widens the bar it falls in, if that bar is still kept
+                if (timestamp < start) {
+                    long bucket = Math.floorDiv(timestamp, this.length) * this.length;
+                    for (long i = this.count - 1; i >= Math.max(0, this.count - BAR_CAPACITY); i--) {
+                        if (this.bars[offset(i) + START] == bucket) {
+                            this.extend(offset(i), micros);
+                            return;
+                        }
+                    }
+                    return;
+                }
+            }
+
+            int bar = offset(this.count);
+            this.bars[bar + START] = Math.floorDiv(timestamp, this.length) * this.length;
+            this.bars[bar + OPEN] = micros;
+            this.bars[bar + HIGH] = micros;
+            this.bars[bar + LOW] = micros;
+            this.bars[bar + CLOSE] = micros;
+            this.bars[bar + TICKS] = 1;
+            this.count++;
+        }
+
+        private void extend(int bar, long micros) {
+            this.bars[bar + HIGH] = Math.max(this.bars[bar + HIGH], micros);
+            this.bars[bar + LOW] = Math.min(this.bars[bar + LOW], micros);
+            this.bars[bar + TICKS]++;
+        }
+
+        List<Bar> bars(long from, long to) {
+            List<Bar> bars = new ArrayList<Bar>();
+            for (long i = Math.max(0, this.count - BAR_CAPACITY); i < this.count; i++) {
+                int bar = offset(i);
+                long start = this.bars[bar + START];
+                if (start >= from && start < to) {
+                    bars.add(new Bar(start, this.bars[bar + OPEN], this.bars[bar + HIGH], this.bars[bar + LOW],
+                            this.bars[bar + CLOSE], (int) this.bars[bar + TICKS]));
+                }
+            }
+            return bars;
+        }
+    }
+
+    // each tick's time and price sit next to each other
+    private final long[] ticks = new long[TICK_CAPACITY * 2];
+    private long tickCount = 0;
+
+    private final BarSeries[] series;
+
+    /**
+     * Creates an empty history.
+     */
+    public TickHistory() {
+        BarResolution[] resolutions = BarResolution.values();
+        this.series = new BarSeries[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            this.series[i] = new BarSeries(resolutions[i].getMillis());
+        }
+    }
+
+    /**
+     * Records a tick.
+     *
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     */
+    public synchronized void record(long timestamp, long micros) {
+        int slot = (int) (this.tickCount % TICK_CAPACITY) * 2;
+        this.ticks[slot] = timestamp;
+        this.ticks[slot + 1] = micros;
+        this.tickCount++;
+
+        for (BarSeries bars : this.series) {
+            bars.record(timestamp, micros);
+        }
+    }
+
+    /**
+     * Gets the kept bars that start within a range of time, oldest first.
+     *
+     * @param resolution the length of each bar
+     * @param from the earliest start, inclusive, in milliseconds since the epoch
+     * @param to the latest start, exclusive, in milliseconds since the epoch
+     * @return the bars
+     */
+    public synchronized List<Bar> getBars(BarResolution resolution, long from, long to) {
+        return this.series[resolution.ordinal()].bars(from, to);
+    }
+
+    /**
+     * Copies the most recent ticks into the specified arrays, oldest first.
+     *
+     * @param timestamps where the tick times are copied to
+     * @param prices where the tick prices, in micros, are copied to
+     * @return the number of ticks copied, which is at most the length of the shorter array
+     */
+    public synchronized int copyTicks(long[] timestamps, long[] prices) {
+        int copied = (int) Math.min(Math.min(timestamps.length, prices.length),
+                Math.min(this.tickCount, TICK_CAPACITY));
+        for (int i = 0; i < copied; i++) {
+            int slot = (int) ((this.tickCount - copied + i) % TICK_CAPACITY) * 2;
+            timestamps[i] = this.ticks[slot];
+            prices[i] = this.ticks[slot + 1];
+        }
+        return copied;
+    }
+}
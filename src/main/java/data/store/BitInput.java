@@ -0,0 +1,49 @@
+package data.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values bit by bit, most significant bit first, from a region of a buffer. Reads use absolute positions, so
+ * several inputs can share a buffer across threads.
+ */
+class BitInput {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bits = 0;
+
+    BitInput(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    boolean readBit() {
+        int b = this.buffer.get(this.offset + (int) (this.bits >>> 3));
+        boolean bit = (b & (0x80 >>> (this.bits & 7))) != 0;
+        this.bits++;
+        return bit;
+    }
+
+    /**
+     * Reads an unsigned value.
+     *
+     * @param count the number of bits, from 1 to 64
+     */
+    long read(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (this.readBit() ? 1 : 0);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a two's complement value.
+     *
+     * @param count the number of bits, from 1 to 64
+     */
+    long readSigned(int count) {
+        long value = this.read(count);
+        return count == 64 ? value : (value << (64 - count)) >> (64 - count);
+    }
+}
@@ -0,0 +1,50 @@
+package data.store;
+
+import java.util.Arrays;
+
+/**
+ * Writes values bit by bit, most significant bit first, into a growable byte array.
+ */
+class BitOutput {
+
+    private byte[] bytes = new byte[256];
+    private long bits = 0;
+
+    /**
+     * Writes the low bits of a value.
+     *
+     * @param value the value
+     * @param count the number of low bits to write, from 1 to 64
+     */
+    void write(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            int index = (int) (this.bits >>> 3);
+            if (index == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+            }
+            if (((value >>> i) & 1) != 0) {
+                this.bytes[index] |= (byte) (0x80 >>> (this.bits & 7));
+            }
+            this.bits++;
+        }
+    }
+
+    /**
+     * Gets the number of bytes written, counting a partly written last byte.
+     */
+    int byteLength() {
+        return (int) ((this.bits + 7) >>> 3);
+    }
+
+    byte[] bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Empties the output so it can be reused.
+     */
+    void reset() {
+        Arrays.fill(this.bytes, 0, this.byteLength(), (byte) 0);
+        this.bits = 0;
+    }
+}
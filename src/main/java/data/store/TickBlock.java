@@ -0,0 +1,224 @@
+package data.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes blocks of compressed ticks. Each block starts with a fixed header holding its length, its
+ * number of ticks, the first and last timestamps and the first price. The remaining ticks follow as a bit stream:
+ * timestamps as the change in the gap between ticks (delta-of-delta), which is usually zero for a steady refresh
+ * interval, and prices as the XOR with the previous price, which is zero for an unchanged price and otherwise has
+ * few meaningful bits.
+ */
+class TickBlock {
+
+    static final int HEADER_SIZE = 32;
+    static final int MAX_TICKS = 1024;
+
+    private final BitOutput output = new BitOutput();
+
+    private int count = 0;
+    private long firstTimestamp;
+    private long firstPrice;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastPrice;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    /**
+     * Gets the number of ticks in the block.
+     */
+    int count() {
+        return this.count;
+    }
+
+    boolean isFull() {
+        return this.count == MAX_TICKS;
+    }
+
+    /**
+     * Adds a tick to the block. Ticks must be added in time order.
+     */
+    void append(long timestamp, long micros) {
+        if (this.count == 0) {
+            this.firstTimestamp = timestamp;
+            this.firstPrice = micros;
+            this.lastTimestamp = timestamp;
+            this.lastDelta = 0;
+            this.lastPrice = micros;
+            this.count = 1;
+            return;
+        }
+
+        long delta = timestamp - this.lastTimestamp;
+        this.writeDeltaOfDelta(delta - this.lastDelta);
+        this.writePrice(micros);
+
+        this.lastTimestamp = timestamp;
+        this.lastDelta = delta;
+        this.lastPrice = micros;
+        this.count++;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            this.output.write(0b0, 1);
+        }
+        else if (dod >= -64 && dod < 64) {
+            this.output.write(0b10, 2);
+            this.output.write(dod, 7);
+        }
+        else if (dod >= -256 && dod < 256) {
+            this.output.write(0b110, 3);
+            this.output.write(dod, 9);
+        }
+        else if (dod >= -2048 && dod < 2048) {
+            this.output.write(0b1110, 4);
+            this.output.write(dod, 12);
+        }
+        else {
+            this.output.write(0b1111, 4);
+            this.output.write(dod, 64);
+        }
+    }
+
+    private void writePrice(long micros) {
+        long xor = micros ^ this.lastPrice;
+        if (xor == 0) {
+            this.output.write(0b0, 1);
+            return;
+        }
+
+        int leading = Long.numberOfLeadingZeros(xor);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (this.lastLeading >= 0 && leading >= this.lastLeading && trailing >= this.lastTrailing) {
+            // the meaningful bits fit in the previous window
+            this.output.write(0b10, 2);
+            this.output.write(xor >>> this.lastTrailing, 64 - this.lastLeading - this.lastTrailing);
+        }
+        else {
+            int length = 64 - leading - trailing;
+            this.output.write(0b11, 2);
+            this.output.write(leading, 6);
+            this.output.write(length - 1, 6);
+            this.output.write(xor >>> trailing, length);
+            this.lastLeading = leading;
+            this.lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Writes the block, header and all, into a buffer.
+     *
+     * @return the buffer, ready to be read
+     */
+    ByteBuffer toBuffer() {
+        int length = HEADER_SIZE + this.output.byteLength();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        buffer.putInt(this.count);
+        buffer.putLong(this.firstTimestamp);
+        buffer.putLong(this.lastTimestamp);
+        buffer.putLong(this.firstPrice);
+        buffer.put(this.output.bytes(), 0, this.output.byteLength());
+        buffer.flip();
+        return buffer;
+    }
+
+    long firstTimestamp() {
+        return this.firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+    /**
+     * Empties the block so it can be reused.
+     */
+    void reset() {
+        this.output.reset();
+        this.count = 0;
+        this.lastLeading = -1;
+    }
+
+    /**
+     * Checks that a block header is plausible and fits within the specified limit.
+     *
+     * @return the block's length, or -1 if there is no valid block at the offset
+     */
+    static int validLength(ByteBuffer buffer, int offset, long limit) {
+        if (offset + HEADER_SIZE > limit) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        int count = buffer.getInt(offset + 4);
+        if (length < HEADER_SIZE || offset + (long) length > limit || count < 1 || count > MAX_TICKS
+                || buffer.getLong(offset + 8) > buffer.getLong(offset + 16)) {
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes the block at an offset, passing its ticks within a time range to a visitor.
+     *
+     * @param from the earliest time, inclusive
+     * @param to the latest time, exclusive
+     * @return the number of ticks visited
+     */
+    static int decode(ByteBuffer buffer, int offset, long from, long to, TickVisitor visitor) {
+        int count = buffer.getInt(offset + 4);
+        long timestamp = buffer.getLong(offset + 8);
+        long price = buffer.getLong(offset + 24);
+        BitInput input = new BitInput(buffer, offset + HEADER_SIZE);
+
+        int visited = 0;
+        long delta = 0;
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                delta += readDeltaOfDelta(input);
+                timestamp += delta;
+
+                if (input.readBit()) {
+                    if (!input.readBit()) {
+                        price ^= input.read(64 - leading - trailing) << trailing;
+                    }
+                    else {
+                        leading = (int) input.read(6);
+                        int length = (int) input.read(6) + 1;
+                        trailing = 64 - leading - length;
+                        price ^= input.read(length) << trailing;
+                    }
+                }
+            }
+
+            if (timestamp >= to) {
+                break;
+            }
+            if (timestamp >= from) {
+                visitor.tick(timestamp, price);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static long readDeltaOfDelta(BitInput input) {
+        if (!input.readBit()) {
+            return 0;
+        }
+        if (!input.readBit()) {
+            return input.readSigned(7);
+        }
+        if (!input.readBit()) {
+            return input.readSigned(9);
+        }
+        if (!input.readBit()) {
+            return input.readSigned(12);
+        }
+        return input.readSigned(64);
+    }
+}
@@ -0,0 +1,521 @@
+package data.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only store of every price tick observed for each ticker. Each ticker gets its own directory of segment
+ * files, and each segment holds a run of compressed blocks of up to {@link TickBlock#MAX_TICKS} ticks. A sparse
+ * index of each block's time range is kept in memory, rebuilt on open from the block headers, so range queries only
+ * decode the blocks they overlap. Queries read through memory-mapped segments.
+ * <p>
+ * Appending never blocks: ticks go onto a bounded queue and are dropped and counted if it is full. A single writer
+ * thread drains the queue in batches into per-ticker blocks, writes out blocks as they fill, writes out partial blocks
+ * every few seconds so recent ticks survive a crash, and then forces all the files it touched to disk at once.
+ * <p>
+ * A store's directory is locked while it is open, so two processes never append to the same segments.
+ */
+public class TickStore implements Closeable {
+
+    static final int MAGIC = 0x5449434B;
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER = 8;
+    static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    static final int QUEUE_CAPACITY = 65536;
+    static final int BATCH_SIZE = 4096;
+    static final long FLUSH_MILLIS = 5000;
+    static final int MAX_OPEN_CHANNELS = 256;
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String LOCK_FILE = ".lock";
+
+    /**
+     * A tick waiting to be written, or a marker asking the writer to flush, and to stop once it has if the store is
+     * closing.
+     */
+    private static class Entry {
+        final String ticker;
+        final long timestamp;
+        final long micros;
+        final CountDownLatch flushed;
+        final boolean close;
+
+        Entry(String ticker, long timestamp, long micros, CountDownLatch flushed, boolean close) {
+            this.ticker = ticker;
+            this.timestamp = timestamp;
+            this.micros = micros;
+            this.flushed = flushed;
+            this.close = close;
+        }
+    }
+
+    /**
+     * Where a block lives and what time range it covers.
+     */
+    private static class BlockRef {
+        final long first;
+        final long last;
+        final int segment;
+        final int offset;
+        final int length;
+
+        BlockRef(long first, long last, int segment, int offset, int length) {
+            this.first = first;
+            this.last = last;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Everything known about one ticker's series. The index and mappings are shared with queries, so they are guarded
+     * by the series itself; the pending block is only touched by the writer thread.
+     */
+    private static class Series {
+        final Path directory;
+        final List<BlockRef> index = new ArrayList<BlockRef>();
+        final Map<Integer, MappedByteBuffer> mapped = new HashMap<Integer, MappedByteBuffer>();
+        final TickBlock pending = new TickBlock();
+        int segment;
+        long segmentLength;
+        long lastTimestamp = Long.MIN_VALUE;
+
+        Series(Path directory) {
+            this.directory = directory;
+        }
+
+        Path segmentPath(int segment) {
+            return this.directory.resolve(segment + SEGMENT_SUFFIX);
+        }
+    }
+
+    private final Path root;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Map<String, Series> series = new ConcurrentHashMap<String, Series>();
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    // only touched by the writer thread
+    private final LinkedHashMap<Path, FileChannel> channels = new LinkedHashMap<Path, FileChannel>(16, 0.75f, true);
+    private final List<FileChannel> dirty = new ArrayList<FileChannel>();
+
+    /**
+     * Opens a tick store, creating its directory if needed and indexing any ticks already in it.
+     *
+     * @param root the store's directory
+     * @throws IOException if the directory cannot be created or read, or another store has it open
+     */
+    public TickStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+
+        // locked before recovering, since recovery truncates segments another process may be appending to
+        this.lockChannel = FileChannel.open(root.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = this.lockChannel.tryLock();
+        } catch (IOException | OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            this.lockChannel.close();
+            throw new IOException("The tick store is open elsewhere: " + root);
+        }
+        this.lock = lock;
+
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root)) {
+            for (Path directory : directories) {
+                if (Files.isDirectory(directory)) {
+                    Series series = new Series(directory);
+                    this.recover(series);
+                    this.series.put(directory.getFileName().toString(), series);
+                }
+            }
+        } catch (IOException e) {
+            this.lockChannel.close();
+            throw e;
+        }
+
+        this.writer = new Thread(this::write, "tick-store-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a tick to be stored. Ticks for a ticker that are older than the last one stored are ignored.
+     *
+     * @param ticker the security's ticker
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     * @return true if the tick was queued, or false if the queue was full and it was dropped
+     */
+    public boolean append(String ticker, long timestamp, long micros) {
+        if (this.closed || !this.queue.offer(new Entry(ticker, timestamp, micros, null, false))) {
+            this.dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of ticks dropped because the writer could not keep up.
+     *
+     * @return the number of dropped ticks
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Waits until every tick queued so far has been written and forced to disk.
+     *
+     * @throws IOException if interrupted while waiting
+     */
+    public void flush() throws IOException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        try {
+            this.queue.put(new Entry(null, 0, 0, flushed, false));
+            while (!flushed.await(100, TimeUnit.MILLISECONDS)) {
+                if (!this.writer.isAlive()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the tick store.");
+        }
+    }
+
+    /**
+     * Reads back the stored ticks of a security within a range of time. Ticks still waiting in the writer are not
+     * included until they are flushed.
+     *
+     * @param ticker the security's ticker
+     * @param from the earliest time, inclusive, in milliseconds since the epoch
+     * @param to the latest time, exclusive, in milliseconds since the epoch
+     * @param visitor receives each tick, oldest first
+     * @return the number of ticks visited
+     * @throws IOException if a segment cannot be read
+     */
+    public int query(String ticker, long from, long to, TickVisitor visitor) throws IOException {
+        Series series = this.series.get(directoryName(ticker));
+        if (series == null || from >= to) {
+            return 0;
+        }
+
+        List<BlockRef> blocks = new ArrayList<BlockRef>();
+        synchronized (series) {
+            // the blocks are in time order, so binary search for the first that could overlap
+            int low = 0;
+            int high = series.index.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (series.index.get(mid).last < from) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < series.index.size() && series.index.get(i).first < to; i++) {
+                blocks.add(series.index.get(i));
+            }
+        }
+
+        int visited = 0;
+        for (BlockRef block : blocks) {
+            ByteBuffer buffer = this.map(series, block);
+            visited += TickBlock.decode(buffer, block.offset, from, to, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Gets a read-only mapping of the segment holding a block, mapping it again if the segment has grown past the
+     * block since it was last mapped.
+     */
+    private ByteBuffer map(Series series, BlockRef block) throws IOException {
+        synchronized (series) {
+            MappedByteBuffer buffer = series.mapped.get(block.segment);
+            if (buffer == null || buffer.capacity() < block.offset + block.length) {
+                Path path = series.segmentPath(block.segment);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                series.mapped.put(block.segment, buffer);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Writes out any queued ticks, stops the writer and closes every file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        // nothing new is accepted, and the writer stops once it has written out everything before the marker
+        this.closed = true;
+        try {
+            this.queue.put(new Entry(null, 0, 0, new CountDownLatch(1), true));
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (FileChannel channel : this.channels.values()) {
+            channel.close();
+        }
+        this.channels.clear();
+        this.lock.release();
+        this.lockChannel.close();
+    }
+
+    /**
+     * Turns a ticker into a safe directory name.
+     */
+    static String directoryName(String ticker) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < ticker.length(); i++) {
+            char c = ticker.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+                name.append(c);
+            }
+            else if (c >= 'a' && c <= 'z') {
+                name.append((char) (c - 'a' + 'A'));
+            }
+            else {
+                name.append('_').append(Integer.toHexString(c)).append('_');
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Indexes the blocks in every segment of a series. A block cut short by a crash ends its segment, so the segment
+     * is truncated there and appending carries on from the last whole block.
+     */
+    private void recover(Series series) throws IOException {
+        List<Integer> segments = new ArrayList<Integer>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(series.directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        segments.sort(null);
+
+        for (int segment : segments) {
+            try (FileChannel channel = FileChannel.open(series.segmentPath(segment), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                long valid = SEGMENT_HEADER;
+                if (size < SEGMENT_HEADER) {
+                    valid = 0;
+                }
+                else {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                        throw new IOException("Not a tick store segment: " + series.segmentPath(segment));
+                    }
+
+                    int length;
+                    while ((length = TickBlock.validLength(buffer, (int) valid, size)) > 0) {
+                        long first = buffer.getLong((int) valid + 8);
+                        long last = buffer.getLong((int) valid + 16);
+                        series.index.add(new BlockRef(first, last, segment, (int) valid, length));
+                        series.lastTimestamp = last;
+                        valid += length;
+                    }
+                }
+                if (valid < size) {
+                    channel.truncate(valid);
+                }
+                series.segment = segment;
+                series.segmentLength = valid;
+            }
+        }
+    }
+
+    /**
+     * The writer thread's loop.
+     */
+    private void write() {
+        List<Entry> batch = new ArrayList<Entry>(BATCH_SIZE);
+        long nextFlush = System.currentTimeMillis() + FLUSH_MILLIS;
+        boolean stopping = false;
+
+        while (true) {
+            try {
+                // once stopping, only what is already queued is written
+                long wait = stopping ? 0 : Math.max(1, nextFlush - System.currentTimeMillis());
+                Entry first = this.queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    this.queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            boolean flush = System.currentTimeMillis() >= nextFlush;
+            List<CountDownLatch> waiting = new ArrayList<CountDownLatch>();
+            for (Entry entry : batch) {
+                if (entry.flushed != null) {
+                    waiting.add(entry.flushed);
+                    flush = true;
+                    stopping |= entry.close;
+                }
+                else {
+                    this.add(entry);
+                }
+            }
+            batch.clear();
+
+            if (flush || stopping) {
+                for (Series series : this.series.values()) {
+                    if (series.pending.count() > 0) {
+                        this.writeBlock(series);
+                    }
+                }
+                nextFlush = System.currentTimeMillis() + FLUSH_MILLIS;
+            }
+            this.force();
+            for (CountDownLatch latch : waiting) {
+                latch.countDown();
+            }
+            // every pending block has been written and forced, so nothing is lost by stopping here
+            if (stopping && this.queue.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds a tick to its series' pending block, writing the block out once it is full.
+     */
+    private void add(Entry entry) {
+        String name = directoryName(entry.ticker);
+        Series series = this.series.get(name);
+        if (series == null) {
+            series = new Series(this.root.resolve(name));
+            this.series.put(name, series);
+        }
+
+        if (entry.timestamp < series.lastTimestamp) {
+            return;
+        }
+        series.pending.append(entry.timestamp, entry.micros);
+        series.lastTimestamp = entry.timestamp;
+        if (series.pending.isFull()) {
+            this.writeBlock(series);
+        }
+    }
+
+    /**
+     * Writes a series' pending block to the end of its current segment, starting a new segment if it is full. The
+     * block is dropped if it cannot be written, since the writer has nobody to report the failure to.
+     */
+    private void writeBlock(Series series) {
+        ByteBuffer block = series.pending.toBuffer();
+        long first = series.pending.firstTimestamp();
+        long last = series.pending.lastTimestamp();
+        series.pending.reset();
+
+        try {
+            int segment = series.segment;
+            long offset = series.segmentLength;
+            if (offset == 0 || offset + block.remaining() > SEGMENT_SIZE) {
+                if (offset != 0) {
+                    segment++;
+                }
+                Files.createDirectories(series.directory);
+                FileChannel channel = this.channel(series.segmentPath(segment));
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                offset = SEGMENT_HEADER;
+            }
+
+            FileChannel channel = this.channel(series.segmentPath(segment));
+            int length = block.remaining();
+            while (block.hasRemaining()) {
+                channel.write(block, offset + length - block.remaining());
+            }
+            if (!this.dirty.contains(channel)) {
+                this.dirty.add(channel);
+            }
+
+            synchronized (series) {
+                series.segment = segment;
+                series.segmentLength = offset + length;
+                series.index.add(new BlockRef(first, last, segment, (int) offset, length));
+            }
+        } catch (IOException e) {
+            this.dropped.addAndGet(block.getInt(4));
+        }
+    }
+
+    /**
+     * Gets an open channel for a segment, closing the least recently used one if too many are open.
+     */
+    private FileChannel channel(Path path) throws IOException {
+        FileChannel channel = this.channels.get(path);
+        if (channel == null) {
+            if (this.channels.size() >= MAX_OPEN_CHANNELS) {
+                Map.Entry<Path, FileChannel> eldest = this.channels.entrySet().iterator().next();
+                if (this.dirty.remove(eldest.getValue())) {
+                    eldest.getValue().force(false);
+                }
+                eldest.getValue().close();
+                this.channels.remove(eldest.getKey());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.channels.put(path, channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Forces every file written since the last call to disk.
+     */
+    private void force() {
+        for (FileChannel channel : this.dirty) {
+            try {
+                channel.force(false);
+            } catch (IOException ignored) {
+            }
+        }
+        this.dirty.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package data.store;
+
+/**
+ * Receives ticks read back from a tick store.
+ */
+public interface TickVisitor {
+
+    /**
+     * Called for each tick, oldest first.
+     *
+     * @param timestamp when the price was fetched, in milliseconds since the epoch
+     * @param micros the price in micros
+     */
+    void tick(long timestamp, long micros);
+}
@@ -0,0 +1,120 @@
+package data;
+
+import account.Account;
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measures trade throughput with several threads trading across several portfolios of one account. Every price
+ * fetch waits a little, as a request to a provider would. The baseline runs each trade under one account-wide lock,
+ * held through the fetch as the account's write lock used to be, and is compared with the account's own
+ * per-portfolio locking.
+ * Run with: java -cp target/classes:target/test-classes data.AccountContentionBenchmark [trades per thread]
+ */
+public class AccountContentionBenchmark {
+
+    static final int[] THREADS = { 1, 2, 4, 8 };
+    static final int[] PORTFOLIOS = { 1, 4, 16 };
+    static final int SECURITIES = 32;
+    static final long FETCH_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * Serves prices from a market, waiting on each fetch as a provider request would.
+     */
+    static class SlowDataManager extends PortfolioValuationBenchmark.MarketDataManager {
+
+        SlowDataManager(Market market) {
+            super(market);
+        }
+
+        @Override
+        public long getPriceMicros(String ticker, long maxAge) {
+            LockSupport.parkNanos(FETCH_NANOS);
+            return super.getPriceMicros(ticker, maxAge);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int trades = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+
+        Market market = new StockMarket();
+        for (int i = 0; i < SECURITIES; i++) {
+            market.addSecurity(String.format("C%03d", i), SecurityType.Stock, BigDecimal.valueOf(10 + i));
+        }
+        DataManager data = new SlowDataManager(market);
+
+        for (int round = 0; round < 2; round++) {
+            for (int portfolios : PORTFOLIOS) {
+                for (int threads : THREADS) {
+                    double global = run(data, threads, portfolios, trades, new ReentrantLock());
+                    double perPortfolio = run(data, threads, portfolios, trades, null);
+                    if (round == 1) {
+                        System.out.printf("%2d threads, %2d portfolios: account lock %6.0f trades/s, per portfolio"
+                                + " %6.0f trades/s%n", threads, portfolios, global, perPortfolio);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the trades and returns how many completed per second.
+     *
+     * @param global a lock every trade is made under, or null to rely on the account's own locking
+     */
+    private static double run(final DataManager data, int threads, final int portfolios, final int trades,
+                              final ReentrantLock global) throws InterruptedException {
+        final Account account = new Account(BigDecimal.valueOf(1_000_000_000L));
+        for (int p = 0; p < portfolios; p++) {
+            account.createPortfolio("P" + p);
+            account.addPortfolioCash("P" + p, BigDecimal.valueOf(1_000_000L));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < trades; i++) {
+                    // each sale sells what the buy before it bought
+                    String portfolio = "P" + (thread + i / 2) % portfolios;
+                    String ticker = String.format("C%03d", (thread * 7 + i / 2) % SECURITIES);
+                    if (global != null) {
+                        global.lock();
+                    }
+                    try {
+                        if (i % 2 == 0) {
+                            account.buySecurity(data, portfolio, ticker, 1);
+                        }
+                        else {
+                            account.sellSecurity(data, portfolio, ticker, 1);
+                        }
+                    } finally {
+                        if (global != null) {
+                            global.unlock();
+                        }
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return threads * (double) trades / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,64 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.AlphaVantageResponseParser;
+import kong.unirest.JsonNode;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares reading a GLOBAL_QUOTE response by building a Unirest JsonNode tree, as the grabber used to, against the
+ * streaming AlphaVantageResponseParser. Reports the time and bytes allocated per parse.
+ * Run with: java -cp target/classes:target/test-classes:[unirest jar] data.AlphaVantageParserBenchmark
+ */
+public class AlphaVantageParserBenchmark {
+
+    static final int WARMUP = 200_000;
+    static final int ITERATIONS = 1_000_000;
+
+    interface Parse {
+        BigDecimal price(byte[] body) throws APICallException;
+    }
+
+    static BigDecimal jsonTree(byte[] body) {
+        JsonNode node = new JsonNode(new String(body, StandardCharsets.UTF_8));
+        return new BigDecimal(node.getObject().getJSONObject("Global Quote").getString("05. price"));
+    }
+
+    static BigDecimal streaming(byte[] body) throws APICallException {
+        return AlphaVantageResponseParser.parseQuote("IBM", body).getPrice();
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void run(String name, Parse parse, byte[] body) throws APICallException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += parse.price(body).scale();
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += parse.price(body).scale();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        System.out.println(String.format("%-10s %8.1f ns/op %8d B/op   (%d)", name, (double) nanos / ITERATIONS,
+                bytes / ITERATIONS, sink));
+    }
+
+    public static void main(String[] args) throws APICallException {
+        byte[] body = AlphaVantageResponseParserTest.QUOTE.getBytes(StandardCharsets.UTF_8);
+        run("json tree", AlphaVantageParserBenchmark::jsonTree, body);
+        run("streaming", AlphaVantageParserBenchmark::streaming, body);
+    }
+}
@@ -0,0 +1,75 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.AlphaVantageResponseParser;
+import data.grabber.SecurityDetail;
+import data.grabber.UnknownTickerException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+public class AlphaVantageResponseParserTest {
+
+    static final String QUOTE = "{\n" +
+            "    \"Global Quote\": {\n" +
+            "        \"01. symbol\": \"IBM\",\n" +
+            "        \"02. open\": \"143.5000\",\n" +
+            "        \"05. price\": \"144.0700\",\n" +
+            "        \"06. volume\": \"4213716\",\n" +
+            "        \"07. latest trading day\": \"2021-03-05\",\n" +
+            "        \"10. change percent\": \"0.3553%\"\n" +
+            "    }\n" +
+            "}";
+
+    static final String SEARCH = "{\n" +
+            "    \"bestMatches\": [\n" +
+            "        {\"1. symbol\": \"TSCO.LON\", \"2. name\": \"Tesco PLC\", \"9. matchScore\": \"0.7273\"},\n" +
+            "        {\"1. symbol\": \"TSCDY\", \"2. name\": \"Tesco \\\"PLC\\\"\", \"9. matchScore\": \"0.7143\"}\n" +
+            "    ]\n" +
+            "}";
+
+    @Test
+    public void test_parse_quote() throws APICallException {
+        SecurityDetail detail = AlphaVantageResponseParser.parseQuote("ibm", QUOTE.getBytes(StandardCharsets.UTF_8));
+
+        assert (detail.getTicker().equals("ibm"));
+        assert (detail.getPrice().equals(new BigDecimal("144.0700")));
+        assert (detail.getVolume() == 4213716);
+        long expected = LocalDate.of(2021, 3, 5).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        assert (detail.getTimestamp() == expected);
+    }
+
+    @Test
+    public void test_parse_error() {
+        byte[] body = "{\"Error Message\": \"Invalid API call.\"}".getBytes(StandardCharsets.UTF_8);
+        try {
+            AlphaVantageResponseParser.parseQuote("KWORG", body);
+            assert (false);
+        } catch (UnknownTickerException e) {
+            assert (false);
+        } catch (APICallException ignored) {
+        }
+
+        // an empty quote is how the api says the ticker does not exist
+        body = "{\"Global Quote\": {}}".getBytes(StandardCharsets.UTF_8);
+        try {
+            AlphaVantageResponseParser.parseQuote("KWORG", body);
+            assert (false);
+        } catch (UnknownTickerException ignored) {
+        } catch (APICallException e) {
+            assert (false);
+        }
+    }
+
+    @Test
+    public void test_parse_search() {
+        String[] symbols = AlphaVantageResponseParser.parseSearch(SEARCH.getBytes(StandardCharsets.UTF_8));
+
+        assert (symbols.length == 2);
+        assert (symbols[0].equals("TSCO.LON"));
+        assert (symbols[1].equals("TSCDY"));
+    }
+}
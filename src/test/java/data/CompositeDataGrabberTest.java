@@ -0,0 +1,167 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.CircuitState;
+import data.grabber.CompositeDataGrabber;
+import data.grabber.DataGrabber;
+import data.grabber.SecurityDetail;
+import data.grabber.UnknownTickerException;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CompositeDataGrabberTest {
+
+    /**
+     * A grabber that answers after a fixed delay with its own price, or always fails. One without a price can
+     * instead answer that every ticker is unknown.
+     */
+    static class FakeGrabber implements DataGrabber {
+
+        volatile long delay;
+        final BigDecimal price;
+        final AtomicInteger requests = new AtomicInteger();
+        volatile boolean unknown;
+
+        FakeGrabber(long delay, BigDecimal price) {
+            this.delay = delay;
+            this.price = price;
+        }
+
+        @Override
+        public int getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        public SecurityDetail getDetail(String ticker) throws APICallException {
+            this.requests.incrementAndGet();
+            try {
+                Thread.sleep(this.delay);
+            } catch (InterruptedException e) {
+                throw new APICallException("Interrupted.");
+            }
+            if (this.price == null && this.unknown) {
+                throw new UnknownTickerException("No security has that ticker.");
+            }
+            if (this.price == null) {
+                throw new APICallException("Unable to get stock detail.");
+            }
+            return new SecurityDetail(ticker, this.price, SecurityType.Stock);
+        }
+
+        @Override
+        public String[] searchTicker(String search) {
+            return new String[0];
+        }
+
+        @Override
+        public boolean testSetup() {
+            return this.price != null;
+        }
+    }
+
+    @Test
+    public void test_failing_provider_opens_circuit() throws APICallException {
+        // the working provider is much slower, so the broken one is always tried first
+        FakeGrabber broken = new FakeGrabber(0, null);
+        FakeGrabber working = new FakeGrabber(50, BigDecimal.ONE);
+        CompositeDataGrabber grabber = new CompositeDataGrabber(Arrays.asList(broken, working), 0.95, 3, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            assert (grabber.getDetail("AAPL").getPrice().equals(BigDecimal.ONE));
+        }
+
+        // the broken provider is skipped once its circuit opens
+        assert (broken.requests.get() == 3);
+        assert (grabber.getCircuitStates().get(0) == CircuitState.Open);
+        assert (grabber.getCircuitStates().get(1) == CircuitState.Closed);
+    }
+
+    @Test
+    public void test_all_providers_failing() {
+        CompositeDataGrabber grabber = new CompositeDataGrabber(
+                Arrays.asList(new FakeGrabber(0, null), new FakeGrabber(0, null)));
+        try {
+            grabber.getDetail("AAPL");
+            assert (false);
+        } catch (APICallException e) {
+            assert (true);
+        }
+    }
+
+    @Test
+    public void test_slow_request_is_hedged() throws APICallException {
+        FakeGrabber primary = new FakeGrabber(5, BigDecimal.ONE);
+        FakeGrabber backup = new FakeGrabber(20, BigDecimal.TEN);
+        CompositeDataGrabber grabber = new CompositeDataGrabber(Arrays.asList(primary, backup));
+
+        // learn the primary's latency
+        for (int i = 0; i < 20; i++) {
+            grabber.getDetail("AAPL");
+        }
+
+        // once the primary stalls, the backup is asked soon after the primary's usual latency
+        primary.delay = 5000;
+        long start = System.currentTimeMillis();
+        assert (grabber.getDetail("AAPL").getPrice().equals(BigDecimal.TEN));
+        assert (System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void test_unknown_ticker_is_not_a_failure() throws APICallException {
+        FakeGrabber first = new FakeGrabber(0, null);
+        FakeGrabber second = new FakeGrabber(0, null);
+        first.unknown = true;
+        second.unknown = true;
+        CompositeDataGrabber grabber = new CompositeDataGrabber(Arrays.asList(first, second), 0.95, 3, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                grabber.getDetail("TYPO");
+                assert (false);
+            } catch (UnknownTickerException e) {
+                assert (true);
+            }
+        }
+        // every provider was asked every time, and none of them was skipped for it
+        assert (first.requests.get() == 5 && second.requests.get() == 5);
+        assert (grabber.getCircuitStates().get(0) == CircuitState.Closed);
+        assert (grabber.getCircuitStates().get(1) == CircuitState.Closed);
+
+        // one provider failing outright makes the answer uncertain
+        second.unknown = false;
+        try {
+            grabber.getDetail("TYPO");
+            assert (false);
+        } catch (UnknownTickerException e) {
+            assert (false);
+        } catch (APICallException e) {
+            assert (true);
+        }
+    }
+
+    @Test
+    public void test_async_fails_over() throws InterruptedException, ExecutionException {
+        FakeGrabber broken = new FakeGrabber(0, null);
+        FakeGrabber working = new FakeGrabber(50, BigDecimal.ONE);
+        CompositeDataGrabber grabber = new CompositeDataGrabber(Arrays.asList(broken, working), 0.95, 3, 60000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 5; i++) {
+                assert (grabber.getDetailAsync("AAPL", executor).get().getPrice().equals(BigDecimal.ONE));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assert (working.requests.get() == 5);
+        assert (grabber.getCircuitStates().get(0) == CircuitState.Open);
+    }
+}
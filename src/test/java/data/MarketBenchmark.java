@@ -0,0 +1,197 @@
+package data;
+
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures how price reads and writes scale with threads, for the lock-free StockMarket against a copy of the
+ * earlier design that guarded a HashMap and every security with read-write locks. Each run has the given number of
+ * reader threads looking up random prices and one writer thread per four readers updating random prices.
+ * Run with: java -cp target/classes:target/test-classes data.MarketBenchmark [tickers] [seconds per run]
+ */
+public class MarketBenchmark {
+
+    /**
+     * The parts of a market the benchmark uses.
+     */
+    interface PriceTable {
+        BigDecimal read(String ticker);
+
+        void write(String ticker, BigDecimal price);
+    }
+
+    /**
+     * The earlier design: a HashMap behind a read-write lock, holding securities that each have their own lock.
+     */
+    static class LockedMarket implements PriceTable {
+
+        static class LockedSecurity {
+            private final ReadWriteLock lock = new ReentrantReadWriteLock();
+            private BigDecimal price;
+            private long updated;
+
+            BigDecimal getPrice() {
+                Lock readLock = lock.readLock();
+                readLock.lock();
+                try {
+                    return this.price;
+                } finally {
+                    readLock.unlock();
+                }
+            }
+
+            void updatePrice(BigDecimal price) {
+                Lock writeLock = lock.writeLock();
+                writeLock.lock();
+                try {
+                    this.price = price;
+                    this.updated = System.currentTimeMillis();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        }
+
+        private final Map<String, LockedSecurity> securities = new HashMap<String, LockedSecurity>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public BigDecimal read(String ticker) {
+            Lock readLock = lock.readLock();
+            readLock.lock();
+            try {
+                return this.securities.get(ticker).getPrice();
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public void write(String ticker, BigDecimal price) {
+            Lock writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                LockedSecurity security = this.securities.get(ticker);
+                if (security == null) {
+                    security = new LockedSecurity();
+                    this.securities.put(ticker, security);
+                }
+                security.updatePrice(price);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The current StockMarket.
+     */
+    static class LockFreeMarket implements PriceTable {
+
+        private final Market market = new StockMarket();
+
+        @Override
+        public BigDecimal read(String ticker) {
+            return this.market.getSecurity(ticker).getPrice();
+        }
+
+        @Override
+        public void write(String ticker, BigDecimal price) {
+            this.market.addSecurity(ticker, SecurityType.Stock, price);
+        }
+    }
+
+    /**
+     * Runs readers and writers against a market for a while.
+     *
+     * @return reads and writes per second
+     */
+    private static long[] run(PriceTable table, String[] tickers, int readers, int writers, long millis)
+            throws InterruptedException {
+        for (String ticker : tickers) {
+            table.write(ticker, BigDecimal.ONE);
+        }
+
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < readers + writers; i++) {
+            boolean writer = i >= readers;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                BigDecimal[] prices = {BigDecimal.ONE, BigDecimal.TEN};
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    String ticker = tickers[random.nextInt(tickers.length)];
+                    if (writer) {
+                        table.write(ticker, prices[(int) (count & 1)]);
+                    }
+                    else {
+                        table.read(ticker);
+                    }
+                    count++;
+                }
+                (writer ? writes : reads).add(count);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new long[] {reads.sum() * 1000 / millis, writes.sum() * 1000 / millis};
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int universeSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 2000;
+
+        String[] tickers = new String[universeSize];
+        for (int i = 0; i < universeSize; i++) {
+            tickers[i] = String.format("T%05d", i);
+        }
+
+        System.out.println(String.format("%d cores", Runtime.getRuntime().availableProcessors()));
+        System.out.println(String.format("%-9s %-8s %-8s %14s %14s", "market", "readers", "writers", "reads/s",
+                "writes/s"));
+        for (int readers : new int[] {1, 2, 4, 8, 16}) {
+            int writers = Math.max(1, readers / 4);
+            // warm up both before measuring
+            run(new LockedMarket(), tickers, readers, writers, millis / 4);
+            run(new LockFreeMarket(), tickers, readers, writers, millis / 4);
+
+            long[] locked = run(new LockedMarket(), tickers, readers, writers, millis);
+            long[] lockFree = run(new LockFreeMarket(), tickers, readers, writers, millis);
+            System.out.println(String.format("%-9s %-8d %-8d %14d %14d", "locked", readers, writers, locked[0],
+                    locked[1]));
+            System.out.println(String.format("%-9s %-8d %-8d %14d %14d", "lock-free", readers, writers, lockFree[0],
+                    lockFree[1]));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package data;
+
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+public class MarketSnapshotFileTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void test_round_trip() throws IOException {
+        Market market = new StockMarket();
+        market.addSecurity("AAPL", SecurityType.Stock, new BigDecimal("123.4500"), 1000);
+        market.addSecurity("BRK.A", SecurityType.Stock, new BigDecimal("412345.67"), 2000);
+
+        Path path = folder.resolve("market.snapshot");
+        MarketSnapshotFile.save(market, path);
+
+        Market restored = new StockMarket();
+        assert (MarketSnapshotFile.load(restored, path) == 2);
+
+        Security apple = restored.getSecurity("AAPL");
+        assert (apple.getPrice().compareTo(new BigDecimal("123.4500")) == 0);
+        assert (apple.getLastUpdated() == 1000);
+        assert (apple.getType() == SecurityType.Stock);
+        assert (restored.getSecurity("BRK.A").getPrice().compareTo(new BigDecimal("412345.67")) == 0);
+        market.close();
+        restored.close();
+    }
+}
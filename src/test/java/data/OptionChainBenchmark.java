@@ -0,0 +1,86 @@
+package data;
+
+import data.market.Price;
+import data.market.PriceListener;
+import data.market.Symbols;
+import data.market.options.ExerciseStyle;
+import data.market.options.OptionContract;
+import data.market.options.OptionModel;
+import data.market.options.OptionPricer;
+import data.market.options.OptionRight;
+import data.market.securities.Option;
+import data.market.securities.Quote;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Measures repricing a whole option chain when its underlying ticks. The baseline prices each contract on its own,
+ * reading its terms from the contract object and allocating its own scratch space, as a listener per option would.
+ * The pricer reprices the chain in one batch over primitive arrays, split across the common fork-join pool. Half of
+ * each chain is American puts, which need binomial trees.
+ * Run with: java -cp target/classes:target/test-classes data.OptionChainBenchmark [repetitions]
+ */
+public class OptionChainBenchmark {
+
+    static final int[] CHAIN_SIZES = { 100, 1000, 5000 };
+
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+
+        for (int size : CHAIN_SIZES) {
+            String underlying = "BENCH" + (size / 100);
+            Option[] options = chain(underlying, size);
+            OptionPricer pricer = new OptionPricer();
+            int symbol = Symbols.intern(underlying);
+            long now = System.currentTimeMillis();
+            for (Option option : options) {
+                pricer.add(option, new Quote(Price.ONE * 100, now));
+            }
+
+            double[] result = new double[OptionModel.VALUES];
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (int r = 0; r < repetitions; r++) {
+                    double spot = 100 + r % 7;
+                    for (Option option : options) {
+                        OptionContract contract = option.getContract();
+                        double years = (contract.getExpiryMillis() - now) / (365.25 * 24 * 60 * 60 * 1000);
+                        OptionModel.price(contract.getRight() == OptionRight.Call, true, spot,
+                                Price.toDouble(contract.getStrikeMicros()), years, 0.04, 0.25,
+                                OptionModel.DEFAULT_STEPS, new double[OptionModel.DEFAULT_STEPS + 1], result, 0);
+                        option.updatePrice(Price.fromDouble(result[OptionModel.PRICE]), now);
+                    }
+                }
+                double single = (System.nanoTime() - start) / 1e6 / repetitions;
+
+                start = System.nanoTime();
+                for (int r = 0; r < repetitions; r++) {
+                    pricer.tick(symbol, now, Price.ONE * (100 + r % 7));
+                    pricer.awaitIdle(60000);
+                }
+                double batched = (System.nanoTime() - start) / 1e6 / repetitions;
+
+                if (round == 1) {
+                    System.out.printf("%5d contracts: per contract %.2fms, batched %.2fms%n", size, single,
+                            batched);
+                }
+            }
+        }
+    }
+
+    static Option[] chain(String underlying, int size) {
+        Option[] options = new Option[size];
+        LocalDate expiry = LocalDate.now().plusMonths(3);
+        for (int i = 0; i < size; i++) {
+            OptionRight right = i % 2 == 0 ? OptionRight.Call : OptionRight.Put;
+            BigDecimal strike = BigDecimal.valueOf(50 + i * 100.0 / size).setScale(2, RoundingMode.HALF_UP);
+            OptionContract contract = new OptionContract(underlying, right, strike, expiry.plusDays(i % 30),
+                    ExerciseStyle.American);
+            options[i] = new Option(contract, null, System.currentTimeMillis(), (PriceListener) null);
+        }
+        return options;
+    }
+}
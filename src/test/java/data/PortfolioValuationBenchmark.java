@@ -0,0 +1,193 @@
+package data;
+
+import account.Account;
+import account.ReadOnlyPortfolio;
+import account.ReadOnlyPosition;
+import data.market.Market;
+import data.market.MarketSnapshot;
+import data.market.Price;
+import data.market.PriceListener;
+import data.market.StockMarket;
+import data.market.TickListener;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.options.OptionGreeks;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import data.store.TickVisitor;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Values a large portfolio over and over, comparing Portfolio.value's fixed-point sum with the BigDecimal multiply
+ * and add it used before, and with the running value kept once the account is tracked. All read the same market, so
+ * the difference is the arithmetic.
+ * Run with: java -cp target/classes:target/test-classes data.PortfolioValuationBenchmark [positions] [valuations]
+ */
+public class PortfolioValuationBenchmark {
+
+    /**
+     * A data manager that serves prices straight from a market, so the benchmark measures valuation and not
+     * fetching.
+     */
+    static class MarketDataManager implements DataManager {
+
+        private final Market market;
+
+        MarketDataManager(Market market) {
+            this.market = market;
+        }
+
+        @Override
+        public void start() {}
+
+        @Override
+        public void stop() {}
+
+        @Override
+        public BigDecimal getPrice(String ticker) {
+            Security security = this.market.getSecurity(ticker);
+            return security == null ? null : security.getPrice();
+        }
+
+        @Override
+        public BigDecimal getPrice(String ticker, long maxAge) {
+            return this.getPrice(ticker);
+        }
+
+        @Override
+        public long getPriceMicros(String ticker, long maxAge) {
+            Security security = this.market.getSecurity(ticker);
+            return security == null ? Price.NONE : security.getPriceMicros();
+        }
+
+        @Override
+        public long getPriceMicros(int symbol, long maxAge) {
+            Security security = this.market.getSecurity(symbol);
+            return security == null ? Price.NONE : security.getPriceMicros();
+        }
+
+        @Override
+        public MarketSnapshot snapshot() {
+            return this.market.snapshot();
+        }
+
+        @Override
+        public boolean addIndicator(String ticker, IndicatorType type, int period) {
+            return false;
+        }
+
+        @Override
+        public List<IndicatorValue> getIndicators(String ticker) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public OptionGreeks getGreeks(String ticker) {
+            return null;
+        }
+
+        @Override
+        public String[] searchTicker(String search) {
+            return new String[0];
+        }
+
+        @Override
+        public int queryTicks(String ticker, long from, long to, TickVisitor visitor) {
+            return 0;
+        }
+
+        @Override
+        public void setHoldings(HoldingsSource holdings) {}
+
+        @Override
+        public void addTickListener(TickListener listener) {
+            this.market.addTickListener(listener);
+        }
+
+        @Override
+        public void removeTickListener(TickListener listener) {
+            this.market.removeTickListener(listener);
+        }
+
+        @Override
+        public void clear() {
+            this.market.clear();
+        }
+
+        @Override
+        public void subscribe(String ticker, PriceListener listener) {}
+
+        @Override
+        public void subscribeAll(PriceListener listener) {}
+
+        @Override
+        public void unsubscribe(PriceListener listener) {}
+    }
+
+    /**
+     * Values a portfolio the way Portfolio.value did before fixed-point prices.
+     */
+    private static BigDecimal bigDecimalValue(ReadOnlyPortfolio portfolio, DataManager data) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (ReadOnlyPosition position : portfolio.positions()) {
+            BigDecimal price = data.getPrice(position.security());
+            sum = sum.add(price.multiply(BigDecimal.valueOf(position.quantity())));
+        }
+        return sum.add(portfolio.cash());
+    }
+
+    public static void main(String[] args) {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int valuations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Random random = new Random(1);
+        Market market = new StockMarket();
+        DataManager data = new MarketDataManager(market);
+        Account account = new Account(BigDecimal.valueOf(1_000_000_000L));
+        account.createPortfolio("big");
+        account.addPortfolioCash("big", BigDecimal.valueOf(1_000_000_000L));
+        for (int i = 0; i < positions; i++) {
+            String ticker = String.format("T%05d", i);
+            market.addSecurity(ticker, SecurityType.Stock, BigDecimal.valueOf(1 + random.nextInt(50000), 2));
+            account.buySecurity(data, "big", ticker, 1 + random.nextInt(100));
+        }
+        ReadOnlyPortfolio portfolio = account.getPortfolio("big");
+
+        if (portfolio.value(data).compareTo(bigDecimalValue(portfolio, data)) != 0) {
+            throw new IllegalStateException("The two valuations disagree.");
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BigDecimal check = BigDecimal.ZERO;
+            for (int i = 0; i < valuations; i++) {
+                check = portfolio.value(data);
+            }
+            double fixedPoint = (System.nanoTime() - start) / 1e3 / valuations;
+
+            account.track(data);
+            if (portfolio.value(data).compareTo(check) != 0) {
+                throw new IllegalStateException("The running value disagrees.");
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < valuations; i++) {
+                check = portfolio.value(data);
+            }
+            double tracked = (System.nanoTime() - start) / 1e3 / valuations;
+            account.untrack(data);
+
+            start = System.nanoTime();
+            for (int i = 0; i < valuations; i++) {
+                check = bigDecimalValue(portfolio, data);
+            }
+            double bigDecimal = (System.nanoTime() - start) / 1e3 / valuations;
+
+            System.out.println(String.format("%d positions: fixed-point %.1fus, BigDecimal %.1fus, tracked %.3fus"
+                    + " per valuation (%s)", positions, fixedPoint, bigDecimal, tracked, check));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package data;
+
+import data.market.Price;
+import data.market.bus.BusConsumer;
+import data.market.bus.PriceBus;
+import data.market.bus.WaitStrategy;
+import data.market.securities.Security;
+import data.market.securities.Stock;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the price bus against the earlier way of fanning out price changes, a single thread executor that was
+ * handed a new task for every change. Throughput runs publish as fast as one producer can to three consumers, as a
+ * market does. Latency runs publish at a steady rate and record how long each event took to reach a consumer.
+ * Run with: java -cp target/classes:target/test-classes data.PriceBusBenchmark [events] [latency events per second]
+ */
+public class PriceBusBenchmark {
+
+    static final int CONSUMERS = 3;
+
+    /**
+     * Records how long each event took to arrive, in nanoseconds, with the send time carried in the timestamp.
+     */
+    static class LatencyRecorder {
+        private final long[] latencies;
+        private int count = 0;
+
+        LatencyRecorder(int events) {
+            this.latencies = new long[events];
+        }
+
+        void record(long sent) {
+            if (this.count < this.latencies.length) {
+                this.latencies[this.count++] = System.nanoTime() - sent;
+            }
+        }
+
+        String summary() {
+            long[] sorted = Arrays.copyOf(this.latencies, this.count);
+            Arrays.sort(sorted);
+            return String.format("p50 %.1fus, p99 %.1fus, p99.9 %.1fus", percentile(sorted, 0.5) / 1000.0,
+                    percentile(sorted, 0.99) / 1000.0, percentile(sorted, 0.999) / 1000.0);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)];
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        Security security = new Stock("BENCH", BigDecimal.ONE);
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println("round " + (round + 1));
+            System.out.printf("  executor:  %.1fM events/s%n", executorThroughput(security, events) / 1e6);
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                System.out.printf("  %-9s  %.1fM events/s%n", strategy + ":",
+                        busThroughput(security, events, strategy) / 1e6);
+            }
+        }
+
+        int latencyEvents = Math.min(events, rate * 5);
+        System.out.println("latency at " + rate + " events/s");
+        System.out.println("  executor:  " + executorLatency(security, latencyEvents, rate));
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            System.out.printf("  %-9s  %s%n", strategy + ":", busLatency(security, latencyEvents, rate, strategy));
+        }
+    }
+
+    static double busThroughput(Security security, int events, WaitStrategy strategy) throws InterruptedException {
+        PriceBus bus = new PriceBus();
+        LongAdder sums = new LongAdder();
+        CountDownLatch done = new CountDownLatch(CONSUMERS);
+        BusConsumer[] consumers = new BusConsumer[CONSUMERS];
+        for (int i = 0; i < CONSUMERS; i++) {
+            long[] sum = new long[1];
+            consumers[i] = bus.addConsumer("bench-" + i, (s, timestamp, oldMicros, newMicros, volume, endOfBatch) -> {
+                sum[0] += newMicros;
+                if (timestamp == events - 1) {
+                    sums.add(sum[0]);
+                    done.countDown();
+                }
+            }, strategy);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            bus.publish(security, i, i - 1, i);
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        for (BusConsumer consumer : consumers) {
+            bus.removeConsumer(consumer);
+        }
+        return events / (elapsed / 1e9);
+    }
+
+    static double executorThroughput(Security security, int events) throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch done = new CountDownLatch(1);
+        long[] sum = new long[1];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            long timestamp = i;
+            BigDecimal oldPrice = Price.toBigDecimal(i - 1);
+            BigDecimal newPrice = Price.toBigDecimal(i);
+            executor.execute(() -> {
+                // the consumers ran one after another on the dispatcher thread
+                for (int c = 0; c < CONSUMERS; c++) {
+                    sum[0] += newPrice.signum() + oldPrice.signum() + security.getSymbol();
+                }
+                if (timestamp == events - 1) {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        return events / (elapsed / 1e9);
+    }
+
+    static String busLatency(Security security, int events, int rate, WaitStrategy strategy)
+            throws InterruptedException {
+        PriceBus bus = new PriceBus();
+        LatencyRecorder recorder = new LatencyRecorder(events);
+        CountDownLatch done = new CountDownLatch(1);
+        int[] seen = new int[1];
+        BusConsumer consumer = bus.addConsumer("bench-latency", (s, sent, oldMicros, newMicros, volume, endOfBatch) -> {
+            recorder.record(sent);
+            if (++seen[0] == events) {
+                done.countDown();
+            }
+        }, strategy);
+
+        pace(events, rate, () -> bus.publish(security, System.nanoTime(), 0, 1));
+        done.await();
+        bus.removeConsumer(consumer);
+        return recorder.summary();
+    }
+
+    static String executorLatency(Security security, int events, int rate) throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        LatencyRecorder recorder = new LatencyRecorder(events);
+        CountDownLatch done = new CountDownLatch(events);
+
+        pace(events, rate, () -> {
+            long sent = System.nanoTime();
+            executor.execute(() -> {
+                recorder.record(sent);
+                done.countDown();
+            });
+        });
+        done.await();
+        executor.shutdown();
+        return recorder.summary();
+    }
+
+    /**
+     * Runs a task the given number of times, spread evenly at the given rate per second.
+     */
+    static void pace(int events, int rate, Runnable task) {
+        long interval = 1000000000L / rate;
+        long next = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            while (System.nanoTime() < next) {
+                // spin, since sleeping is far coarser than the interval
+            }
+            task.run();
+            next += interval;
+        }
+    }
+}
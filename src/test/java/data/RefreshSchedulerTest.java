@@ -0,0 +1,46 @@
+package data;
+
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+public class RefreshSchedulerTest {
+
+    @Test
+    public void test_held_securities_refreshed_first() {
+        Market market = new StockMarket();
+        market.addSecurity("AAPL", SecurityType.Stock, BigDecimal.TEN);
+        market.addSecurity("MSFT", SecurityType.Stock, BigDecimal.TEN);
+
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.setHoldings(() -> Collections.singletonMap("MSFT", 10000));
+
+        List<Security> due = scheduler.select(market.getSecurities(), 1);
+        assert (due.size() == 1);
+        assert (due.get(0).getTicker().equals("MSFT"));
+        market.close();
+    }
+
+    @Test
+    public void test_cold_securities_evicted() throws InterruptedException {
+        Market market = new StockMarket();
+        market.addSecurity("AAPL", SecurityType.Stock, BigDecimal.TEN);
+        market.addSecurity("MSFT", SecurityType.Stock, BigDecimal.TEN);
+
+        RefreshScheduler scheduler = new RefreshScheduler(10);
+        scheduler.setHoldings(() -> Collections.singletonMap("MSFT", 1));
+        scheduler.recordAccess("AAPL");
+
+        Thread.sleep(50);
+        scheduler.evictCold(market);
+        assert (market.getSecurity("AAPL") == null);
+        assert (market.getSecurity("MSFT") != null);
+        market.close();
+    }
+}
@@ -0,0 +1,49 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.ReplayDataGrabber;
+import data.grabber.TickFileWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class ReplayDataGrabberTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void test_replay_follows_clock() throws IOException, APICallException {
+        Path file = folder.resolve("ticks.bin");
+        try (TickFileWriter writer = new TickFileWriter(file, Arrays.asList("AAPL", "MSFT"))) {
+            writer.write("AAPL", 1000, 150_000000);
+            writer.write("MSFT", 1000, 250_500000);
+            writer.write("AAPL", 2000, 151_250000);
+            writer.write("AAPL", 3000, 149_000000);
+        }
+
+        ReplayDataGrabber grabber = new ReplayDataGrabber(file, 0);
+        assert (grabber.testSetup());
+        assert (grabber.getDetail("AAPL").getPrice().compareTo(new BigDecimal("150")) == 0);
+
+        grabber.advanceTo(2500);
+        assert (grabber.getDetail("AAPL").getPrice().compareTo(new BigDecimal("151.25")) == 0);
+        assert (grabber.getDetail("MSFT").getPrice().compareTo(new BigDecimal("250.5")) == 0);
+
+        grabber.advanceTo(3000);
+        assert (grabber.getDetail("AAPL").getPrice().compareTo(new BigDecimal("149")) == 0);
+
+        try {
+            grabber.getDetail("KWORG");
+            assert (false);
+        } catch (APICallException ignored) {
+        }
+
+        String[] matches = grabber.searchTicker("ms");
+        assert (matches.length == 1 && matches[0].equals("MSFT"));
+    }
+}
@@ -0,0 +1,129 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.DataGrabber;
+import data.grabber.SecurityDetail;
+import data.grabber.UnknownTickerException;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SecurityLoaderTest {
+
+    /**
+     * A grabber that counts its requests and holds each one open until released.
+     */
+    static class CountingGrabber implements DataGrabber {
+
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public int getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        public SecurityDetail getDetail(String ticker) throws APICallException {
+            this.requests.incrementAndGet();
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                throw new APICallException("Interrupted.");
+            }
+            if (ticker.equals("KWORG")) {
+                throw new UnknownTickerException("No security has that ticker.");
+            }
+            if (ticker.equals("DOWN")) {
+                throw new APICallException("Unable to get stock detail.");
+            }
+            return new SecurityDetail(ticker, BigDecimal.TEN, SecurityType.Stock);
+        }
+
+        @Override
+        public String[] searchTicker(String search) {
+            return new String[0];
+        }
+
+        @Override
+        public boolean testSetup() {
+            return true;
+        }
+    }
+
+    @Test
+    public void test_concurrent_misses_share_fetch() throws InterruptedException {
+        CountingGrabber grabber = new CountingGrabber();
+        SecurityLoader loader = new SecurityLoader(grabber);
+        AtomicInteger loaded = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    if (loader.load("AAPL").getPrice().equals(BigDecimal.TEN)) {
+                        loaded.incrementAndGet();
+                    }
+                } catch (APICallException ignored) {
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // give every thread a chance to join the in-flight fetch
+        Thread.sleep(200);
+        grabber.release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assert (grabber.requests.get() == 1);
+        assert (loaded.get() == 8);
+    }
+
+    @Test
+    public void test_unknown_ticker_is_cached() {
+        CountingGrabber grabber = new CountingGrabber();
+        grabber.release.countDown();
+        SecurityLoader loader = new SecurityLoader(grabber);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                loader.load("KWORG");
+                assert (false);
+            } catch (APICallException ignored) {
+            }
+        }
+        assert (grabber.requests.get() == 1);
+
+        loader.forget("KWORG");
+        try {
+            loader.load("KWORG");
+        } catch (APICallException ignored) {
+        }
+        assert (grabber.requests.get() == 2);
+    }
+
+    @Test
+    public void test_failure_is_not_cached() {
+        CountingGrabber grabber = new CountingGrabber();
+        grabber.release.countDown();
+        SecurityLoader loader = new SecurityLoader(grabber);
+
+        // the provider failing says nothing about whether the ticker exists
+        for (int i = 0; i < 3; i++) {
+            try {
+                loader.load("DOWN");
+                assert (false);
+            } catch (APICallException ignored) {
+            }
+        }
+        assert (grabber.requests.get() == 3);
+    }
+}
@@ -0,0 +1,64 @@
+package data;
+
+import data.grabber.SymbolIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class SymbolIndexTest {
+
+    @TempDir
+    Path folder;
+
+    private SymbolIndex index() throws IOException {
+        Path file = folder.resolve("listing_status.csv");
+        Files.write(file, Arrays.asList(
+                "symbol,name,exchange,assetType,ipoDate,delistingDate,status",
+                "AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active",
+                "AA,Alcoa Corp,NYSE,Stock,2016-10-18,null,Active",
+                "MSFT,Microsoft Corporation,NASDAQ,Stock,1986-03-13,null,Active",
+                "APLE,\"Apple Hospitality REIT, Inc\",NYSE,Stock,2015-05-18,null,Active",
+                "IBM,International Business Machines Corp,NYSE,Stock,1962-01-02,null,Active"));
+        return SymbolIndex.load(file);
+    }
+
+    @Test
+    public void test_exact_and_prefix() throws IOException {
+        SymbolIndex index = index();
+        assert (index.size() == 5);
+
+        String[] results = index.search("aa", 10);
+        assert (results[0].equals("AA"));
+        assert (results[1].equals("AAPL"));
+
+        results = index.search("ap", 10);
+        assert (results[0].equals("AAPL") || results[0].equals("APLE"));
+        assert (Arrays.asList(results).containsAll(Arrays.asList("AAPL", "APLE")));
+
+        assert (index.search("aa", 1).length == 1);
+    }
+
+    @Test
+    public void test_company_names() throws IOException {
+        SymbolIndex index = index();
+
+        assert (index.search("microsoft", 10)[0].equals("MSFT"));
+        assert (index.search("business mach", 10)[0].equals("IBM"));
+        assert (index.search("international business", 10)[0].equals("IBM"));
+        assert (index.search("hospitality", 10)[0].equals("APLE"));
+    }
+
+    @Test
+    public void test_fuzzy() throws IOException {
+        SymbolIndex index = index();
+
+        assert (index.search("mircosoft", 10)[0].equals("MSFT"));
+        assert (index.search("msfy", 10)[0].equals("MSFT"));
+        assert (index.search("zzzzzz", 10).length == 0);
+        assert (index.search("", 10).length == 0);
+    }
+}
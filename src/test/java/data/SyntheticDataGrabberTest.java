@@ -0,0 +1,48 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.SyntheticDataGrabber;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SyntheticDataGrabberTest {
+
+    @Test
+    public void test_prices_are_deterministic() throws APICallException {
+        SyntheticDataGrabber first = new SyntheticDataGrabber(100, 42, 0, 0, 0.01);
+        SyntheticDataGrabber second = new SyntheticDataGrabber(100, 42, 0, 0, 0.01);
+
+        // the same queries at the same ticks, with the other tickers in the opposite order
+        first.advance(10);
+        second.advance(10);
+        first.getDetail("SYN00007");
+        second.getDetail("SYN00007");
+        first.advance(90);
+        second.advance(90);
+
+        List<String> tickers = Arrays.asList("SYN00000", "SYN00007", "SYN00099");
+        Map<String, BigDecimal> prices = new HashMap<String, BigDecimal>();
+        for (String ticker : tickers) {
+            prices.put(ticker, first.getDetail(ticker).getPrice());
+        }
+        for (int i = tickers.size() - 1; i >= 0; i--) {
+            BigDecimal price = prices.get(tickers.get(i));
+            assert (price.compareTo(BigDecimal.ZERO) > 0);
+            assert (price.compareTo(second.getDetail(tickers.get(i)).getPrice()) == 0);
+        }
+    }
+
+    @Test
+    public void test_prices_move() throws APICallException {
+        SyntheticDataGrabber grabber = new SyntheticDataGrabber(10, 7, 0, 0, 0.01);
+        BigDecimal before = grabber.getDetail("SYN00003").getPrice();
+        grabber.advance(1);
+        assert (grabber.getDetail("SYN00003").getPrice().compareTo(before) != 0);
+        assert (grabber.getDetails(Arrays.asList("SYN00001", "KWORG")).size() == 1);
+    }
+}
@@ -0,0 +1,44 @@
+package data;
+
+import data.grabber.SyntheticDataGrabber;
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+
+/**
+ * Pushes synthetic prices through the Updater and Security.updatePrice path as fast as it will go and reports the
+ * number of price updates applied per second.
+ * Run with: java -cp target/classes:target/test-classes data.SyntheticMarketBenchmark [tickers] [cycles]
+ */
+public class SyntheticMarketBenchmark {
+
+    public static void main(String[] args) {
+        int universeSize = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int cycles = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        SyntheticDataGrabber grabber = new SyntheticDataGrabber(universeSize, 1, 0, 0, 0.001);
+        Market market = new StockMarket();
+        for (String ticker : grabber.getTickers()) {
+            market.addSecurity(ticker, SecurityType.Stock, BigDecimal.ONE);
+        }
+        Updater updater = new Updater(0, grabber, market);
+
+        // warm up
+        for (int i = 0; i < cycles / 10; i++) {
+            grabber.advance(1);
+            updater.updateSecurities(market.getSecurities());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            grabber.advance(1);
+            updater.updateSecurities(market.getSecurities());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long updates = (long) universeSize * cycles;
+        System.out.println(String.format("%d updates in %.2fs: %.0f updates/s", updates, seconds, updates / seconds));
+    }
+}
@@ -0,0 +1,119 @@
+package data;
+
+import data.store.TickStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TickStoreTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void test_round_trip() throws IOException {
+        Random random = new Random(7);
+        long[] timestamps = new long[5000];
+        long[] prices = new long[5000];
+        long timestamp = 1600000000000L;
+        long price = 125_500000L;
+        for (int i = 0; i < timestamps.length; i++) {
+            // mostly steady intervals and prices, with the odd jump
+            timestamp += random.nextInt(10) == 0 ? random.nextInt(100000) : 1000;
+            price += random.nextInt(3) == 0 ? random.nextInt(20001) - 10000 : 0;
+            timestamps[i] = timestamp;
+            prices[i] = price;
+        }
+
+        try (TickStore store = new TickStore(folder)) {
+            for (int i = 0; i < timestamps.length; i++) {
+                assert (store.append("AAPL", timestamps[i], prices[i]));
+            }
+            store.append("brk.b", timestamps[0], 1);
+            store.flush();
+
+            List<long[]> ticks = new ArrayList<long[]>();
+            int count = store.query("AAPL", Long.MIN_VALUE, Long.MAX_VALUE,
+                    (time, micros) -> ticks.add(new long[] {time, micros}));
+            assert (count == timestamps.length);
+            for (int i = 0; i < timestamps.length; i++) {
+                assert (ticks.get(i)[0] == timestamps[i]);
+                assert (ticks.get(i)[1] == prices[i]);
+            }
+
+            // a range in the middle of a block
+            count = store.query("AAPL", timestamps[1500], timestamps[3200], (time, micros) -> {});
+            assert (count == 1700);
+            assert (store.query("brk.b", Long.MIN_VALUE, Long.MAX_VALUE, (time, micros) -> {}) == 1);
+            assert (store.query("MSFT", Long.MIN_VALUE, Long.MAX_VALUE, (time, micros) -> {}) == 0);
+            assert (store.getDropped() == 0);
+        }
+    }
+
+    @Test
+    public void test_reopen_after_torn_write() throws IOException {
+        try (TickStore store = new TickStore(folder)) {
+            for (int i = 0; i < 100; i++) {
+                store.append("AAPL", i * 1000L, 100_000000L + i);
+            }
+        }
+
+        // cut the last block short, as a crash in the middle of a write would
+        Path segment = folder.resolve("AAPL").resolve("0.seg");
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (TickStore store = new TickStore(folder)) {
+            assert (store.query("AAPL", 0, Long.MAX_VALUE, (time, micros) -> {}) == 0);
+            store.append("AAPL", 200000L, 1);
+            store.flush();
+            assert (store.query("AAPL", 0, Long.MAX_VALUE, (time, micros) -> {}) == 1);
+        }
+
+        try (TickStore store = new TickStore(folder)) {
+            assert (store.query("AAPL", 0, Long.MAX_VALUE, (time, micros) -> {}) == 1);
+        }
+    }
+
+    @Test
+    public void test_open_store_is_locked() throws IOException {
+        try (TickStore store = new TickStore(folder)) {
+            store.append("AAPL", 1000L, 100_000000L);
+            boolean refused = false;
+            try {
+                new TickStore(folder).close();
+            } catch (IOException e) {
+                refused = true;
+            }
+            assert (refused);
+        }
+
+        // the lock goes with the store, and the refused open left its ticks alone
+        try (TickStore store = new TickStore(folder)) {
+            assert (store.query("AAPL", 0, Long.MAX_VALUE, (time, micros) -> {}) == 1);
+        }
+    }
+
+    @Test
+    public void test_close_writes_pending_ticks() throws IOException {
+        for (int round = 0; round < 20; round++) {
+            try (TickStore store = new TickStore(folder)) {
+                store.append("AAPL", round * 1000L, 100_000000L + round);
+            }
+        }
+
+        try (TickStore store = new TickStore(folder)) {
+            assert (store.query("AAPL", 0, Long.MAX_VALUE, (time, micros) -> {}) == 20);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.DataGrabber;
+import data.grabber.RateLimitedDataGrabber;
+import data.grabber.RequestPriority;
+import data.grabber.SecurityDetail;
+import data.grabber.TokenBucket;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenBucketTest {
+
+    @Test
+    public void test_burst_then_rate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 5);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            bucket.acquire(RequestPriority.Foreground);
+        }
+        long burstMillis = (System.nanoTime() - start) / 1_000_000;
+        assert (burstMillis < 40);
+
+        // the next permits arrive every 50ms
+        bucket.acquire(RequestPriority.Foreground);
+        bucket.acquire(RequestPriority.Foreground);
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        assert (totalMillis >= 80);
+        assert (bucket.getAcquired() == 7);
+    }
+
+    @Test
+    public void test_foreground_served_first() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.acquire(RequestPriority.Foreground);
+
+        List<RequestPriority> order = Collections.synchronizedList(new ArrayList<RequestPriority>());
+        Thread background = new Thread(() -> {
+            try {
+                bucket.acquire(RequestPriority.Background);
+                order.add(RequestPriority.Background);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        background.start();
+        while (bucket.getQueuedBackground() == 0) {
+            Thread.sleep(1);
+        }
+
+        // the foreground request arrives later but jumps the queue
+        bucket.acquire(RequestPriority.Foreground);
+        order.add(RequestPriority.Foreground);
+        background.join();
+
+        assert (order.get(0) == RequestPriority.Foreground);
+        assert (order.get(1) == RequestPriority.Background);
+    }
+
+    /**
+     * A grabber that batches until its first batch request, which fails and turns batching off, as a provider whose
+     * batch endpoint has been retired would.
+     */
+    static class RetiringGrabber implements DataGrabber {
+
+        final AtomicInteger requests = new AtomicInteger();
+        volatile boolean batching = true;
+
+        @Override
+        public int getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        public SecurityDetail getDetail(String ticker) {
+            this.requests.incrementAndGet();
+            return new SecurityDetail(ticker, BigDecimal.ONE, SecurityType.Stock);
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return this.batching ? 10 : 1;
+        }
+
+        @Override
+        public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+            this.requests.incrementAndGet();
+            this.batching = false;
+            throw new APICallException("The batch quote endpoint is unavailable.");
+        }
+
+        @Override
+        public String[] searchTicker(String search) {
+            return new String[0];
+        }
+
+        @Override
+        public boolean testSetup() {
+            return true;
+        }
+    }
+
+    @Test
+    public void test_every_request_takes_a_token() throws APICallException {
+        RetiringGrabber delegate = new RetiringGrabber();
+        RateLimitedDataGrabber grabber = new RateLimitedDataGrabber(delegate, 1000, 100);
+        List<String> tickers = new ArrayList<String>();
+        for (int i = 0; i < 25; i++) {
+            tickers.add("T" + i);
+        }
+
+        // the failed batch and every single request after it are counted
+        assert (grabber.getDetails(tickers).size() == 25);
+        assert (delegate.requests.get() == 26);
+        assert (grabber.getBucket().getAcquired() == 26);
+    }
+}
@@ -0,0 +1,116 @@
+package data;
+
+import data.grabber.APICallException;
+import data.grabber.DataGrabber;
+import data.grabber.SecurityDetail;
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.securities.SecurityType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long one Updater cycle takes as the number of tracked tickers grows, refreshing one ticker at a
+ * time, in batches, and asynchronously. Every request to the fake grabber costs a fixed round trip, so the cycle
+ * time is dominated by the number of requests made, or in async mode by how many have to wait for a slot.
+ * Run with: java -cp target/classes:target/test-classes data.UpdaterBenchmark
+ */
+public class UpdaterBenchmark {
+
+    static final int ROUND_TRIP_MILLIS = 20;
+    static final int[] TICKER_COUNTS = {10, 50, 100, 300};
+    static final int MAX_IN_FLIGHT = 50;
+
+    /**
+     * A grabber that sleeps for one round trip per request.
+     */
+    static class LatencyGrabber implements DataGrabber {
+
+        private final int batchSize;
+
+        LatencyGrabber(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        private void roundTrip() {
+            try {
+                Thread.sleep(ROUND_TRIP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public int getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        public SecurityDetail getDetail(String ticker) throws APICallException {
+            this.roundTrip();
+            return new SecurityDetail(ticker, BigDecimal.ONE, SecurityType.Stock);
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return this.batchSize;
+        }
+
+        @Override
+        public Map<String, SecurityDetail> getDetails(Collection<String> tickers) throws APICallException {
+            if (this.batchSize == 1) {
+                return DataGrabber.super.getDetails(tickers);
+            }
+            this.roundTrip();
+            Map<String, SecurityDetail> details = new HashMap<String, SecurityDetail>();
+            for (String ticker : tickers) {
+                details.put(ticker, new SecurityDetail(ticker, BigDecimal.ONE, SecurityType.Stock));
+            }
+            return details;
+        }
+
+        @Override
+        public String[] searchTicker(String search) {
+            return new String[0];
+        }
+
+        @Override
+        public boolean testSetup() {
+            return true;
+        }
+    }
+
+    private static long cycleMillis(int tickers, int batchSize, int maxInFlight) {
+        LatencyGrabber grabber = new LatencyGrabber(batchSize);
+        Market market = new StockMarket();
+        for (int i = 0; i < tickers; i++) {
+            market.addSecurity("T" + i, SecurityType.Stock, BigDecimal.ONE);
+        }
+        Updater updater = new Updater(0, grabber, market, maxInFlight);
+
+        long start = System.nanoTime();
+        if (maxInFlight > 0) {
+            updater.updateSecuritiesAsync(market.getSecurities());
+        }
+        else {
+            updater.updateSecurities(market.getSecurities());
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        updater.cancel();
+        market.close();
+        return elapsed;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("tickers    per-ticker (ms)    batched (ms)    async x" + MAX_IN_FLIGHT + " (ms)");
+        for (int tickers : TICKER_COUNTS) {
+            long single = cycleMillis(tickers, 1, 0);
+            long batched = cycleMillis(tickers, 100, 0);
+            long async = cycleMillis(tickers, 1, MAX_IN_FLIGHT);
+            System.out.println(String.format("%7d    %15d    %12d    %14d", tickers, single, batched, async));
+        }
+    }
+}
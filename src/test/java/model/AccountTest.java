@@ -1,4 +1,140 @@
 package model;
 
+import account.Account;
+import account.ReadOnlyPortfolio;
+import account.ReadOnlyPosition;
+import data.DataManager;
+import data.StockDataManager;
+import data.grabber.SyntheticDataGrabber;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
 public class AccountTest {
+
+    /**
+     * Values a portfolio by pricing every position.
+     */
+    private static BigDecimal fullValue(ReadOnlyPortfolio portfolio, DataManager data) {
+        BigDecimal sum = portfolio.cash();
+        for (ReadOnlyPosition position : portfolio.positions()) {
+            sum = sum.add(data.getPrice(position.security()).multiply(BigDecimal.valueOf(position.quantity())));
+        }
+        return sum;
+    }
+
+    private static boolean awaitValue(ReadOnlyPortfolio portfolio, DataManager data) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (portfolio.value(data).compareTo(fullValue(portfolio, data)) == 0) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    @Test
+    public void test_running_value_follows_prices_and_trades() throws InterruptedException {
+        SyntheticDataGrabber grabber = new SyntheticDataGrabber(3, 24, 0, 0, 0.05);
+        DataManager data = new StockDataManager(grabber, 0, 0, null, null);
+        try {
+            Account account = new Account(BigDecimal.valueOf(100000));
+            account.createPortfolio("growth");
+            account.addPortfolioCash("growth", BigDecimal.valueOf(50000));
+            assert (account.buySecurity(data, "growth", "SYN00000", 10));
+            assert (account.buySecurity(data, "growth", "SYN00001", 5));
+            ReadOnlyPortfolio growth = account.getPortfolio("growth");
+            BigDecimal untracked = growth.value(data);
+
+            account.track(data);
+            assert (growth.value(data).compareTo(untracked) == 0);
+            assert (account.value(data).compareTo(untracked.add(account.getCash())) == 0);
+
+            // a trade moves value between cash and the position, at the price it was made at
+            assert (account.buySecurity(data, "growth", "SYN00000", 3));
+            assert (account.sellSecurity(data, "growth", "SYN00001", 5));
+            assert (growth.value(data).compareTo(fullValue(growth, data)) == 0);
+
+            // the refresh moves prices, and the running value follows them
+            BigDecimal before = fullValue(growth, data);
+            grabber.advance(5);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fullValue(growth, data).compareTo(before) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assert (fullValue(growth, data).compareTo(before) != 0);
+            assert (awaitValue(growth, data));
+
+            // a new portfolio is tracked from the start
+            account.createPortfolio("income");
+            account.addPortfolioCash("income", BigDecimal.valueOf(2000));
+            assert (account.buySecurity(data, "income", "SYN00002", 2));
+            ReadOnlyPortfolio income = account.getPortfolio("income");
+            assert (income.value(data).compareTo(fullValue(income, data)) == 0);
+            BigDecimal total = account.getCash().add(fullValue(growth, data)).add(fullValue(income, data));
+            assert (account.value(data).compareTo(total) == 0);
+
+            // a liquidated portfolio leaves the account's running value
+            assert (account.liquidatePortfolio(data, "income"));
+            assert (account.value(data).compareTo(account.getCash().add(fullValue(growth, data))) == 0);
+
+            account.untrack(data);
+            assert (growth.value(data).compareTo(fullValue(growth, data)) == 0);
+        } finally {
+            data.stop();
+        }
+    }
+
+    @Test
+    public void test_concurrent_trades_keep_cash() throws InterruptedException {
+        SyntheticDataGrabber grabber = new SyntheticDataGrabber(4, 24, 0, 0, 0.05);
+        final DataManager data = new StockDataManager(grabber, 0, 0, null, null);
+        try {
+            final Account account = new Account(BigDecimal.valueOf(100000));
+            final String[] names = { "a", "b", "c" };
+            for (String name : names) {
+                account.createPortfolio(name);
+                account.addPortfolioCash(name, BigDecimal.valueOf(20000));
+            }
+            BigDecimal total = account.value(data);
+
+            // prices do not move, so trading in and out of positions never changes what the account is worth
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                Thread trader = new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        String name = names[(thread + i) % names.length];
+                        String ticker = "SYN0000" + (i % 4);
+                        if (account.buySecurity(data, name, ticker, 3)) {
+                            account.sellSecurity(data, name, ticker, 3);
+                        }
+                    }
+                });
+                threads.add(trader);
+                trader.start();
+            }
+
+            for (int i = 0; i < 50; i++) {
+                account.addPortfolioCash("a", BigDecimal.valueOf(100));
+                account.removePortfolioCash("c", BigDecimal.valueOf(100));
+            }
+            assert (account.liquidatePortfolio(data, "b"));
+            for (Thread trader : threads) {
+                trader.join();
+            }
+
+            assert (account.getPortfolio("b") == null);
+            assert (!account.buySecurity(data, "b", "SYN00000", 1));
+            assert (account.value(data).compareTo(total) == 0);
+            BigDecimal sum = account.getCash().add(fullValue(account.getPortfolio("a"), data))
+                    .add(fullValue(account.getPortfolio("c"), data));
+            assert (sum.compareTo(total) == 0);
+        } finally {
+            data.stop();
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package model;
+
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.risk.CovarianceMatrix;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class CovarianceTest {
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.abs(b));
+    }
+
+    private static double naiveCovariance(double[][] returns, int cycles, int window, int a, int b) {
+        int from = Math.max(0, cycles - window);
+        int n = cycles - from;
+        double meanA = 0;
+        double meanB = 0;
+        for (int k = from; k < cycles; k++) {
+            meanA += returns[k][a];
+            meanB += returns[k][b];
+        }
+        meanA /= n;
+        meanB /= n;
+        double sum = 0;
+        for (int k = from; k < cycles; k++) {
+            sum += (returns[k][a] - meanA) * (returns[k][b] - meanB);
+        }
+        return sum / (n - 1);
+    }
+
+    @Test
+    public void test_matches_naive_covariance() {
+        Market market = new StockMarket();
+        int count = 70;
+        int cycles = 300;
+        int window = 120;
+        String[] tickers = new String[count];
+        double[] prices = new double[count];
+        double[][] returns = new double[cycles][count];
+        Random random = new Random(22);
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            double common = random.nextGaussian();
+            for (int i = 0; i < count; i++) {
+                // the securities share a common factor, so they are correlated
+                double price = cycle == 0 ? 50 + i : prices[i] * Math.exp(0.01 * (common + random.nextGaussian()));
+                price = BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP).doubleValue();
+                if (cycle > 0) {
+                    returns[cycle][i] = Math.log(price / prices[i]);
+                }
+                prices[i] = price;
+                tickers[i] = "COV" + i;
+                market.addSecurity(tickers[i], SecurityType.Stock, BigDecimal.valueOf(price), cycle);
+            }
+            market.publish();
+            // waits for the sample of the snapshot just published
+            CovarianceMatrix covariance = market.getCovariance();
+
+            if (cycle == 0) {
+                assert (Double.isNaN(covariance.covariance("COV0", "COV1")));
+            }
+            if (cycle == 10 || cycle == 119 || cycle == 200 || cycle == cycles - 1) {
+                int samples = cycle + 1;
+                assert (covariance.getSampleCount() == Math.min(samples, window));
+                assert (close(covariance.covariance("COV0", "COV1"), naiveCovariance(returns, samples, window, 0, 1)));
+                assert (close(covariance.covariance("COV69", "COV3"),
+                        naiveCovariance(returns, samples, window, 69, 3)));
+            }
+        }
+
+        CovarianceMatrix covariance = market.getCovariance();
+        assert (covariance.size() == count);
+        double[] matrix = covariance.covarianceMatrix(tickers);
+        double[] correlations = covariance.correlationMatrix(tickers);
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                assert (close(matrix[i * count + j], naiveCovariance(returns, cycles, window, i, j)));
+                assert (matrix[i * count + j] == matrix[j * count + i]);
+            }
+            assert (close(correlations[i * count + i], 1));
+        }
+        assert (correlations[1] > 0.2 && correlations[1] < 1);
+
+        // a portfolio's variance is its weights applied to the matrix
+        double[] weights = { 100, -50 };
+        double expected = 100 * 100 * matrix[0] - 2 * 100 * 50 * matrix[1] + 50 * 50 * matrix[count + 1];
+        assert (close(covariance.portfolioVariance(new String[] { "COV0", "COV1" }, weights), expected));
+
+        assert (Double.isNaN(covariance.covariance("COV0", "NOT_TRACKED")));
+        market.close();
+    }
+
+    @Test
+    public void test_removed_securities_give_back_slots() {
+        Market market = new StockMarket();
+        market.addSecurity("SLOTA", SecurityType.Stock, BigDecimal.valueOf(10), 0);
+        market.addSecurity("SLOTB", SecurityType.Stock, BigDecimal.valueOf(10), 0);
+        market.publish();
+        assert (market.getCovariance().size() == 2);
+
+        market.removeSecurity("SLOTB");
+        market.addSecurity("SLOTC", SecurityType.Stock, BigDecimal.valueOf(20), 1);
+        market.publish();
+        assert (market.getCovariance().size() == 2);
+
+        // back at a very different price, which is not a return
+        market.addSecurity("SLOTB", SecurityType.Stock, BigDecimal.valueOf(1000), 2);
+        market.publish();
+        market.publish();
+        CovarianceMatrix covariance = market.getCovariance();
+        assert (covariance.size() == 3);
+        assert (covariance.covariance("SLOTB", "SLOTB") == 0);
+        market.close();
+    }
+}
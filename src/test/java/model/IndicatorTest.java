@@ -0,0 +1,79 @@
+package model;
+
+import data.market.Market;
+import data.market.StockMarket;
+import data.market.indicators.IndicatorType;
+import data.market.indicators.IndicatorValue;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class IndicatorTest {
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) < 1e-9;
+    }
+
+    @Test
+    public void test_indicators_follow_prices() {
+        Market market = new StockMarket();
+        market.addSecurity("IND", SecurityType.Stock, BigDecimal.valueOf(10), 0);
+        Security security = market.getSecurity("IND");
+
+        // seeded with the price already seen
+        assert (market.addIndicator("IND", IndicatorType.Sma, 3));
+        assert (!market.addIndicator("IND", IndicatorType.Sma, 3));
+        market.addIndicator("IND", IndicatorType.Ema, 3);
+        market.addIndicator("IND", IndicatorType.Vwap, 3);
+        market.addIndicator("IND", IndicatorType.Rsi, 2);
+        market.addIndicator("IND", IndicatorType.Bollinger, 2);
+        market.addIndicator("IND", IndicatorType.Volatility, 2);
+
+        // the day's volume so far comes with each price
+        security.updatePrice(12_000000L, 1000, 100);
+        security.updatePrice(11_000000L, 4000, 400);
+        security.updatePrice(14_000000L, 5000, 500);
+
+        List<IndicatorValue> values = market.getIndicators("IND");
+        assert (values.size() == 6);
+
+        IndicatorValue sma = values.get(0);
+        assert (sma.isReady() && close(sma.getValue(), (12 + 11 + 14) / 3.0));
+
+        // 10, then halfway to each new price: 11, 11 and 12.5
+        IndicatorValue ema = values.get(1);
+        assert (ema.isReady() && close(ema.getValue(), 12.5));
+
+        // 12 came with the first volume seen, then 300 traded at 11 and 100 at 14
+        IndicatorValue vwap = values.get(2);
+        assert (vwap.isReady() && close(vwap.getValue(), (11 * 300 + 14 * 100) / 400.0));
+
+        // changes +2, -1, +3: the first two averaged, then smoothed with a period of 2
+        IndicatorValue rsi = values.get(3);
+        double gain = (1 + 3) / 2.0;
+        double loss = (0.5 + 0) / 2.0;
+        assert (rsi.isReady() && close(rsi.getValue(), 100 - 100 / (1 + gain / loss)));
+
+        // 11 and 14 have a mean of 12.5 and a standard deviation of 1.5
+        IndicatorValue bollinger = values.get(4);
+        assert (close(bollinger.getValue(), 12.5));
+        assert (close(bollinger.getLower(), 9.5) && close(bollinger.getUpper(), 15.5));
+
+        double r1 = Math.log(11 / 12.0);
+        double r2 = Math.log(14 / 11.0);
+        IndicatorValue volatility = values.get(5);
+        assert (close(volatility.getValue(), Math.abs(r2 - r1) / 2));
+
+        // a smaller volume starts a new day, and all of it traded at the new price
+        security.updatePrice(15_000000L, 6000, 200);
+        assert (close(market.getIndicators("IND").get(2).getValue(), (11 * 300 + 14 * 100 + 15 * 200) / 600.0));
+
+        assert (market.removeIndicator("IND", IndicatorType.Sma, 3));
+        assert (market.getIndicators("IND").size() == 5);
+        assert (market.getIndicators("NONE").isEmpty());
+        market.close();
+    }
+}
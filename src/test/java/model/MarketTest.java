@@ -1,4 +1,161 @@
 package model;
 
+import data.market.Bar;
+import data.market.BarResolution;
+import data.market.Market;
+import data.market.MarketSnapshot;
+import data.market.SecurityNotFoundException;
+import data.market.StockMarket;
+import data.market.Symbols;
+import data.market.securities.Quote;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class MarketTest {
+
+    @Test
+    public void test_subscribers_see_changes() throws InterruptedException {
+        Market market = new StockMarket();
+        market.addSecurity("AAPL", SecurityType.Stock, BigDecimal.TEN);
+        market.addSecurity("MSFT", SecurityType.Stock, BigDecimal.ONE);
+
+        List<BigDecimal> applePrices = new CopyOnWriteArrayList<BigDecimal>();
+        CountDownLatch allChanges = new CountDownLatch(2);
+        market.subscribe("AAPL", (ticker, oldPrice, newPrice) -> applePrices.add(newPrice));
+        market.subscribeAll((ticker, oldPrice, newPrice) -> allChanges.countDown());
+
+        // an unchanged price is not a change
+        market.getSecurity("AAPL").updatePrice(new BigDecimal("10.00"));
+        market.getSecurity("AAPL").updatePrice(new BigDecimal("11"));
+        market.getSecurity("MSFT").updatePrice(new BigDecimal("2"));
+
+        assert (allChanges.await(1, TimeUnit.SECONDS));
+        assert (applePrices.size() == 1);
+        assert (applePrices.get(0).compareTo(new BigDecimal("11")) == 0);
+        market.close();
+    }
+
+    @Test
+    public void test_iterate_while_changing() throws InterruptedException {
+        Market market = new StockMarket();
+        for (int i = 0; i < 100; i++) {
+            market.addSecurity("T" + i, SecurityType.Stock, BigDecimal.ONE, i);
+        }
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 10000; i++) {
+                market.addSecurity("T" + (i % 200), SecurityType.Stock, BigDecimal.valueOf(i), i);
+                if (i % 1000 == 0) {
+                    market.clear();
+                }
+            }
+        });
+        writer.start();
+
+        // iterating the live view never throws, and every quote's price matches its timestamp
+        while (writer.isAlive()) {
+            for (Security security : market.getSecurities()) {
+                Quote quote = security.getQuote();
+                assert (quote.getPrice().longValue() == quote.getTimestamp() || quote.getTimestamp() < 100);
+            }
+        }
+        writer.join();
+        market.close();
+    }
+
+    @Test
+    public void test_symbol_ids() {
+        Market market = new StockMarket();
+        for (int i = 0; i < 3000; i++) {
+            market.addSecurity("SYM" + i, SecurityType.Stock, BigDecimal.valueOf(i));
+        }
+
+        int id = Symbols.intern("SYM2500");
+        assert (Symbols.intern("SYM2500") == id);
+        assert (Symbols.ticker(id).equals("SYM2500"));
+        assert (market.getSecurity(id).getTicker().equals("SYM2500"));
+        assert (market.getSecurity(id) == market.getSecurity("SYM2500"));
+        assert (Symbols.id("NOT A TICKER") == -1);
+        assert (market.getSecurity("NOT A TICKER") == null);
+
+        market.removeSecurity("SYM2500");
+        assert (market.getSecurity(id) == null);
+        assert (market.getSecurities().size() == 2999);
+        market.clear();
+        assert (market.getSecurities().isEmpty());
+        market.close();
+    }
+
+    @Test
+    public void test_bars() throws SecurityNotFoundException {
+        Market market = new StockMarket();
+        market.addSecurity("BARS", SecurityType.Stock, new BigDecimal("10"), 60000);
+        market.addSecurity("BARS", SecurityType.Stock, new BigDecimal("12"), 60500);
+        market.addSecurity("BARS", SecurityType.Stock, new BigDecimal("9"), 61000);
+        market.addSecurity("BARS", SecurityType.Stock, new BigDecimal("11"), 121000);
+
+        List<Bar> seconds = market.getBars("BARS", BarResolution.Second, 0, Long.MAX_VALUE);
+        assert (seconds.size() == 3);
+        assert (seconds.get(0).getStart() == 60000);
+        assert (seconds.get(0).getOpen().compareTo(new BigDecimal("10")) == 0);
+        assert (seconds.get(0).getClose().compareTo(new BigDecimal("12")) == 0);
+        assert (seconds.get(0).getTicks() == 2);
+
+        List<Bar> minutes = market.getBars("BARS", BarResolution.Minute, 0, 120000);
+        assert (minutes.size() == 1);
+        Bar minute = minutes.get(0);
+        assert (minute.getHigh().compareTo(new BigDecimal("12")) == 0);
+        assert (minute.getLow().compareTo(new BigDecimal("9")) == 0);
+        assert (minute.getClose().compareTo(new BigDecimal("9")) == 0);
+        assert (minute.getTicks() == 3);
+
+        // only the most recent bars are kept
+        for (int i = 0; i < 1000; i++) {
+            market.addSecurity("BARS", SecurityType.Stock, BigDecimal.ONE, 200000 + i * 1000L);
+        }
+        assert (market.getBars("BARS", BarResolution.Second, 0, Long.MAX_VALUE).size() == 60);
+        assert (market.getBars("BARS", BarResolution.Hour, 0, Long.MAX_VALUE).size() == 1);
+        market.close();
+    }
+
+    @Test
+    public void test_snapshots() {
+        Market market = new StockMarket();
+        market.addSecurity("AAPL", SecurityType.Stock, BigDecimal.TEN);
+
+        // a new security is in the next snapshot taken
+        MarketSnapshot first = market.snapshot();
+        assert (first.size() == 1);
+        assert (first.getPriceMicros(Symbols.id("AAPL")) == 10_000000L);
+        assert (market.snapshot() == first);
+
+        // price changes wait for the next publish
+        market.getSecurity("AAPL").updatePrice(new BigDecimal("11"));
+        assert (market.snapshot() == first);
+        MarketSnapshot second = market.publish();
+        assert (second.getEpoch() > first.getEpoch());
+        assert (second.getPriceMicros(Symbols.id("AAPL")) == 11_000000L);
+        assert (first.getPriceMicros(Symbols.id("AAPL")) == 10_000000L);
+
+        // adding a security part way through a cycle keeps the other prices of the last one
+        market.getSecurity("AAPL").updatePrice(new BigDecimal("12"));
+        market.addSecurity("MSFT", SecurityType.Stock, BigDecimal.ONE);
+        MarketSnapshot third = market.snapshot();
+        assert (third.size() == 2);
+        assert (third.getPriceMicros(Symbols.id("AAPL")) == 11_000000L);
+        assert (third.getPriceMicros(Symbols.id("MSFT")) == 1_000000L);
+
+        market.removeSecurity("AAPL");
+        assert (market.snapshot().getQuote("AAPL") == null);
+        assert (market.snapshot().size() == 1);
+        assert (second.getQuote("AAPL") != null);
+        market.close();
+    }
 }
@@ -0,0 +1,146 @@
+package model;
+
+import data.market.Market;
+import data.market.Price;
+import data.market.StockMarket;
+import data.market.options.ExerciseStyle;
+import data.market.options.OptionContract;
+import data.market.options.OptionGreeks;
+import data.market.options.OptionModel;
+import data.market.options.OptionRight;
+import data.market.securities.Option;
+import data.market.securities.Security;
+import data.market.securities.SecurityType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+public class OptionTest {
+
+    private static boolean close(double a, double b, double tolerance) {
+        return Math.abs(a - b) <= tolerance;
+    }
+
+    @Test
+    public void test_black_scholes() {
+        double[] call = new double[OptionModel.VALUES];
+        double[] put = new double[OptionModel.VALUES];
+        OptionModel.blackScholes(true, 100, 100, 1, 0.05, 0.2, call, 0);
+        OptionModel.blackScholes(false, 100, 100, 1, 0.05, 0.2, put, 0);
+
+        assert (close(call[OptionModel.PRICE], 10.450584, 1e-6));
+        assert (close(put[OptionModel.PRICE], 5.573526, 1e-6));
+        assert (close(call[OptionModel.DELTA], 0.636831, 1e-6));
+        assert (close(call[OptionModel.GAMMA], 0.018762, 1e-6));
+        assert (close(call[OptionModel.VEGA], 37.524035, 1e-5));
+        assert (close(call[OptionModel.THETA], -6.414028, 1e-5));
+        assert (close(call[OptionModel.RHO], 53.232482, 1e-5));
+
+        // put-call parity
+        assert (close(call[OptionModel.PRICE] - put[OptionModel.PRICE], 100 - 100 * Math.exp(-0.05), 1e-9));
+        assert (close(call[OptionModel.DELTA] - put[OptionModel.DELTA], 1, 1e-12));
+    }
+
+    @Test
+    public void test_binomial() {
+        double[] tree = new double[501];
+        double[] european = new double[OptionModel.VALUES];
+        double[] exact = new double[OptionModel.VALUES];
+        OptionModel.binomial(false, false, 100, 100, 1, 0.05, 0.2, 500, tree, european, 0);
+        OptionModel.blackScholes(false, 100, 100, 1, 0.05, 0.2, exact, 0);
+
+        // a European tree converges on Black-Scholes
+        assert (close(european[OptionModel.PRICE], exact[OptionModel.PRICE], 0.01));
+        assert (close(european[OptionModel.DELTA], exact[OptionModel.DELTA], 0.01));
+        assert (close(european[OptionModel.GAMMA], exact[OptionModel.GAMMA], 0.001));
+        assert (close(european[OptionModel.VEGA], exact[OptionModel.VEGA], 0.5));
+        assert (close(european[OptionModel.THETA], exact[OptionModel.THETA], 0.1));
+        assert (close(european[OptionModel.RHO], exact[OptionModel.RHO], 0.5));
+
+        // early exercise is worth something for a put
+        double[] american = new double[OptionModel.VALUES];
+        OptionModel.price(false, true, 100, 100, 1, 0.05, 0.2, OptionModel.DEFAULT_STEPS, tree, american, 0);
+        assert (close(american[OptionModel.PRICE], 6.0896, 0.02));
+
+        // deep in the money, it is worth exercising now
+        OptionModel.price(false, true, 50, 100, 1, 0.05, 0.2, OptionModel.DEFAULT_STEPS, tree, american, 0);
+        assert (close(american[OptionModel.PRICE], 50, 1e-9));
+        assert (close(american[OptionModel.DELTA], -1, 1e-9));
+    }
+
+    @Test
+    public void test_contract_symbols() {
+        OptionContract contract = OptionContract.parse("AAPL240119C00150000");
+        assert (contract != null);
+        assert (contract.getUnderlying().equals("AAPL"));
+        assert (contract.getRight() == OptionRight.Call);
+        assert (contract.getStrike().compareTo(new BigDecimal("150")) == 0);
+        assert (contract.getExpiry().equals(LocalDate.of(2024, 1, 19)));
+        assert (contract.getStyle() == ExerciseStyle.American);
+
+        OptionContract put = new OptionContract("SPY", OptionRight.Put, new BigDecimal("412.5"),
+                LocalDate.of(2025, 6, 20), ExerciseStyle.American);
+        assert (put.getTicker().equals("SPY250620P00412500"));
+        assert (put.equals(OptionContract.parse("SPY   250620P00412500")));
+
+        assert (OptionContract.parse("AAPL") == null);
+        assert (OptionContract.parse("AAPL241319C00150000") == null);
+        assert (OptionContract.parse("AAPL240119X00150000") == null);
+    }
+
+    @Test
+    public void test_chains_follow_underlying() {
+        Market market = new StockMarket();
+        long now = System.currentTimeMillis();
+        LocalDate expiry = LocalDate.now(ZoneId.of("America/New_York")).plusYears(1);
+        market.addSecurity("OPTU", SecurityType.Stock, BigDecimal.valueOf(100), now);
+
+        // enough contracts that repricing splits across the pool
+        String[] tickers = new String[80];
+        for (int i = 0; i < tickers.length; i++) {
+            OptionRight right = i % 2 == 0 ? OptionRight.Call : OptionRight.Put;
+            BigDecimal strike = BigDecimal.valueOf(60 + i);
+            tickers[i] = new OptionContract("OPTU", right, strike, expiry, ExerciseStyle.American).getTicker();
+            market.addSecurity(tickers[i], SecurityType.Option, null, now);
+        }
+
+        // priced from the underlying as soon as they are added
+        Security call = market.getSecurity(tickers[40]);
+        assert (call instanceof Option);
+        OptionGreeks greeks = market.getGreeks(tickers[40]);
+        assert (greeks.getSpot() == 100);
+        assert (call.getPriceMicros() == Price.fromDouble(greeks.getPrice()));
+        assert (greeks.getDelta() > 0.5 && greeks.getDelta() < 1);
+
+        // an option's price cannot be set by hand
+        market.addSecurity(tickers[40], SecurityType.Option, BigDecimal.ONE, now);
+        assert (call.getPriceMicros() == Price.fromDouble(greeks.getPrice()));
+
+        market.getSecurity("OPTU").updatePrice(BigDecimal.valueOf(110), now + 1000);
+        OptionGreeks moved = market.getGreeks(tickers[40]);
+        assert (moved.getSpot() == 110);
+        assert (moved.getPrice() > greeks.getPrice());
+        assert (call.getPriceMicros() == Price.fromDouble(moved.getPrice()));
+        assert (call.getLastUpdated() == now + 1000);
+
+        // every contract in the chain moved, and no put is worth less than exercising it
+        for (int i = 1; i < tickers.length; i += 2) {
+            OptionGreeks put = market.getGreeks(tickers[i]);
+            assert (put.getSpot() == 110);
+            assert (put.getPrice() >= Math.max(0, 60 + i - 110));
+            assert (put.getDelta() <= 0);
+        }
+
+        // a higher volatility makes every option worth more
+        market.setVolatility("OPTU", 0.5);
+        market.getSecurity("OPTU").updatePrice(BigDecimal.valueOf(110), now + 2000);
+        assert (market.getGreeks(tickers[40]).getPrice() > moved.getPrice());
+
+        market.removeSecurity(tickers[40]);
+        assert (market.getGreeks(tickers[40]) == null);
+        assert (market.getGreeks("OPTU") == null);
+        market.close();
+    }
+}
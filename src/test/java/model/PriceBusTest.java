@@ -0,0 +1,107 @@
+package model;
+
+import data.market.bus.BusConsumer;
+import data.market.bus.PriceBus;
+import data.market.bus.WaitStrategy;
+import data.market.securities.Security;
+import data.market.securities.Stock;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+public class PriceBusTest {
+
+    @Test
+    public void test_every_consumer_sees_every_event_in_order() throws InterruptedException {
+        // a tiny ring, so producers wrap many times and have to wait for the slow consumer
+        PriceBus bus = new PriceBus(8);
+        Security security = new Stock("BUS", BigDecimal.ONE);
+        int producers = 4;
+        int perProducer = 5000;
+
+        long[][] last = new long[2][producers];
+        int[] seen = new int[2];
+        boolean[] ordered = {true, true};
+        BusConsumer[] consumers = new BusConsumer[2];
+        for (int c = 0; c < 2; c++) {
+            int consumer = c;
+            consumers[c] = bus.addConsumer("test-" + c, (s, producer, oldMicros, newMicros, volume, endOfBatch) -> {
+                if (consumer == 1 && newMicros % 100 == 0) {
+                    Thread.yield();
+                }
+                // each producer's events arrive in the order it published them
+                if (newMicros <= last[consumer][(int) producer]) {
+                    ordered[consumer] = false;
+                }
+                last[consumer][(int) producer] = newMicros;
+                seen[consumer]++;
+            }, c == 0 ? WaitStrategy.Yielding : WaitStrategy.Blocking);
+        }
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    bus.publish(security, producer, i - 1, i);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (BusConsumer consumer : consumers) {
+            assert (consumer.awaitSequence(bus.getCursor(), 5000));
+        }
+        assert (bus.getCursor() == producers * perProducer - 1);
+        assert (seen[0] == producers * perProducer && seen[1] == producers * perProducer);
+        assert (ordered[0] && ordered[1]);
+    }
+
+    @Test
+    public void test_removed_consumer_stops_holding_up_producers() {
+        PriceBus bus = new PriceBus(4);
+        Security security = new Stock("BUS", BigDecimal.ONE);
+        BusConsumer stuck = bus.addConsumer("stuck", (s, timestamp, oldMicros, newMicros, volume, endOfBatch) -> {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException ignored) {
+            }
+        }, WaitStrategy.Sleeping);
+
+        bus.publish(security, 0, 0, 1);
+        bus.removeConsumer(stuck);
+        for (int i = 0; i < 100; i++) {
+            bus.publish(security, i, 0, 1);
+        }
+        assert (bus.getCursor() == 100);
+    }
+
+    @Test
+    public void test_close_stops_consumers_after_draining() throws InterruptedException {
+        PriceBus bus = new PriceBus(4);
+        Security security = new Stock("BUS", BigDecimal.ONE);
+        int[] seen = new int[1];
+        Thread[] thread = new Thread[1];
+        bus.addConsumer("closing", (s, timestamp, oldMicros, newMicros, volume, endOfBatch) -> {
+            thread[0] = Thread.currentThread();
+            seen[0]++;
+        }, WaitStrategy.Blocking);
+
+        for (int i = 0; i < 100; i++) {
+            bus.publish(security, i, 0, 1);
+        }
+        bus.close(5000);
+        assert (seen[0] == 100);
+        thread[0].join(5000);
+        assert (!thread[0].isAlive());
+
+        // nothing is left to wait for, so a full ring does not hold up producers
+        for (int i = 0; i < 100; i++) {
+            bus.publish(security, i, 0, 1);
+        }
+        assert (bus.getCursor() == 199);
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import data.market.Price;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+public class PriceTest {
+
+    @Test
+    public void test_conversion() {
+        assert (Price.fromBigDecimal(new BigDecimal("123.45")) == 123_450000L);
+        assert (Price.fromBigDecimal(new BigDecimal("0.0000005")) == 0);
+        assert (Price.fromBigDecimal(new BigDecimal("0.0000015")) == 2);
+        assert (Price.fromBigDecimal(null) == Price.NONE);
+        assert (Price.toBigDecimal(123_450000L).compareTo(new BigDecimal("123.45")) == 0);
+        assert (Price.toBigDecimal(Price.NONE) == null);
+    }
+
+    @Test
+    public void test_exact_arithmetic() {
+        long price = Price.fromBigDecimal(new BigDecimal("0.1"));
+        long sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum = Price.add(sum, price);
+        }
+        assert (sum == Price.ONE);
+        assert (Price.multiply(price, 30) == 3 * Price.ONE);
+    }
+
+    @Test
+    public void test_overflow() {
+        try {
+            Price.multiply(Long.MAX_VALUE / 2, 3);
+            assert (false);
+        } catch (ArithmeticException e) {
+            assert (true);
+        }
+        try {
+            Price.fromBigDecimal(new BigDecimal("1e20"));
+            assert (false);
+        } catch (ArithmeticException e) {
+            assert (true);
+        }
+    }
+}
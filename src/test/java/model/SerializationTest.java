@@ -1,4 +1,36 @@
 package model;
 
+import account.Account;
+import account.ReadOnlyPortfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+
 public class SerializationTest {
+
+    private static Account load(String fileName) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(fileName))) {
+            return (Account) in.readObject();
+        }
+    }
+
+    @Test
+    public void test_released_accounts_load() throws IOException, ClassNotFoundException {
+        // saved by the released code, before any of the account classes changed
+        Account account = load("example");
+        assert (account.getCash().compareTo(BigDecimal.ZERO) == 0);
+        assert (account.getPortfolios().size() == 1);
+        ReadOnlyPortfolio portfolio = account.getPortfolio("portfolio");
+        assert (portfolio.cash().compareTo(new BigDecimal("887.72")) == 0);
+        assert (portfolio.positions().size() == 1);
+        assert (portfolio.position("AAPL").quantity() == 1);
+
+        Account other = load("example1");
+        assert (other.getCash().compareTo(new BigDecimal("700")) == 0);
+        assert (other.getPortfolio("secondary").cash().compareTo(new BigDecimal("300")) == 0);
+        assert (other.getPortfolio("secondary").positions().isEmpty());
+    }
 }